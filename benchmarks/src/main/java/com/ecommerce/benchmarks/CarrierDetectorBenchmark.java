@@ -0,0 +1,43 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.util.CarrierDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carrier detection runs a chain of regexes; later carriers in the chain and
+ * unrecognised numbers pay for every earlier miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarrierDetectorBenchmark {
+
+    @Param({
+            "1Z999AA10123456784",          // UPS
+            "449044304137821",             // FedEx
+            "JD014600006281230451",        // DHL
+            "9400 1000 0000 0000 0000 00", // USPS, with whitespace
+            "TBA123456789000",             // Amazon Logistics
+            "UNKNOWN-123"                  // falls through to the default
+    })
+    public String trackingNumber;
+
+    @Benchmark
+    public String detectCarrier() {
+        return CarrierDetector.detectCarrier(trackingNumber);
+    }
+}
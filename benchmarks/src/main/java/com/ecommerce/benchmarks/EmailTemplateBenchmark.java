@@ -0,0 +1,95 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.service.EmailService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTML rendering of the transactional emails, without the SMTP round trip.
+ * The builders are private to EmailService, so they are reached through method handles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailTemplateBenchmark {
+
+    private EmailService emailService;
+    private Order order;
+    private Map<String, Object> returnData;
+    private PrintStream stdout;
+
+    private MethodHandle orderConfirmation;
+    private MethodHandle adminOrderNotification;
+    private MethodHandle returnConfirmation;
+    private MethodHandle adminReturnNotification;
+    private MethodHandle shippingLabel;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        stdout = SampleData.muteStdout();
+        emailService = new EmailService();
+        SampleData.setField(emailService, "fromEmail", "shop@example.com");
+        SampleData.setField(emailService, "fromName", "Benchmark Shop");
+        order = SampleData.order(5);
+        returnData = SampleData.returnData(order);
+
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(EmailService.class, MethodHandles.lookup());
+        MethodType forOrder = MethodType.methodType(String.class, Order.class);
+        MethodType forReturn = MethodType.methodType(String.class, Order.class, Map.class);
+        orderConfirmation = lookup.findVirtual(EmailService.class, "buildOrderConfirmationEmail", forOrder);
+        adminOrderNotification = lookup.findVirtual(EmailService.class, "buildAdminOrderNotificationEmail", forOrder);
+        returnConfirmation = lookup.findVirtual(EmailService.class, "buildReturnConfirmationEmail", forReturn);
+        adminReturnNotification = lookup.findVirtual(EmailService.class, "buildAdminReturnNotificationEmail", forReturn);
+        shippingLabel = lookup.findVirtual(EmailService.class, "buildShippingLabelEmail", forOrder);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public String orderConfirmation() throws Throwable {
+        return (String) orderConfirmation.invokeExact(emailService, order);
+    }
+
+    @Benchmark
+    public String adminOrderNotification() throws Throwable {
+        return (String) adminOrderNotification.invokeExact(emailService, order);
+    }
+
+    @Benchmark
+    public String returnConfirmation() throws Throwable {
+        return (String) returnConfirmation.invokeExact(emailService, order, returnData);
+    }
+
+    @Benchmark
+    public String adminReturnNotification() throws Throwable {
+        return (String) adminReturnNotification.invokeExact(emailService, order, returnData);
+    }
+
+    @Benchmark
+    public String shippingLabelEmail() throws Throwable {
+        return (String) shippingLabel.invokeExact(emailService, order);
+    }
+}
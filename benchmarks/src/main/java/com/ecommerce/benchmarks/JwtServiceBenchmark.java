@@ -0,0 +1,52 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token signing happens on every login; parsing happens on every authenticated request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    // 512-bit base64 key, the same size the app's SecretKeyGenerator produces
+    private static final String SECRET =
+            "YmVuY2htYXJrLXNlY3JldC1iZW5jaG1hcmstc2VjcmV0LWJlbmNobWFyay1zZWNyZXQtYmVuY2htYXJrLXNlY3JldA==";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        SampleData.setField(jwtService, "secret", SECRET);
+        SampleData.setField(jwtService, "expiration", 86_400_000L);
+        token = jwtService.generateToken("jordan.rivera@example.com");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("jordan.rivera@example.com");
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+}
@@ -0,0 +1,118 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Realistic fixtures shared by the benchmarks, plus the small amount of reflection
+ * needed to drive services outside a Spring context.
+ */
+final class SampleData {
+
+    private SampleData() {
+    }
+
+    // A shipped order with a customer, five line items and return details filled in
+    static Order order(int itemCount) {
+        User user = new User();
+        user.setId(42L);
+        user.setName("Jordan Rivera");
+        user.setEmail("jordan.rivera@example.com");
+        user.setPhoneNumber("+1 512 555 0142");
+        user.setCardLastFour("4242");
+        user.setBillingZip("78701");
+        user.setCreatedAt(LocalDateTime.of(2024, 3, 14, 9, 30));
+
+        Order order = new Order();
+        order.setId(100_245L);
+        order.setUser(user);
+        order.setPaymentMethod("card");
+        order.setPaymentId("pi_3OqL2bJk9xYz0123456789ab");
+        order.setPaymentStatus(Order.PaymentStatus.COMPLETED);
+        order.setOrderStatus(Order.OrderStatus.SHIPPED);
+        order.setTrackingNumber("1Z999AA10123456784");
+        order.setCarrier("UPS");
+        order.setShippingStreet("1100 Congress Ave, Apt 4B");
+        order.setShippingCity("Austin");
+        order.setShippingState("TX");
+        order.setShippingZipCode("78701");
+        order.setShippingCountry("USA");
+        order.setCreatedAt(LocalDateTime.of(2024, 11, 2, 14, 5, 31));
+        order.setReturnStatus(Order.ReturnStatus.RETURN_REQUESTED);
+        order.setReturnRequestDate(LocalDateTime.of(2024, 11, 12, 10, 0));
+
+        List<OrderItem> items = new ArrayList<>();
+        double subtotal = 0;
+        for (int i = 0; i < itemCount; i++) {
+            Product product = new Product("Product " + i, "A realistic product description for item " + i
+                    + " with enough text to resemble the catalogue", 12.5 + i * 7.25, "Category " + (i % 3),
+                    100 + i, "/images/products/product-" + i + ".jpg");
+            product.setId(1_000L + i);
+
+            OrderItem item = new OrderItem();
+            item.setId(5_000L + i);
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setProductName(product.getName());
+            item.setQuantity(1 + i % 3);
+            item.setPrice(product.getPrice());
+            items.add(item);
+            subtotal += item.getPrice() * item.getQuantity();
+        }
+        order.setItems(items);
+        order.setSubtotal(subtotal);
+        order.setTax(subtotal * 0.0825);
+        order.setShipping(subtotal >= 50 ? 0.0 : 10.0);
+        order.setTotalAmount(order.getSubtotal() + order.getTax() + order.getShipping());
+        return order;
+    }
+
+    // Shape of the returnData map the return flow hands to EmailService
+    static Map<String, Object> returnData(Order order) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (OrderItem item : order.getItems()) {
+            Map<String, Object> returned = new HashMap<>();
+            returned.put("productName", item.getProductName());
+            returned.put("quantity", item.getQuantity());
+            returned.put("price", item.getPrice());
+            returned.put("reason", "Item arrived damaged");
+            items.add(returned);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("items", items);
+        data.put("customerName", order.getUser().getName());
+        data.put("customerEmail", order.getUser().getEmail());
+        data.put("orderAmount", order.getTotalAmount());
+        data.put("reason", "Item arrived damaged");
+        return data;
+    }
+
+    // Stands in for @Value/@Autowired injection
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    // The services log every call with System.out; keep that out of the JMH output
+    static PrintStream muteStdout() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+}
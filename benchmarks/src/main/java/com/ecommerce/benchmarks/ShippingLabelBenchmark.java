@@ -0,0 +1,51 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.service.ShippingLabelService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Return-label PDF generation with iText; the slowest single call in the return flow.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShippingLabelBenchmark {
+
+    private ShippingLabelService shippingLabelService;
+    private Order order;
+    private PrintStream stdout;
+
+    @Setup
+    public void setUp() {
+        stdout = SampleData.muteStdout();
+        shippingLabelService = new ShippingLabelService();
+        order = SampleData.order(3);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public byte[] generateReturnShippingLabel() throws Exception {
+        return shippingLabelService.generateReturnShippingLabel(order);
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.service.TaxService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tax lookups run for every cart calculation and order; only the in-memory
+ * rate tables are exercised, so no repository is needed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaxServiceBenchmark {
+
+    // zip-prefix hit, state fallback, and neither (default rate)
+    @Param({"TX:10001", "tx:78701", "ZZ:99999"})
+    public String address;
+
+    private TaxService taxService;
+    private String state;
+    private String zipCode;
+
+    @Setup
+    public void setUp() {
+        taxService = new TaxService();
+        String[] parts = address.split(":");
+        state = parts[0];
+        zipCode = parts[1];
+    }
+
+    @Benchmark
+    public double getTaxRate() {
+        return taxService.getTaxRate(state, zipCode);
+    }
+
+    @Benchmark
+    public double calculateTax() {
+        return taxService.calculateTax(129.97, state, zipCode);
+    }
+}
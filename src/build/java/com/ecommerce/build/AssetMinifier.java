@@ -0,0 +1,283 @@
+package com.ecommerce.build;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * Conservative whitespace-and-comment minifier for the shop's CSS and JavaScript,
+ * used by {@link AssetPipeline} at build time.
+ *
+ * It never renames or reorders anything. JavaScript keeps a newline wherever the
+ * source had one unless it is provably redundant, so automatic semicolon insertion
+ * behaves exactly as before. Strings, template literals and regex literals are
+ * copied verbatim.
+ */
+public final class AssetMinifier {
+
+    // A single space next to one of these is never needed
+    private static final String JS_PUNCTUATION = "{}()[];,=:<>?&|*%^~!";
+    // A newline after these (or before the closers) can never trigger or prevent ASI
+    private static final String JS_NEWLINE_SAFE_BEFORE = "{;,([";
+    private static final String JS_NEWLINE_SAFE_AFTER = "})]";
+    // After these a '/' starts a regex literal rather than a division
+    private static final String JS_REGEX_PREFIX = "(,=:[!&|?{};+-*%<>~^";
+    private static final Set<String> JS_REGEX_KEYWORDS = Set.of("return", "typeof", "case", "do", "else", "in",
+            "of", "new", "delete", "void", "throw", "instanceof", "yield", "await");
+
+    private static final String CSS_PUNCTUATION = "{};,>";
+
+    private AssetMinifier() {
+    }
+
+    // ========================================
+    // CSS
+    // ========================================
+
+    public static String css(String source) {
+        StringBuilder out = new StringBuilder(source.length());
+        // true for blocks holding declarations, false for @media-style blocks holding rules
+        Deque<Boolean> blocks = new ArrayDeque<>();
+        int preludeStart = 0;
+        boolean pendingSpace = false;
+        int i = 0;
+        int n = source.length();
+        while (i < n) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (c == '/' && i + 1 < n && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                pendingSpace = true;
+                continue;
+            }
+            if (c == '}' && out.length() > 0 && out.charAt(out.length() - 1) == ';') {
+                out.setLength(out.length() - 1);
+            }
+            if (pendingSpace && out.length() > 0) {
+                char prev = out.charAt(out.length() - 1);
+                // "color: red" -> "color:red", but only inside declarations: "a :hover" is a selector
+                boolean afterColon = prev == ':' && Boolean.TRUE.equals(blocks.peek());
+                if (!afterColon && CSS_PUNCTUATION.indexOf(prev) < 0 && CSS_PUNCTUATION.indexOf(c) < 0) {
+                    out.append(' ');
+                }
+            }
+            pendingSpace = false;
+            if (c == '"' || c == '\'') {
+                i = copyString(source, i, out);
+                continue;
+            }
+            if (c == '{') {
+                String prelude = out.substring(preludeStart).trim();
+                blocks.push(!prelude.startsWith("@") || prelude.startsWith("@font-face") || prelude.startsWith("@page"));
+            } else if (c == '}') {
+                blocks.poll();
+            }
+            out.append(c);
+            i++;
+            if (c == '{' || c == '}' || c == ';') {
+                preludeStart = out.length();
+            }
+        }
+        return out.toString();
+    }
+
+    // ========================================
+    // JAVASCRIPT
+    // ========================================
+
+    public static String js(String source) {
+        StringBuilder out = new StringBuilder(source.length());
+        // Brace depth at which each open template literal's ${ ... } started
+        Deque<Integer> templateDepths = new ArrayDeque<>();
+        int braceDepth = 0;
+        boolean pendingSpace = false;
+        boolean pendingNewline = false;
+        int i = 0;
+        int n = source.length();
+
+        while (i < n) {
+            char c = source.charAt(i);
+            char next = i + 1 < n ? source.charAt(i + 1) : 0;
+
+            if (c == '\n' || c == '\r') {
+                pendingNewline = true;
+                i++;
+                continue;
+            }
+            if (c == ' ' || c == '\t' || c == '\f' || c == '\u000B') {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (c == '/' && next == '/') {
+                while (i < n && source.charAt(i) != '\n' && source.charAt(i) != '\r') {
+                    i++;
+                }
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                int end = source.indexOf("*/", i + 2);
+                int stop = end < 0 ? n : end + 2;
+                if (source.substring(i, stop).indexOf('\n') >= 0) {
+                    pendingNewline = true;
+                } else {
+                    pendingSpace = true;
+                }
+                i = stop;
+                continue;
+            }
+
+            separate(out, c, pendingNewline, pendingSpace);
+            pendingNewline = false;
+            pendingSpace = false;
+
+            if (c == '"' || c == '\'') {
+                i = copyString(source, i, out);
+            } else if (c == '`') {
+                out.append(c);
+                i = copyTemplate(source, i + 1, out, templateDepths, braceDepth);
+                if (i < 0) {
+                    // stopped at "${": the template continues once the matching '}' is seen
+                    i = -i;
+                    braceDepth++;
+                }
+            } else if (c == '/' && regexAllowed(out)) {
+                i = copyRegex(source, i, out);
+            } else if (c == '{') {
+                braceDepth++;
+                out.append(c);
+                i++;
+            } else if (c == '}') {
+                braceDepth--;
+                out.append(c);
+                i++;
+                if (!templateDepths.isEmpty() && templateDepths.peek() == braceDepth) {
+                    templateDepths.pop();
+                    i = copyTemplate(source, i, out, templateDepths, braceDepth);
+                    if (i < 0) {
+                        i = -i;
+                        braceDepth++;
+                    }
+                }
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static void separate(StringBuilder out, char next, boolean newline, boolean space) {
+        if ((!newline && !space) || out.length() == 0) {
+            return;
+        }
+        char prev = out.charAt(out.length() - 1);
+        if (newline) {
+            if (JS_NEWLINE_SAFE_BEFORE.indexOf(prev) < 0 && JS_NEWLINE_SAFE_AFTER.indexOf(next) < 0) {
+                out.append('\n');
+            }
+            return;
+        }
+        // Never create "<!--" or "-->", which are comment markers in classic scripts
+        boolean htmlComment = (prev == '<' && next == '!') || (prev == '-' && next == '>');
+        if (htmlComment || (JS_PUNCTUATION.indexOf(prev) < 0 && JS_PUNCTUATION.indexOf(next) < 0)) {
+            out.append(' ');
+        }
+    }
+
+    private static boolean regexAllowed(StringBuilder out) {
+        int end = out.length() - 1;
+        while (end >= 0 && Character.isWhitespace(out.charAt(end))) {
+            end--;
+        }
+        if (end < 0) {
+            return true;
+        }
+        char prev = out.charAt(end);
+        if (JS_REGEX_PREFIX.indexOf(prev) >= 0) {
+            return true;
+        }
+        int start = end;
+        while (start >= 0 && Character.isJavaIdentifierPart(out.charAt(start))) {
+            start--;
+        }
+        return JS_REGEX_KEYWORDS.contains(out.substring(start + 1, end + 1));
+    }
+
+    // Copies a quoted string starting at the opening quote; returns the index after the closing one
+    private static int copyString(String source, int i, StringBuilder out) {
+        char quote = source.charAt(i);
+        out.append(quote);
+        i++;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            out.append(c);
+            i++;
+            if (c == '\\' && i < source.length()) {
+                out.append(source.charAt(i));
+                i++;
+            } else if (c == quote || c == '\n') {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Copies template literal text starting just after a '`' or a closing '}'.
+     * Returns the index after the closing '`', or minus the index after "${"
+     * (having recorded the current brace depth) when an expression starts.
+     */
+    private static int copyTemplate(String source, int i, StringBuilder out,
+                                    Deque<Integer> templateDepths, int braceDepth) {
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\\' && i + 1 < source.length()) {
+                out.append(c).append(source.charAt(i + 1));
+                i += 2;
+            } else if (c == '`') {
+                out.append(c);
+                return i + 1;
+            } else if (c == '$' && i + 1 < source.length() && source.charAt(i + 1) == '{') {
+                out.append("${");
+                templateDepths.push(braceDepth);
+                return -(i + 2);
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return i;
+    }
+
+    // Copies a regex literal including character classes; flags follow as ordinary identifier chars
+    private static int copyRegex(String source, int i, StringBuilder out) {
+        out.append('/');
+        i++;
+        boolean inClass = false;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                break;
+            }
+            out.append(c);
+            i++;
+            if (c == '\\' && i < source.length()) {
+                out.append(source.charAt(i));
+                i++;
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                break;
+            }
+        }
+        return i;
+    }
+}
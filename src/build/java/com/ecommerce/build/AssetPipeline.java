@@ -0,0 +1,266 @@
+package com.ecommerce.build;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.ecommerce.util.ManifestResourceResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build-time asset stage, run by Maven in process-test-classes (see pom.xml):
+ *
+ *   1. minifies, fingerprints and pre-compresses every .css/.js under static/
+ *   2. pulls the large inline style and script blocks out of the Thymeleaf
+ *      templates into fingerprinted files of their own (small ones are minified in place)
+ *   3. writes the rewritten templates over the copies in the output directory
+ *   4. writes asset-manifest.json, which StaticAssetConfig serves /assets/** from
+ *
+ * Usage: AssetPipeline <src/main/resources> <target/classes>
+ * Sources are always read from src/main/resources, so re-running is idempotent.
+ */
+public class AssetPipeline {
+
+    private static final String ASSETS_DIR = "static/assets";
+
+    // Inline blocks smaller than this stay inline; a separate request would cost more
+    private static final int EXTRACT_THRESHOLD = 1024;
+    // Pre-compressed variants are only kept when they save at least this much
+    private static final int MIN_COMPRESSION_SAVING = 256;
+
+    private static final Pattern INLINE_BLOCK =
+            Pattern.compile("<(script|style)(\\s[^>]*)?>(.*?)</\\1\\s*>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+
+    private final Path sourceDir;
+    private final Path outputDir;
+    private final Map<String, Map<String, Object>> manifest = new TreeMap<>();
+    private final Map<String, String> fingerprinted = new LinkedHashMap<>();
+    private final boolean brotli;
+    private long originalBytes;
+    private long minifiedBytes;
+
+    AssetPipeline(Path sourceDir, Path outputDir) {
+        this.sourceDir = sourceDir;
+        this.outputDir = outputDir;
+        this.brotli = brotliAvailable();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetPipeline <resources source dir> <classes output dir>");
+            System.exit(2);
+        }
+        new AssetPipeline(Path.of(args[0]), Path.of(args[1])).run();
+    }
+
+    void run() throws IOException {
+        Path assetsOut = outputDir.resolve(ASSETS_DIR);
+        deleteRecursively(assetsOut);
+        Files.createDirectories(assetsOut);
+
+        Path staticDir = sourceDir.resolve("static");
+        for (Path file : list(staticDir)) {
+            String logical = relative(staticDir, file);
+            if (logical.startsWith("assets/")) {
+                continue;
+            }
+            String text = Files.readString(file, StandardCharsets.UTF_8);
+            if (logical.endsWith(".css")) {
+                fingerprinted.put(logical, writeAsset(logical, AssetMinifier.css(text), text.length()));
+            } else if (logical.endsWith(".js")) {
+                fingerprinted.put(logical, writeAsset(logical, AssetMinifier.js(text), text.length()));
+            }
+        }
+
+        Path templatesDir = sourceDir.resolve("templates");
+        int templates = 0;
+        for (Path file : list(templatesDir)) {
+            if (file.toString().endsWith(".html")) {
+                String name = relative(templatesDir, file);
+                String rewritten = rewriteTemplate(name, Files.readString(file, StandardCharsets.UTF_8));
+                Path target = outputDir.resolve("templates").resolve(name);
+                Files.createDirectories(target.getParent());
+                Files.writeString(target, rewritten, StandardCharsets.UTF_8);
+                templates++;
+            }
+        }
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(outputDir.resolve(ManifestResourceResolver.MANIFEST).toFile(), manifest);
+
+        System.out.println("📦 Asset pipeline: " + manifest.size() + " assets from " + templates + " templates, "
+                + originalBytes / 1024 + " KB -> " + minifiedBytes / 1024 + " KB minified"
+                + (brotli ? "" : " (brotli unavailable on this platform, gzip only)"));
+    }
+
+    // ========================================
+    // TEMPLATES
+    // ========================================
+
+    String rewriteTemplate(String name, String html) throws IOException {
+        String baseName = name.substring(0, name.length() - ".html".length()).replace('/', '-');
+        Matcher matcher = INLINE_BLOCK.matcher(html);
+        StringBuilder out = new StringBuilder(html.length());
+        int counter = 0;
+
+        while (matcher.find()) {
+            String tag = matcher.group(1).toLowerCase();
+            String attributes = matcher.group(2) == null ? "" : matcher.group(2).trim();
+            String body = matcher.group(3);
+            String replacement = matcher.group();
+
+            if (isPlain(tag, attributes) && !body.isBlank()) {
+                boolean script = tag.equals("script");
+                String minified = script ? AssetMinifier.js(body) : AssetMinifier.css(body);
+                if (minified.length() >= EXTRACT_THRESHOLD) {
+                    counter++;
+                    String logical = (script ? "js/" : "css/") + baseName + "-" + counter + (script ? ".js" : ".css");
+                    String path = writeAsset(logical, minified, body.length());
+                    replacement = script
+                            ? "<script th:src=\"@{/assets/" + path + "}\"></script>"
+                            : "<link rel=\"stylesheet\" th:href=\"@{/assets/" + path + "}\">";
+                } else {
+                    replacement = "<" + tag + (attributes.isEmpty() ? "" : " " + attributes) + ">"
+                            + minified + "</" + tag + ">";
+                }
+            }
+            matcher.appendReplacement(out, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(out);
+
+        // Point existing references such as @{/css/style.css} at the fingerprinted copies
+        String rewritten = out.toString();
+        for (Map.Entry<String, String> asset : fingerprinted.entrySet()) {
+            rewritten = rewritten.replace("@{/" + asset.getKey() + "}", "@{/assets/" + asset.getValue() + "}");
+        }
+        return rewritten;
+    }
+
+    // Only blocks without th:*, src or non-JS/CSS types are safe to move out of the page
+    private static boolean isPlain(String tag, String attributes) {
+        if (attributes.isEmpty()) {
+            return true;
+        }
+        String lower = attributes.toLowerCase();
+        if (lower.contains("th:") || lower.contains("src=") || lower.contains("data-th")) {
+            return false;
+        }
+        return tag.equals("script")
+                ? lower.matches("type\\s*=\\s*[\"']text/javascript[\"']")
+                : lower.matches("type\\s*=\\s*[\"']text/css[\"']");
+    }
+
+    // ========================================
+    // ASSETS
+    // ========================================
+
+    // Writes name.<hash>.ext plus .gz/.br variants; returns the path relative to /assets/
+    private String writeAsset(String logical, String content, int originalLength) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        int dot = logical.lastIndexOf('.');
+        String path = logical.substring(0, dot) + "." + hash(bytes) + logical.substring(dot);
+        Path target = outputDir.resolve(ASSETS_DIR).resolve(path);
+        Files.createDirectories(target.getParent());
+        Files.write(target, bytes);
+
+        Map<String, Integer> encodings = new LinkedHashMap<>();
+        if (brotli) {
+            byte[] br = Encoder.compress(bytes, new Encoder.Parameters().setQuality(11));
+            if (bytes.length - br.length >= MIN_COMPRESSION_SAVING) {
+                Files.write(target.resolveSibling(target.getFileName() + ".br"), br);
+                encodings.put("br", br.length);
+            }
+        }
+        byte[] gz = gzip(bytes);
+        if (bytes.length - gz.length >= MIN_COMPRESSION_SAVING) {
+            Files.write(target.resolveSibling(target.getFileName() + ".gz"), gz);
+            encodings.put("gzip", gz.length);
+        }
+
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("path", path);
+        entry.put("size", bytes.length);
+        entry.put("encodings", encodings);
+        manifest.put(logical, entry);
+        originalBytes += originalLength;
+        minifiedBytes += bytes.length;
+        return path;
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static boolean brotliAvailable() {
+        try {
+            Brotli4jLoader.ensureAvailability();
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    // ========================================
+    // FILES
+    // ========================================
+
+    private static List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return new ArrayList<>(files.filter(Files::isRegularFile).sorted().toList());
+        }
+    }
+
+    private static String relative(Path base, Path file) {
+        return base.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
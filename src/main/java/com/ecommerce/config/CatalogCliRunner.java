@@ -0,0 +1,92 @@
+package com.ecommerce.config;
+
+import com.ecommerce.service.CatalogTransferService;
+import com.ecommerce.service.CatalogTransferService.Format;
+import com.ecommerce.service.CatalogTransferService.ImportJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Command-line catalog import/export, for feeds too large to push through the admin API:
+ * <pre>
+ * java -jar app.jar --spring.main.web-application-type=none --catalog.import=feed.csv.gz
+ * java -jar app.jar --spring.main.web-application-type=none --catalog.export=products.jsonl
+ * </pre>
+ * The format comes from the file extension (.csv / .jsonl / .ndjson, optionally .gz) unless
+ * --catalog.format is given. Exits when done: 0 on success, 1 if the import failed.
+ */
+@Component
+@ConditionalOnExpression("'${catalog.import:}' != '' or '${catalog.export:}' != ''")
+public class CatalogCliRunner implements ApplicationRunner {
+
+    @Autowired
+    private CatalogTransferService catalogTransferService;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${catalog.import:}")
+    private String importFile;
+
+    @Value("${catalog.export:}")
+    private String exportFile;
+
+    @Value("${catalog.format:}")
+    private String format;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        int exitCode = 0;
+        if (!importFile.isBlank()) {
+            Path path = Path.of(importFile);
+            try (InputStream in = open(path)) {
+                ImportJob job = catalogTransferService.importProducts(in, formatOf(path));
+                job.getErrors().forEach(error ->
+                        System.err.println("⚠️ Row " + error.row() + (error.sku() != null ? " (" + error.sku() + ")" : "")
+                                + ": " + error.message()));
+                if (job.getStatus() != ImportJob.Status.COMPLETED) {
+                    exitCode = 1;
+                }
+            }
+        }
+        if (!exportFile.isBlank()) {
+            Path path = Path.of(exportFile);
+            try (OutputStream out = create(path)) {
+                long rows = catalogTransferService.exportProducts(out, formatOf(path));
+                System.out.println("✅ Exported " + rows + " products to " + path);
+            }
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+
+    private Format formatOf(Path path) {
+        String name = path.getFileName().toString().replaceFirst("\\.gz$", "");
+        return Format.of(format.isBlank() ? name.substring(name.lastIndexOf('.') + 1) : format, null);
+    }
+
+    private static InputStream open(Path path) throws Exception {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), 64 * 1024);
+        return path.toString().endsWith(".gz") ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    private static OutputStream create(Path path) throws Exception {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024);
+        return path.toString().endsWith(".gz") ? new GZIPOutputStream(out, 64 * 1024) : out;
+    }
+}
@@ -0,0 +1,204 @@
+package com.ecommerce.config;
+
+import com.ecommerce.exception.GlobalExceptionHandler.ErrorResponse;
+import com.ecommerce.util.AdaptiveConcurrencyLimiter;
+import com.ecommerce.util.AdaptiveConcurrencyLimiter.Priority;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load shedding for checkout. The configured routes share one {@link AdaptiveConcurrencyLimiter};
+ * a request that finds no free slot for its priority gets 503 with Retry-After straight away,
+ * instead of waiting on a Tomcat thread for a database that is already behind. Requests that do
+ * get in finish at normal speed, so completed checkouts per second hold up under overload.
+ *
+ * Routes come from app.concurrency-limit.routes.&lt;name&gt;.{method,paths,priority}. Only CRITICAL and
+ * NORMAL latencies of requests that did not fail (no exception, status below 500) steer the limit;
+ * LOW (back-office reads) just takes slots. Runs after the
+ * Spring Security chain, so unauthenticated requests never hold a slot.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    /** Binding target for one app.concurrency-limit.routes.&lt;name&gt; entry. */
+    public static class RouteProperties {
+
+        private String method;
+        private List<String> paths = new ArrayList<>();
+        private Priority priority = Priority.NORMAL;
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public void setPriority(Priority priority) {
+            this.priority = priority;
+        }
+    }
+
+    private record Route(String name, String method, List<String> paths, Priority priority) {
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<Priority, Counter> rejections = new EnumMap<>(Priority.class);
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper,
+                                  Environment environment,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+                                  @Value("${app.concurrency-limit.min-limit:4}") int minLimit,
+                                  @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+                                  @Value("${app.concurrency-limit.normal-share:0.8}") double normalShare,
+                                  @Value("${app.concurrency-limit.low-share:0.5}") double lowShare,
+                                  @Value("${app.concurrency-limit.window-ms:100}") long windowMs,
+                                  @Value("${app.concurrency-limit.window-min-samples:10}") int windowMinSamples) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.limiter = new AdaptiveConcurrencyLimiter("checkout", initialLimit, minLimit, maxLimit,
+                normalShare, lowShare, windowMs, windowMinSamples);
+
+        Map<String, RouteProperties> configured = Binder.get(environment)
+                .bind("app.concurrency-limit.routes", Bindable.mapOf(String.class, RouteProperties.class))
+                .orElse(Map.of());
+        configured.forEach((name, properties) -> {
+            if (properties.getPaths().isEmpty()) {
+                throw new IllegalArgumentException("app.concurrency-limit.routes." + name + ".paths is required");
+            }
+            routes.add(new Route(name,
+                    properties.getMethod() != null ? properties.getMethod().trim().toUpperCase() : null,
+                    properties.getPaths().stream().map(String::trim).toList(),
+                    properties.getPriority()));
+        });
+
+        for (Priority priority : Priority.values()) {
+            rejections.put(priority, Counter.builder("ecommerce.concurrency.rejected")
+                    .description("Requests shed with 503 by the adaptive concurrency limit")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("ecommerce.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit for checkout")
+                .register(meterRegistry);
+        Gauge.builder("ecommerce.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Checkout requests holding a concurrency slot")
+                .register(meterRegistry);
+
+        if (enabled && !routes.isEmpty()) {
+            log.info("Adaptive concurrency limit {} ({}-{}) for {}", limiter.getLimit(), minLimit, maxLimit,
+                    routes.stream().map(Route::name).toList());
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || route(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        Route route = route(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!limiter.tryAcquire(route.priority())) {
+            rejections.get(route.priority()).increment();
+            reject(response);
+            return;
+        }
+        long started = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            // Failures are often fast (pool timeouts aside) and would read as spare capacity, so
+            // only requests that completed without a 5xx steer the limit
+            boolean sample = completed && route.priority() != Priority.LOW && response.getStatus() < 500;
+            limiter.release(sample ? System.nanoTime() - started : -1);
+        }
+    }
+
+    private Route route(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (route.method() == null || route.method().equals(request.getMethod())) {
+                for (String pattern : route.paths()) {
+                    if (pathMatcher.match(pattern, path)) {
+                        return route;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Too busy to take this request right now, please retry in a moment",
+                LocalDateTime.now()));
+    }
+}
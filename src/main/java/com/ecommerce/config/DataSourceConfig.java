@@ -0,0 +1,278 @@
+package com.ecommerce.config;
+
+import com.ecommerce.util.ConnectionLimitingDataSource;
+import com.ecommerce.util.ReplicaRoutingDataSource;
+import com.ecommerce.util.ReplicaRoutingDataSource.Replica;
+import com.ecommerce.util.ReplicaRoutingDataSource.Selection;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import com.ecommerce.util.WorkloadRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Replaces Boot's single-pool DataSource when workload pools or read replicas are switched on.
+ * <ul>
+ *   <li>app.datasource.workload-pools.enabled: one primary pool per {@link WorkloadClass}, picked with
+ *       {@link Workload}. Every pool starts from spring.datasource.hikari.* and is then overridden by
+ *       app.datasource.pools.&lt;workload&gt;.* (any Hikari property, e.g. maximum-pool-size,
+ *       connection-timeout, connection-init-sql). Metrics are tagged pool=&lt;workload&gt;.</li>
+ *   <li>app.datasource.replica-urls: {@link com.ecommerce.util.ReadFromReplica @ReadFromReplica} reads go to replicas,
+ *       routed by {@link ReplicaRoutingDataSource}.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnExpression("${app.datasource.workload-pools.enabled:false} or !'${app.datasource.replica-urls:}'.trim().isEmpty()")
+public class DataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    @Value("${app.datasource.workload-pools.enabled:false}")
+    private boolean workloadPools;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${app.db.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs;
+
+    @Value("${app.datasource.replica-urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${app.datasource.replica-username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replica-password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${app.datasource.replica-pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${app.datasource.replica-connection-timeout-ms:1000}")
+    private long replicaConnectionTimeoutMs;
+
+    @Value("${app.datasource.replica-selection:round-robin}")
+    private String selection;
+
+    @Value("${app.datasource.replica-max-lag-ms:1000}")
+    private long maxLagMs;
+
+    @Value("${app.datasource.replica-lag-query:SELECT 0}")
+    private String lagQuery;
+
+    @Value("${app.datasource.read-your-writes-ms:5000}")
+    private long readYourWritesMs;
+
+    private Closeable pools;
+    private ReplicaRoutingDataSource replicaRouting;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory poolMetrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        Binder binder = Binder.get(environment);
+
+        DataSource primary;
+        if (workloadPools) {
+            Map<WorkloadClass, DataSource> byWorkload = new EnumMap<>(WorkloadClass.class);
+            StringBuilder sizes = new StringBuilder();
+            int total = 0;
+            for (WorkloadClass workload : WorkloadClass.values()) {
+                HikariDataSource pool = primaryPool(properties, binder, poolMetrics, workload.poolName());
+                binder.bind("app.datasource.pools." + workload.poolName(), Bindable.ofInstance(pool));
+                byWorkload.put(workload, limitForVirtualThreads(pool, meterRegistry));
+                sizes.append(sizes.isEmpty() ? "" : ", ").append(workload.poolName()).append('=').append(pool.getMaximumPoolSize());
+                total += pool.getMaximumPoolSize();
+            }
+            WorkloadRoutingDataSource routing = new WorkloadRoutingDataSource(byWorkload);
+            pools = routing;
+            primary = routing;
+            log.info("Workload connection pools: {} ({} connections per node)", sizes, total);
+        } else {
+            HikariDataSource pool = primaryPool(properties, binder, poolMetrics, "primary");
+            pools = pool;
+            primary = pool;
+        }
+
+        List<Replica> replicas = replicaPools(properties, poolMetrics);
+        if (replicas.isEmpty()) {
+            return new LazyConnectionDataSourceProxy(primary);
+        }
+        replicaRouting = new ReplicaRoutingDataSource(primary, replicas,
+                Selection.valueOf(selection.trim().toUpperCase(Locale.ROOT).replace('-', '_')),
+                maxLagMs, readYourWritesMs, lagQuery, DataSourceConfig::currentUser, meterRegistry);
+        replicaRouting.checkReplicas();
+        log.info("Read replicas: {} ({}, max lag {} ms)", replicas.size(), selection, maxLagMs);
+        return new LazyConnectionDataSourceProxy(replicaRouting);
+    }
+
+    private static HikariDataSource primaryPool(DataSourceProperties properties, Binder binder,
+                                                MicrometerMetricsTrackerFactory poolMetrics, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(poolMetrics);
+        return pool;
+    }
+
+    // VirtualThreadConfig's single semaphore would put every workload back in one queue, so limit per pool
+    private DataSource limitForVirtualThreads(HikariDataSource pool, MeterRegistry meterRegistry) {
+        if (!virtualThreads) {
+            return pool;
+        }
+        ConnectionLimitingDataSource limited =
+                new ConnectionLimitingDataSource(pool, pool.getMaximumPoolSize(), acquireTimeoutMs);
+        Gauge.builder("ecommerce.db.connection-permits.available", limited,
+                        ConnectionLimitingDataSource::getAvailablePermits)
+                .tag("pool", pool.getPoolName())
+                .register(meterRegistry);
+        return limited;
+    }
+
+    private List<Replica> replicaPools(DataSourceProperties properties, MicrometerMetricsTrackerFactory poolMetrics) {
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (replicas.size() + 1));
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(replicaUsername);
+            pool.setPassword(replicaPassword);
+            pool.setDriverClassName(properties.getDriverClassName());
+            pool.setMaximumPoolSize(replicaPoolSize);
+            pool.setReadOnly(true);
+            // Fail over to the primary quickly instead of queueing behind a dead replica
+            pool.setConnectionTimeout(replicaConnectionTimeoutMs);
+            // A replica that is down at startup must not stop the application from starting
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(poolMetrics);
+            replicas.add(new Replica(pool.getPoolName(), pool));
+        }
+        return replicas;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica-check-interval-ms:1000}")
+    public void checkReplicas() {
+        if (replicaRouting != null) {
+            replicaRouting.checkReplicas();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        if (replicaRouting != null) {
+            // Closes the primary pools too
+            replicaRouting.close();
+        } else if (pools != null) {
+            pools.close();
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * Spring's default makes Hibernate hold one JDBC connection for the whole session, which with
+     * open-in-view is the whole request - the pool picked by the first query would then serve every
+     * later transaction, including writes after a replica read. Without connection preparation
+     * Hibernate releases it after every transaction instead.
+     */
+    @Bean
+    public static BeanPostProcessor perTransactionConnectionPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HibernateJpaVendorAdapter adapter) {
+                    adapter.setPrepareConnection(false);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ReadFromReplicaAspect readFromReplicaAspect() {
+        return new ReadFromReplicaAspect();
+    }
+
+    @Bean
+    public WorkloadAspect workloadAspect() {
+        return new WorkloadAspect();
+    }
+
+    @Aspect
+    static class ReadFromReplicaAspect {
+
+        @Around("@annotation(com.ecommerce.util.ReadFromReplica) || @within(com.ecommerce.util.ReadFromReplica)")
+        public Object inReplicaScope(ProceedingJoinPoint joinPoint) throws Throwable {
+            boolean previous = ReplicaRoutingDataSource.enterReplicaScope();
+            try {
+                return joinPoint.proceed();
+            } finally {
+                ReplicaRoutingDataSource.exitReplicaScope(previous);
+            }
+        }
+    }
+
+    @Aspect
+    static class WorkloadAspect {
+
+        // Method annotations take precedence over the class's
+        @Around("@annotation(workload)")
+        public Object onMethod(ProceedingJoinPoint joinPoint, Workload workload) throws Throwable {
+            return inWorkload(joinPoint, workload.value());
+        }
+
+        @Around("@within(workload) && !@annotation(com.ecommerce.util.Workload)")
+        public Object onClass(ProceedingJoinPoint joinPoint, Workload workload) throws Throwable {
+            return inWorkload(joinPoint, workload.value());
+        }
+
+        private static Object inWorkload(ProceedingJoinPoint joinPoint, WorkloadClass workload) throws Throwable {
+            WorkloadClass previous = WorkloadRoutingDataSource.enter(workload);
+            try {
+                return joinPoint.proceed();
+            } finally {
+                WorkloadRoutingDataSource.exit(previous);
+            }
+        }
+    }
+}
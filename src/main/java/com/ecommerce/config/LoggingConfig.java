@@ -0,0 +1,39 @@
+package com.ecommerce.config;
+
+import org.slf4j.MDC;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+
+@Configuration
+public class LoggingConfig {
+
+    // Picked up by Boot's applicationTaskExecutor so @Async work (emails) logs with the caller's correlation id
+    @Bean
+    public TaskDecorator mdcTaskDecorator() {
+        return LoggingConfig::withMdc;
+    }
+
+    public static Runnable withMdc(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            if (context != null) {
+                MDC.setContextMap(context);
+            } else {
+                MDC.clear();
+            }
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    MDC.setContextMap(previous);
+                } else {
+                    MDC.clear();
+                }
+            }
+        };
+    }
+}
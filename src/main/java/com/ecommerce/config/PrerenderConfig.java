@@ -0,0 +1,22 @@
+package com.ecommerce.config;
+
+import com.ecommerce.webcontroller.PrerenderedPages;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts {@link PrerenderedPages} in front of the web page controller.
+ */
+@Configuration
+public class PrerenderConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private PrerenderedPages prerenderedPages;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(prerenderedPages).addPathPatterns("/", "/web/**");
+    }
+}
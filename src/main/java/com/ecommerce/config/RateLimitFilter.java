@@ -0,0 +1,237 @@
+package com.ecommerce.config;
+
+import com.ecommerce.exception.GlobalExceptionHandler.ErrorResponse;
+import com.ecommerce.service.JwtService;
+import com.ecommerce.service.RateLimiter;
+import com.ecommerce.service.RateLimiter.Limit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throttles the endpoints that are cheap to call and expensive to serve (bcrypt on login and
+ * register, SMTP on the contact form, pricing queries on calculate). Runs ahead of the Spring
+ * Security chain so a rejected request costs no authentication work.
+ *
+ * Routes come from app.rate-limit.routes.&lt;name&gt;.{method,path,per-ip,per-user}; each limit is
+ * "capacity/period" (e.g. 20/1m). per-user applies to requests carrying a valid bearer token and
+ * is keyed by its subject. Over the limit the caller gets 429 with Retry-After in seconds.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    /** Binding target for one app.rate-limit.routes.&lt;name&gt; entry. */
+    public static class RouteProperties {
+
+        private String method;
+        private String path;
+        private String perIp;
+        private String perUser;
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getPerIp() {
+            return perIp;
+        }
+
+        public void setPerIp(String perIp) {
+            this.perIp = perIp;
+        }
+
+        public String getPerUser() {
+            return perUser;
+        }
+
+        public void setPerUser(String perUser) {
+            this.perUser = perUser;
+        }
+    }
+
+    private record Route(String name, String method, String path, Limit perIp, Limit perUser,
+                         Counter ipRejections, Counter userRejections) {
+    }
+
+    private final RateLimiter rateLimiter;
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<Route> routes = new ArrayList<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    public RateLimitFilter(RateLimiter rateLimiter,
+                           JwtService jwtService,
+                           ObjectMapper objectMapper,
+                           Environment environment,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.rate-limit.enabled:true}") boolean enabled) {
+        this.rateLimiter = rateLimiter;
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+
+        Map<String, RouteProperties> configured = Binder.get(environment)
+                .bind("app.rate-limit.routes", Bindable.mapOf(String.class, RouteProperties.class))
+                .orElse(Map.of());
+        configured.forEach((name, properties) -> {
+            if (properties.getPath() == null) {
+                throw new IllegalArgumentException("app.rate-limit.routes." + name + ".path is required");
+            }
+            Limit perIp = limit(properties.getPerIp());
+            Limit perUser = limit(properties.getPerUser());
+            routes.add(new Route(name,
+                    properties.getMethod() != null ? properties.getMethod().trim().toUpperCase() : null,
+                    properties.getPath().trim(),
+                    perIp,
+                    perUser,
+                    perIp != null ? rejections(meterRegistry, name, "ip") : null,
+                    perUser != null ? rejections(meterRegistry, name, "user") : null));
+        });
+
+        if (enabled && !routes.isEmpty()) {
+            StringBuilder summary = new StringBuilder();
+            for (Route route : routes) {
+                summary.append(summary.isEmpty() ? "" : ", ").append(route.path());
+                if (route.perIp() != null) {
+                    summary.append(" ip=").append(route.perIp());
+                }
+                if (route.perUser() != null) {
+                    summary.append(" user=").append(route.perUser());
+                }
+            }
+            log.info("Rate limits: {}", summary);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || route(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        Route route = route(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Behind a proxy set server.forward-headers-strategy so this is the client, not the proxy
+        if (route.perIp() != null) {
+            long waitMs = rateLimiter.tryAcquire(route.name() + ":ip:" + request.getRemoteAddr(), route.perIp());
+            if (waitMs > 0) {
+                route.ipRejections().increment();
+                reject(response, waitMs);
+                return;
+            }
+        }
+        if (route.perUser() != null) {
+            String user = bearerSubject(request);
+            if (user != null) {
+                long waitMs = rateLimiter.tryAcquire(route.name() + ":user:" + user, route.perUser());
+                if (waitMs > 0) {
+                    route.userRejections().increment();
+                    reject(response, waitMs);
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Route route(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if ((route.method() == null || route.method().equals(request.getMethod()))
+                    && pathMatcher.match(route.path(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // Invalid or expired tokens fall back to the per-IP limit; the security chain rejects them later
+    private String bearerSubject(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtService.extractUsername(authHeader.substring(7));
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitMs) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitMs + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too many requests, please retry in " + retryAfterSeconds + " s",
+                LocalDateTime.now()));
+    }
+
+    private static Limit limit(String value) {
+        return value == null || value.isBlank() ? null : Limit.parse(value);
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String route, String scope) {
+        return Counter.builder("ecommerce.ratelimit.rejected")
+                .description("Requests answered 429 by the rate limiter")
+                .tag("route", route)
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
@@ -1,7 +1,9 @@
 package com.ecommerce.config;
 
 import com.ecommerce.service.JwtService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -14,6 +16,9 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -41,13 +46,26 @@ public class SecurityConfig {
 
     
     @Bean 
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(
+            HttpSecurity http,
+            @Value("${server.port:8080}") int serverPort,
+            @Value("${management.server.port:-1}") int managementPort) throws Exception {
+        // Prometheus scrapes without credentials, so only on a separate, internal management port
+        boolean separateManagementPort = managementPort > 0 && managementPort != serverPort;
+        RequestMatcher scrapeOnManagementPort = new AndRequestMatcher(
+                request -> separateManagementPort && request.getLocalPort() == managementPort,
+                AntPathRequestMatcher.antMatcher("/actuator/prometheus"));
+        
         http
             .csrf(AbstractHttpConfigurer::disable)
             .cors(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses (order exports) finish in an async dispatch that carries no JWT;
+                // the request itself was authorized on the way in
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // Public web pages and static resources
-                .requestMatchers("/", "/web/**", "/css/**", "/js/**", "/images/**", "/static/**").permitAll()
+                .requestMatchers("/", "/web/**", "/css/**", "/js/**", "/images/**", "/static/**", "/assets/**").permitAll()
                 
                 // PostGred Console (development only)
                 .requestMatchers("/api/auth/**").permitAll()
@@ -59,6 +77,10 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.GET, "/api/admin/shipping").permitAll()
                 .requestMatchers("/api/payment/stripe-publishable-key").permitAll()
                 
+                // Health checks; the metrics scrape is open on the management port only
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers(scrapeOnManagementPort).permitAll()
+                
                 // Authenticated API endpoints (user must be logged in)
                 .requestMatchers("/api/payment/**").authenticated()
                 .requestMatchers("/api/orders/**").authenticated()
@@ -66,6 +88,7 @@ public class SecurityConfig {
                 
                 // Admin only endpoints
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/loggers/**", "/actuator/prometheus").hasRole("ADMIN")
                 
                 // All other requests require authentication
                 .anyRequest().authenticated()
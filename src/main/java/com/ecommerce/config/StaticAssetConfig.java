@@ -0,0 +1,52 @@
+package com.ecommerce.config;
+
+import com.ecommerce.util.ManifestResourceResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the fingerprinted, pre-compressed files produced by AssetPipeline at build time.
+ * Their names change whenever their content does, so they are cached as immutable for a year.
+ * Everything else under static/ keeps Spring Boot's default handling.
+ */
+@Configuration
+public class StaticAssetConfig implements WebMvcConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(StaticAssetConfig.class);
+
+    private static final String ASSETS_LOCATION = "static/assets/";
+
+    @Value("${app.assets.max-age-days:365}")
+    private long maxAgeDays;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        Resource assetsDir = new ClassPathResource(ASSETS_LOCATION);
+        ManifestResourceResolver resolver;
+        try {
+            resolver = ManifestResourceResolver.load(new ClassPathResource(ManifestResourceResolver.MANIFEST), assetsDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + ManifestResourceResolver.MANIFEST, e);
+        }
+        if (resolver.size() == 0) {
+            log.warn("No {} on the classpath - pages use unbundled assets", ManifestResourceResolver.MANIFEST);
+        }
+
+        registry.addResourceHandler("/assets/**")
+                .addResourceLocations(assetsDir)
+                .setCacheControl(CacheControl.maxAge(maxAgeDays, TimeUnit.DAYS).cachePublic().immutable())
+                // The manifest lookup is already O(1); no caching resolver needed in front of it
+                .resourceChain(false)
+                .addResolver(resolver);
+    }
+}
@@ -1,5 +1,99 @@
 package com.ecommerce.config;
 
+import com.ecommerce.util.StripeHttpClient;
+import com.stripe.Stripe;
+import com.stripe.StripeClient;
+import com.stripe.net.LiveStripeResponseGetter;
+import com.stripe.net.StripeResponseGetterOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+
+@Configuration
 public class StripeConfig {
 
+    @Value("${stripe.secret.key}")
+    private String stripeSecretKey;
+
+    // Empty means the real Stripe API; tests and load runs point this at a local stub
+    @Value("${stripe.api-base:}")
+    private String apiBase;
+
+    @Value("${stripe.gateway.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${stripe.gateway.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    @Value("${stripe.gateway.max-network-retries:1}")
+    private int maxNetworkRetries;
+
+    @Value("${stripe.gateway.max-concurrent:16}")
+    private int maxConcurrent;
+
+    // One client for the whole app instead of the global static Stripe.apiKey
+    @Bean
+    public StripeClient stripeClient() {
+        // Stripe gets its own connection pool, sized to the bulkhead, rather than the
+        // JVM-wide HttpURLConnection keep-alive cache every other HTTP caller shares
+        StripeHttpClient httpClient = new StripeHttpClient(maxConcurrent, connectTimeoutMs, readTimeoutMs);
+        return new StripeClient(new LiveStripeResponseGetter(new Options(), httpClient));
+    }
+
+    // What StripeClient.builder() would produce; the builder has no way to pass an HttpClient
+    private class Options extends StripeResponseGetterOptions {
+
+        @Override
+        public String getApiKey() {
+            return stripeSecretKey;
+        }
+
+        @Override
+        public String getClientId() {
+            return null;
+        }
+
+        @Override
+        public int getConnectTimeout() {
+            return connectTimeoutMs;
+        }
+
+        @Override
+        public Proxy getConnectionProxy() {
+            return null;
+        }
+
+        @Override
+        public int getMaxNetworkRetries() {
+            return maxNetworkRetries;
+        }
+
+        @Override
+        public PasswordAuthentication getProxyCredential() {
+            return null;
+        }
+
+        @Override
+        public String getApiBase() {
+            return apiBase != null && !apiBase.isBlank() ? apiBase : Stripe.LIVE_API_BASE;
+        }
+
+        @Override
+        public String getFilesBase() {
+            return Stripe.UPLOAD_API_BASE;
+        }
+
+        @Override
+        public String getConnectBase() {
+            return Stripe.CONNECT_API_BASE;
+        }
+
+        @Override
+        public int getReadTimeout() {
+            return readTimeoutMs;
+        }
+    }
 }
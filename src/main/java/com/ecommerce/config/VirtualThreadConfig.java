@@ -0,0 +1,55 @@
+package com.ecommerce.config;
+
+import com.ecommerce.util.ConnectionLimitingDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Extra wiring for the opt-in virtual-thread mode (spring.threads.virtual.enabled=true).
+ * Spring Boot itself moves Tomcat request handling, @Async and @Scheduled onto virtual
+ * threads; StripeGateway switches its bulkhead on the same flag. What is left is to
+ * stop an unbounded number of virtual threads from stampeding the JDBC pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    // static so the post-processor is registered before the DataSource is created
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // With workload pools DataSourceConfig limits each pool separately
+                boolean perPool = environment.getProperty("app.datasource.workload-pools.enabled", Boolean.class, false);
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource) && !perPool) {
+                    int maxConnections = environment.getProperty("app.db.max-concurrent-connections", Integer.class,
+                            environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                    long acquireTimeoutMs = environment.getProperty("app.db.acquire-timeout-ms", Long.class, 5000L);
+
+                    log.info("Virtual threads enabled - limiting '{}' to {} concurrent connections",
+                            beanName, maxConnections);
+                    ConnectionLimitingDataSource limited =
+                            new ConnectionLimitingDataSource(dataSource, maxConnections, acquireTimeoutMs);
+                    // Boot binds its registries to the global one; the MeterRegistry bean may not exist yet
+                    Gauge.builder("ecommerce.db.connection-permits.available", limited,
+                                    ConnectionLimitingDataSource::getAvailablePermits)
+                            .register(Metrics.globalRegistry);
+                    return limited;
+                }
+                return bean;
+            }
+        };
+    }
+}
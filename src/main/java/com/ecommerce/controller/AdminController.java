@@ -1,15 +1,22 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.BulkOrderStatusUpdate;
 import com.ecommerce.model.Order;
+import com.ecommerce.repository.ArchivedOrderRepository;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.UserRepository;
 import com.ecommerce.service.EmailService;
+import com.ecommerce.service.OrderBulkUpdateService;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.ShippingLabelService;
 import com.ecommerce.util.CarrierDetector;
+import com.ecommerce.util.ReadFromReplica;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +30,7 @@ import java.util.Map;
 @RequestMapping("/api/admin")
 @PreAuthorize("hasRole('ADMIN')")
 @CrossOrigin(origins = "*")
+@Workload(WorkloadClass.ADMIN)
 public class AdminController {
     
     private final OrderService orderService;
@@ -31,6 +39,8 @@ public class AdminController {
     private final ProductRepository productRepository;
     private final EmailService emailService;  // Changed to final
     private final ShippingLabelService shippingLabelService;  // Changed to final
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderBulkUpdateService orderBulkUpdateService;
     
     @Autowired
     public AdminController(OrderService orderService, 
@@ -38,13 +48,17 @@ public class AdminController {
                           UserRepository userRepository,
                           ProductRepository productRepository,
                           EmailService emailService,  // Added to constructor
-                          ShippingLabelService shippingLabelService) {  // Added to constructor
+                          ShippingLabelService shippingLabelService,  // Added to constructor
+                          ArchivedOrderRepository archivedOrderRepository,
+                          OrderBulkUpdateService orderBulkUpdateService) {
         this.orderService = orderService;
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.emailService = emailService;  // Initialize
         this.shippingLabelService = shippingLabelService;  // Initialize
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderBulkUpdateService = orderBulkUpdateService;
     }
     
     // ========================================
@@ -53,6 +67,7 @@ public class AdminController {
     
     // Get all returned orders
     @GetMapping("/returned-orders")
+    @ReadFromReplica
     public ResponseEntity<?> getReturnedOrders() {
         try {
             System.out.println("📦 Fetching returned orders for admin");
@@ -208,19 +223,37 @@ public class AdminController {
         return ResponseEntity.ok(order);
     }
     
+    // Many orders in one request, e.g. a whole pickup marked SHIPPED with its tracking numbers
+    @PatchMapping("/orders")
+    public ResponseEntity<Map<String, Object>> updateOrderStatuses(@RequestBody BulkOrderStatusUpdate request) {
+        OrderBulkUpdateService.Result result = orderBulkUpdateService.updateStatuses(request.getOrders());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("updated", result.updated().size());
+        response.put("notFound", result.notFound());
+        response.put("emailsQueued", result.emailsQueued());
+        if (result.error() != null) {
+            // Part of the request was applied; the body says which part
+            response.put("failed", result.failed());
+            response.put("error", result.error());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/stats")
+    @ReadFromReplica
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
         Map<String, Object> stats = new HashMap<>();
         
         try {
-            long totalOrders = orderRepository.count();
+            // Live and archived orders; sums run in the database instead of loading every order
+            long totalOrders = orderRepository.count() + archivedOrderRepository.count();
             long totalUsers = userRepository.count();
             long totalProducts = productRepository.count();
             
-            Double totalRevenue = orderRepository.findAll().stream()
-                    .filter(order -> order.getPaymentStatus() == Order.PaymentStatus.COMPLETED)
-                    .mapToDouble(Order::getTotalAmount)
-                    .sum();
+            Double totalRevenue = orderRepository.sumTotalAmountByPaymentStatus(Order.PaymentStatus.COMPLETED)
+                    + archivedOrderRepository.sumTotalAmountByPaymentStatus(Order.PaymentStatus.COMPLETED.name());
             
             stats.put("totalOrders", totalOrders);
             stats.put("totalUsers", totalUsers);
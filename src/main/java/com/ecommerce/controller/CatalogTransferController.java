@@ -0,0 +1,82 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.service.CatalogTransferService;
+import com.ecommerce.service.CatalogTransferService.Format;
+import com.ecommerce.service.CatalogTransferService.ImportJob;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Bulk catalog transfer (Admin only). The import body is the raw feed, not a multipart upload,
+ * so it is parsed while it arrives instead of being spooled to disk first:
+ * <pre>
+ * curl -H 'Content-Type: text/csv' -H 'Content-Encoding: gzip' --data-binary @feed.csv.gz .../api/admin/catalog/import
+ * </pre>
+ */
+@RestController
+@RequestMapping("/api/admin/catalog")
+public class CatalogTransferController {
+
+    @Autowired
+    private CatalogTransferService catalogTransferService;
+
+    // Runs the whole import within this request; progress is visible meanwhile under /imports
+    @PostMapping("/import")
+    public ResponseEntity<?> importCatalog(@RequestParam(value = "format", required = false) String format,
+                                           HttpServletRequest request) throws IOException {
+        Format feedFormat;
+        try {
+            feedFormat = Format.of(format, request.getContentType());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        InputStream in = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        try {
+            ImportJob job = catalogTransferService.importProducts(in, feedFormat);
+            return ResponseEntity.status(job.getStatus() == ImportJob.Status.FAILED ? 500 : 200).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/imports")
+    public List<ImportJob> getRecentImports() {
+        return catalogTransferService.getRecentImports();
+    }
+
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<ImportJob> getImport(@PathVariable String id) {
+        return catalogTransferService.getImport(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/export")
+    public void exportCatalog(@RequestParam(value = "format", defaultValue = "csv") String format,
+                              HttpServletResponse response) throws IOException {
+        Format feedFormat = Format.of(format, null);
+        response.setContentType(feedFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"products." + feedFormat.name().toLowerCase() + "\"");
+        catalogTransferService.exportProducts(response.getOutputStream(), feedFormat);
+    }
+}
@@ -3,22 +3,28 @@ package com.ecommerce.controller;
 import com.ecommerce.dto.OrderCalculation;
 import com.ecommerce.dto.OrderRequest;
 import com.ecommerce.model.Order;
-import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CheckoutQuoteService;
 import com.ecommerce.service.EmailService;
+import com.ecommerce.service.IdempotencyService;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.TaxService;
 import com.ecommerce.util.CarrierDetector;
+import com.ecommerce.util.LogSampler;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -30,6 +36,8 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class OrderController {
     
+    private static final Logger log = LoggerFactory.getLogger(OrderController.class);
+    
     @Autowired
     private OrderService orderService;
     
@@ -50,6 +58,18 @@ public class OrderController {
     
     @Autowired
     private CarrierDetector carrierDetector;  // ← ADD THIS LINE
+    
+    @Autowired
+    private CheckoutQuoteService checkoutQuoteService;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    private final LogSampler calculateLogSampler;
+    
+    public OrderController(@Value("${app.logging.sample-one-in:100}") int sampleOneIn) {
+        this.calculateLogSampler = new LogSampler(sampleOneIn);
+    }
 
     // ========================================
     // CALCULATE ORDER TOTALS
@@ -58,30 +78,20 @@ public class OrderController {
     @PostMapping("/calculate")
     public ResponseEntity<?> calculateOrder(@RequestBody OrderRequest request) {
         try {
-            System.out.println("🧮 Calculating order totals...");
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            OrderCalculation calculation = checkoutQuoteService.quote(request, authentication.getName());
             
-            double subtotal = 0.0;
-            for (OrderRequest.OrderItemDTO item : request.getItems()) {
-                Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + item.getProductId()));
-                subtotal += product.getPrice() * item.getQuantity();
+            // Called on every cart change, so only a sample is logged
+            if (calculateLogSampler.sample()) {
+                log.info("Calculated order totals: subtotal={} tax={} shipping={} total={} (1 in {} logged)",
+                        calculation.getSubtotal(), calculation.getTax(), calculation.getShipping(),
+                        calculation.getTotal(), calculateLogSampler.getOneIn());
             }
             
-            double shipping = taxService.calculateShipping(subtotal);
-            double taxRate = taxService.getTaxRate(request.getShippingState(), request.getShippingZipCode());
-            double tax = taxService.calculateTax(subtotal, request.getShippingState(), request.getShippingZipCode());
-            double total = subtotal + tax + shipping;
-            
-            System.out.println("   Subtotal: $" + subtotal);
-            System.out.println("   Tax: $" + tax);
-            System.out.println("   Shipping: $" + shipping);
-            System.out.println("   Total: $" + total);
-            
-            OrderCalculation calculation = new OrderCalculation(subtotal, tax, taxRate, shipping, total);
             return ResponseEntity.ok(calculation);
             
         } catch (Exception e) {
-            System.err.println("❌ Error calculating order: " + e.getMessage());
+            log.warn("Error calculating order: {}", e.getMessage());
             
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to calculate order: " + e.getMessage());
@@ -197,73 +207,59 @@ public class OrderController {
     // ========================================
     
     @PostMapping
-    @Transactional
-    public ResponseEntity<?> createOrder(@RequestBody OrderRequest request) {
+    @Workload(WorkloadClass.CHECKOUT)
+    public ResponseEntity<?> createOrder(
+            @RequestBody OrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        
+        String key = idempotencyKey != null && !idempotencyKey.isBlank() ? idempotencyKey : request.getPaymentId();
+        if (key == null || key.isBlank()) {
+            return placeOrder(request);
+        }
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User user = userRepository.findByEmail(authentication.getName())
+            .orElseThrow(() -> new RuntimeException("User not found: " + authentication.getName()));
+        
+        // Retries with the same key get the first response instead of a second order
+        return idempotencyService.execute(user.getId(), key, request, () -> placeOrder(request));
+    }
+    
+    private ResponseEntity<?> placeOrder(OrderRequest request) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String userEmail = authentication.getName();
             
-            System.out.println("========================================");
-            System.out.println("🛒 ORDER REQUEST RECEIVED");
-            System.out.println("User Email: " + userEmail);
-            System.out.println("Payment ID: " + request.getPaymentId());
-            System.out.println("Payment Method: " + request.getPaymentMethod());
-            System.out.println("Items count: " + (request.getItems() != null ? request.getItems().size() : 0));
-            System.out.println("Shipping: " + request.getShippingStreet() + ", " + request.getShippingCity() + ", " + request.getShippingState());
-            System.out.println("========================================");
+            log.debug("Order request: paymentId={} method={} items={} state={}",
+                    request.getPaymentId(), request.getPaymentMethod(),
+                    request.getItems() != null ? request.getItems().size() : 0, request.getShippingState());
             
             User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userEmail));
             
-            System.out.println("✅ User found: ID=" + user.getId() + ", Email=" + user.getEmail());
-            
             Order order = orderService.createOrder(request, user);
             
             // Force flush to database
             orderRepository.flush();
             
-            System.out.println("========================================");
-            System.out.println("✅ ORDER CREATED AND SAVED!");
-            System.out.println("   Order ID: " + order.getId());
-            System.out.println("   User ID: " + order.getUser().getId());
-            System.out.println("   Total Amount: $" + order.getTotalAmount());
-            System.out.println("   Items: " + order.getItems().size());
-            System.out.println("   Payment ID: " + order.getPaymentId());
-            System.out.println("========================================");
-            
-            // Verify it was saved by querying it back
-            Order verifyOrder = orderRepository.findById(order.getId()).orElse(null);
-            if (verifyOrder != null) {
-                System.out.println("✅ VERIFIED: Order exists in database with ID: " + verifyOrder.getId());
-            } else {
-                System.err.println("❌ WARNING: Order not found in database after save!");
-            }
-            
             // Send confirmation email (async)
             try {
                 emailService.sendOrderConfirmationEmail(order);
-                System.out.println("📧 Order confirmation email queued for: " + user.getEmail());
             } catch (Exception e) {
-                System.err.println("⚠️ Failed to queue confirmation email: " + e.getMessage());
+                log.warn("Failed to queue confirmation email for order {}: {}", order.getId(), e.getMessage());
             }
             
             // Send notification email to ADMIN
             try {
                 emailService.sendAdminOrderNotification(order);
-                System.out.println("📧 Admin notification email queued");
             } catch (Exception e) {
-                System.err.println("⚠️ Failed to queue admin email: " + e.getMessage());
+                log.warn("Failed to queue admin email for order {}: {}", order.getId(), e.getMessage());
             }
             
             return ResponseEntity.status(HttpStatus.CREATED).body(order);
             
         } catch (Exception e) {
-            System.err.println("========================================");
-            System.err.println("❌ ERROR CREATING ORDER");
-            System.err.println("   Message: " + e.getMessage());
-            System.err.println("   Type: " + e.getClass().getName());
-            System.err.println("========================================");
-            e.printStackTrace();
+            log.error("Order creation failed for payment {}", request.getPaymentId(), e);
             
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to create order: " + e.getMessage());
@@ -411,7 +407,7 @@ public class OrderController {
             User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
             
-            List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
+            List<Order> orders = orderService.getUserOrders(user);
             
             System.out.println("✅ Found " + orders.size() + " orders for user: " + userEmail);
             System.out.println("========================================");
@@ -441,8 +437,8 @@ public class OrderController {
             User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
             
-            Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+            // Includes archived orders
+            Order order = orderService.findOrder(id);
             
             if (!order.getUser().getId().equals(user.getId())) {
                 Map<String, String> error = new HashMap<>();
@@ -0,0 +1,120 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.model.Order.OrderStatus;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CatalogTransferService.Format;
+import com.ecommerce.service.OrderExportService;
+import com.ecommerce.service.OrderExportService.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Order exports: admins by date range and status, customers for their own history.
+ * The body is written by {@link OrderExportService} while rows come off the cursor; send
+ * Accept-Encoding: gzip (curl --compressed) to have it compressed on the way.
+ */
+@RestController
+public class OrderExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExportController.class);
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Admin only via the /api/admin/** rule; from and to are inclusive dates
+    @GetMapping("/api/admin/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "status", required = false) List<String> statuses,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // IllegalArgumentExceptions become 400s in GlobalExceptionHandler
+        Format exportFormat = Format.of(format, null);
+        Set<OrderStatus> statusFilter = EnumSet.noneOf(OrderStatus.class);
+        if (statuses != null) {
+            for (String status : statuses) {
+                try {
+                    statusFilter.add(OrderStatus.valueOf(status.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown order status: " + status);
+                }
+            }
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        Filter filter = new Filter(from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null, statusFilter, null);
+        log.info("Exporting orders {} .. {}{}", from != null ? from : "*", to != null ? to : "*",
+                statusFilter.isEmpty() ? "" : " " + statusFilter);
+        return stream(exportFormat, "orders", acceptEncoding,
+                out -> orderExportService.exportOrders(out, exportFormat, filter));
+    }
+
+    @GetMapping("/api/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportMyOrders(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Format exportFormat = Format.of(format, null);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User user = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = user.getId();
+        return stream(exportFormat, "my-orders", acceptEncoding,
+                out -> orderExportService.exportUserOrders(out, exportFormat, userId));
+    }
+
+    private interface Export {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    // The body runs on an async request thread after this method returns
+    private static ResponseEntity<StreamingResponseBody> stream(Format format, String fileName, String acceptEncoding,
+                                                                Export export) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + fileName + "." + format.name().toLowerCase(Locale.ROOT) + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024)) {
+                    export.writeTo(compressed);
+                }
+            } else {
+                export.writeTo(out);
+            }
+        });
+    }
+}
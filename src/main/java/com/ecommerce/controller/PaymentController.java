@@ -1,14 +1,17 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.model.User;
+import com.ecommerce.repository.PaymentMethodRepository;
 import com.ecommerce.repository.UserRepository;
-import com.stripe.Stripe;
+import com.ecommerce.exception.StripeUnavailableException;
+import com.ecommerce.service.StripeGateway;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Customer;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.PaymentMethod;
-import com.stripe.param.CustomerCreateParams;
 import com.stripe.param.PaymentIntentCreateParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
@@ -18,70 +21,43 @@ import org.springframework.web.bind.annotation.*;
 import java.security.Principal;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/payment")
 @CrossOrigin(origins = "*")
 public class PaymentController {
 
-    @Value("${stripe.secret.key}")
-    private String stripeSecretKey;
-    
+    private static final Logger log = LoggerFactory.getLogger(PaymentController.class);
+
     @Value("${stripe.publishable.key}")
     private String stripePublishableKey;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StripeGateway stripeGateway;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
     @PostMapping("/create-payment-intent")
     public ResponseEntity<Map<String, String>> createPaymentIntent(
             @RequestBody Map<String, Object> paymentInfo,
             Principal principal) {
         
         try {
-            Stripe.apiKey = stripeSecretKey;
-            
             Double amount = (Double) paymentInfo.get("amount");
             long amountInCents = (long) (amount * 100);
 
             User user = userRepository.findByEmail(principal.getName())
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            System.out.println("=== CREATING PAYMENT INTENT ===");
-            System.out.println("💳 User: " + user.getEmail());
-            System.out.println("Amount: $" + amount + " (" + amountInCents + " cents)");
-            System.out.println("Current Customer ID: " + user.getStripeCustomerId());
-
             // Create or get Stripe Customer
-            String customerId = user.getStripeCustomerId();
-            if (customerId == null || customerId.isEmpty()) {
-                System.out.println("🔧 Creating new Stripe Customer...");
-                
-                CustomerCreateParams customerParams = CustomerCreateParams.builder()
-                        .setEmail(user.getEmail())
-                        .setName(user.getName())
-                        .setDescription("Customer for " + user.getEmail())
-                        .build();
-                
-                Customer customer = Customer.create(customerParams);
-                customerId = customer.getId();
-                
-                System.out.println("✅ Stripe Customer created: " + customerId);
-                
-                // Save customer ID to database
-                user.setStripeCustomerId(customerId);
-                User savedUser = userRepository.save(user);
-                
-                System.out.println("✅ Customer ID saved to database");
-                System.out.println("Verified saved Customer ID: " + savedUser.getStripeCustomerId());
-                
-            } else {
-                System.out.println("✅ Using existing Stripe Customer: " + customerId);
-            }
+            String customerId = stripeGateway.ensureCustomer(user);
 
             // Create PaymentIntent WITH Customer
-            System.out.println("🔧 Creating PaymentIntent with Customer: " + customerId);
-            
             PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
                     .setAmount(amountInCents)
                     .setCurrency("usd")
@@ -90,14 +66,10 @@ public class PaymentController {
                     .setDescription("Order payment for " + user.getEmail())
                     .build();
 
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
+            PaymentIntent paymentIntent = stripeGateway.createPaymentIntent(params);
 
-            System.out.println("✅ PaymentIntent created successfully!");
-            System.out.println("PaymentIntent ID: " + paymentIntent.getId());
-            System.out.println("Client Secret: " + paymentIntent.getClientSecret().substring(0, 20) + "...");
-            System.out.println("Status: " + paymentIntent.getStatus());
-            System.out.println("Customer: " + paymentIntent.getCustomer());
-            System.out.println("=== PAYMENT INTENT CREATION COMPLETE ===");
+            log.info("PaymentIntent {} created for user {} customer {}: {} cents, status {}",
+                    paymentIntent.getId(), user.getId(), customerId, amountInCents, paymentIntent.getStatus());
 
             Map<String, String> response = new HashMap<>();
             response.put("clientSecret", paymentIntent.getClientSecret());
@@ -105,18 +77,22 @@ public class PaymentController {
 
             return ResponseEntity.ok(response);
             
+        } catch (StripeUnavailableException e) {
+            log.warn("Stripe unavailable while creating PaymentIntent: {}", e.getMessage());
+            
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(503).body(errorResponse);
+            
         } catch (StripeException e) {
-            System.err.println("❌ Stripe Exception: " + e.getMessage());
-            System.err.println("Stripe Error Code: " + e.getCode());
-            e.printStackTrace();
+            log.warn("Stripe rejected PaymentIntent creation: code={} message={}", e.getCode(), e.getMessage());
             
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(errorResponse);
             
         } catch (Exception e) {
-            System.err.println("❌ General Exception: " + e.getMessage());
-            e.printStackTrace();
+            log.error("PaymentIntent creation failed", e);
             
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage());
@@ -128,8 +104,6 @@ public class PaymentController {
     @GetMapping("/debug-customer")
     public ResponseEntity<?> debugCustomer(Principal principal) {
         try {
-            Stripe.apiKey = stripeSecretKey;
-            
             User user = userRepository.findByEmail(principal.getName())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
@@ -139,7 +113,7 @@ public class PaymentController {
             
             if (user.getStripeCustomerId() != null) {
                 try {
-                    Customer customer = Customer.retrieve(user.getStripeCustomerId());
+                    Customer customer = stripeGateway.retrieveCustomer(user.getStripeCustomerId());
                     debug.put("customerExists", true);
                     debug.put("customerEmail", customer.getEmail());
                     debug.put("customerName", customer.getName());
@@ -163,41 +137,16 @@ public class PaymentController {
     public ResponseEntity<Map<String, String>> createSetupIntent(Principal principal) {
         
         try {
-            Stripe.apiKey = stripeSecretKey;
-            
             User user = userRepository.findByEmail(principal.getName())
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
             System.out.println("🔧 Creating Setup Intent for: " + user.getEmail());
 
             // Create or get Stripe Customer
-            String customerId = user.getStripeCustomerId();
-            if (customerId == null || customerId.isEmpty()) {
-                System.out.println("🔧 Creating new Stripe Customer...");
-                
-                CustomerCreateParams customerParams = CustomerCreateParams.builder()
-                        .setEmail(user.getEmail())
-                        .setName(user.getName())
-                        .build();
-                
-                Customer customer = Customer.create(customerParams);
-                customerId = customer.getId();
-                
-                user.setStripeCustomerId(customerId);
-                userRepository.save(user);
-                
-                System.out.println("✅ Stripe Customer created: " + customerId);
-            } else {
-                System.out.println("✅ Using existing Stripe Customer: " + customerId);
-            }
+            String customerId = stripeGateway.ensureCustomer(user);
 
             // Create Setup Intent (for saving cards without payment)
-            com.stripe.param.SetupIntentCreateParams params = 
-                com.stripe.param.SetupIntentCreateParams.builder()
-                        .setCustomer(customerId)
-                        .build();
-
-            com.stripe.model.SetupIntent setupIntent = com.stripe.model.SetupIntent.create(params);
+            com.stripe.model.SetupIntent setupIntent = stripeGateway.createSetupIntent(customerId);
 
             System.out.println("✅ Setup Intent created: " + setupIntent.getId());
 
@@ -206,6 +155,13 @@ public class PaymentController {
 
             return ResponseEntity.ok(response);
             
+        } catch (StripeUnavailableException e) {
+            log.warn("Stripe unavailable: {}", e.getMessage());
+            
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(503).body(errorResponse);
+            
         } catch (StripeException e) {
             System.err.println("❌ Stripe Exception: " + e.getMessage());
             e.printStackTrace();
@@ -223,11 +179,24 @@ public class PaymentController {
             Principal principal) {
         
         try {
-            Stripe.apiKey = stripeSecretKey;
-            
             System.out.println("🔍 Retrieving payment method details: " + paymentMethodId);
             
-            PaymentMethod paymentMethod = PaymentMethod.retrieve(paymentMethodId);
+            // Saved cards are answered from our copy; only unknown cards go to Stripe
+            User user = userRepository.findByEmail(principal.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            Optional<com.ecommerce.model.PaymentMethod> saved = paymentMethodRepository
+                    .findByUserAndStripePaymentMethodId(user, paymentMethodId);
+            if (saved.isPresent() && saved.get().getMetadataSyncedAt() != null) {
+                com.ecommerce.model.PaymentMethod card = saved.get();
+                Map<String, String> details = new HashMap<>();
+                details.put("brand", card.getCardBrand());
+                details.put("last4", card.getCardLastFour());
+                details.put("expMonth", String.valueOf(card.getCardExpMonth()));
+                details.put("expYear", String.valueOf(card.getCardExpYear()));
+                return ResponseEntity.ok(details);
+            }
+            
+            PaymentMethod paymentMethod = stripeGateway.retrievePaymentMethod(paymentMethodId);
             
             Map<String, String> details = new HashMap<>();
             details.put("brand", paymentMethod.getCard().getBrand());
@@ -239,6 +208,13 @@ public class PaymentController {
             
             return ResponseEntity.ok(details);
             
+        } catch (StripeUnavailableException e) {
+            log.warn("Stripe unavailable: {}", e.getMessage());
+            
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(503).body(errorResponse);
+            
         } catch (StripeException e) {
             System.err.println("❌ Stripe Exception: " + e.getMessage());
             
@@ -2,13 +2,22 @@ package com.ecommerce.controller;
 
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CatalogVersionService;
+import com.ecommerce.service.ImageStorageService;
+import com.ecommerce.service.ImageVariantService;
+import com.ecommerce.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.Principal;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/products")
@@ -17,25 +26,74 @@ public class ProductController {
     @Autowired
     private ProductRepository productRepository;  // ADD THIS
 
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Value("${app.http.cache.catalog-max-age-seconds:0}")
+    private long catalogMaxAgeSeconds;
+
+    @Value("${app.datasource.replica-max-lag-ms:1000}")
+    private long replicaMaxLagMs;
+
     // Get all products
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productRepository.findAll();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest request) {
+        if (notModified(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(catalogCacheControl()).build();
+        }
+        List<Product> products = catalogJustChanged() ? productRepository.findAll() : productService.getAllProducts();
+        return ResponseEntity.ok().cacheControl(catalogCacheControl()).body(products);
     }
 
     // Get single product by ID - ADD THIS METHOD
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        Optional<Product> product = productRepository.findById(id);
-        return product.map(ResponseEntity::ok)
+    public ResponseEntity<Product> getProductById(@PathVariable Long id, WebRequest request) {
+        if (notModified(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(catalogCacheControl()).build();
+        }
+        Optional<Product> product = catalogJustChanged()
+                ? productRepository.findById(id)
+                : productService.findProductById(id);
+        return product.map(p -> ResponseEntity.ok().cacheControl(catalogCacheControl()).body(p))
                       .orElse(ResponseEntity.notFound().build());
     }
 
+    // Validators come from the version counters, so a 304 never touches the database.
+    // Also sets ETag and Last-Modified on the response when it is not a match.
+    private boolean notModified(WebRequest request) {
+        return request.checkNotModified(catalogVersionService.getCatalogETag(),
+                catalogVersionService.getCatalogLastModified());
+    }
+
+    // Right after a catalog change a replica may still return the old rows, which would then be
+    // cached under the new ETag until the next change. Read the primary until every replica
+    // still in rotation (lag within replica-max-lag-ms) must have caught up, the replica after that.
+    private boolean catalogJustChanged() {
+        return System.currentTimeMillis() - catalogVersionService.getCatalogLastModified() <= replicaMaxLagMs;
+    }
+
+    private CacheControl catalogCacheControl() {
+        return catalogMaxAgeSeconds > 0
+                ? CacheControl.maxAge(catalogMaxAgeSeconds, TimeUnit.SECONDS).cachePublic()
+                : CacheControl.noCache().cachePublic();
+    }
+
     // Add product (Admin only)
     @PostMapping
     public ResponseEntity<Product> addProduct(@RequestBody Product product, Principal principal) {
         Product savedProduct = productRepository.save(product);
+        catalogVersionService.bumpCatalogVersion();
+        // Resize an already-uploaded image now so the catalog pages never wait for it
+        String imageUrl = savedProduct.getImageUrl();
+        if (imageUrl != null && imageUrl.startsWith(ImageStorageService.URL_PREFIX)) {
+            imageVariantService.pregenerate(imageUrl.substring(ImageStorageService.URL_PREFIX.length()));
+        }
         return ResponseEntity.ok(savedProduct);
     }
 
@@ -58,6 +116,7 @@ public class ProductController {
             product.setImageUrl(productDetails.getImageUrl());
             
             Product updatedProduct = productRepository.save(product);
+            catalogVersionService.bumpCatalogVersion();
             return ResponseEntity.ok(updatedProduct);
         }
         
@@ -69,6 +128,7 @@ public class ProductController {
     public ResponseEntity<?> deleteProduct(@PathVariable Long id, Principal principal) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            catalogVersionService.bumpCatalogVersion();
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
@@ -0,0 +1,115 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CatalogVersionService;
+import com.ecommerce.service.ImageStorageService;
+import com.ecommerce.service.ImageStorageService.StoredImage;
+import com.ecommerce.service.ImageVariantService;
+import com.ecommerce.service.ImageVariantService.Variant;
+import com.ecommerce.util.FileResponseWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+public class ProductImageController {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImageController.class);
+
+    // Content-addressed names never change meaning, so clients may keep them for a year
+    private static final String IMMUTABLE = "max-age=31536000, public, immutable";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    // Upload or replace a product's image (Admin only)
+    @PostMapping("/api/admin/products/{id}/image")
+    public ResponseEntity<?> uploadImage(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
+        Optional<Product> productOpt = productRepository.findById(id);
+        if (productOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "File is empty"));
+        }
+
+        StoredImage image;
+        try (InputStream in = file.getInputStream()) {
+            image = imageStorageService.store(in);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            log.error("Error storing image for product {}", id, e);
+            return ResponseEntity.status(500).body(Map.of("error", "Could not store image"));
+        }
+
+        Product product = productOpt.get();
+        product.setImageUrl(image.url());
+        product.setImageHash(image.hash());
+        product.setImageContentType(image.contentType());
+        product.setImageSize(image.size());
+        product.setImageWidth(image.width());
+        product.setImageHeight(image.height());
+        Product saved = productRepository.save(product);
+        catalogVersionService.bumpCatalogVersion();
+        imageVariantService.pregenerate(image.fileName());
+        return ResponseEntity.ok(saved);
+    }
+
+    // Serve a stored image by content hash (public); ?w= picks a resized variant
+    @GetMapping(ImageStorageService.URL_PREFIX + "{fileName:.+}")
+    public void serveImage(@PathVariable String fileName,
+                           @RequestParam(value = "w", required = false) Integer width,
+                           HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        Optional<Path> path = imageStorageService.resolve(fileName);
+        if (path.isEmpty()) {
+            // Plain status rather than sendError: the /error dispatch is not a public path
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String hash = ImageStorageService.hashOf(fileName);
+
+        if (width != null && width > 0) {
+            int bucket = imageVariantService.bucketFor(width);
+            Optional<Variant> variant = imageVariantService.variant(fileName, bucket);
+            if (variant.isPresent()) {
+                FileResponseWriter.write(variant.get().path(), variant.get().contentType(),
+                        "\"" + hash + "-" + bucket + "\"", IMMUTABLE, request, response);
+                return;
+            }
+            // No variant (yet): the original is correct too, but must not be cached as the final answer
+            FileResponseWriter.write(path.get(), ImageStorageService.contentTypeOf(fileName),
+                    "\"" + hash + "\"", "no-cache", request, response);
+            return;
+        }
+
+        FileResponseWriter.write(path.get(), ImageStorageService.contentTypeOf(fileName),
+                "\"" + hash + "\"", IMMUTABLE, request, response);
+    }
+}
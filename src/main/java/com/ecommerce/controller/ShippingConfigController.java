@@ -1,16 +1,22 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.model.ShippingConfig;
+import com.ecommerce.service.CatalogVersionService;
 import com.ecommerce.service.TaxService;
 
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/admin/shipping")
@@ -20,10 +26,24 @@ public class ShippingConfigController {
     @Autowired
     private TaxService taxService;
     
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+    
+    @Value("${app.http.cache.shipping-config-max-age-seconds:0}")
+    private long maxAgeSeconds;
+    
     @GetMapping
-    public ResponseEntity<ShippingConfig> getShippingConfig() {
+    public ResponseEntity<ShippingConfig> getShippingConfig(WebRequest request) {
         // Public endpoint - anyone can view shipping config
-        return ResponseEntity.ok(taxService.getShippingConfig());
+        CacheControl cacheControl = maxAgeSeconds > 0
+                ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic()
+                : CacheControl.noCache().cachePublic();
+        // Checked against the config version before the lookup, so a 304 skips the database
+        if (request.checkNotModified(catalogVersionService.getShippingConfigETag(),
+                catalogVersionService.getShippingConfigLastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).body(taxService.getShippingConfig());
     }
     
     @PutMapping
@@ -4,16 +4,17 @@ import com.ecommerce.model.PaymentMethod;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.PaymentMethodRepository;
 import com.ecommerce.repository.UserRepository;
-import com.stripe.Stripe;
+import com.ecommerce.service.InvalidationBus;
+import com.ecommerce.service.PaymentMethodMetadataService;
+import com.ecommerce.service.StripeGateway;
 import com.stripe.exception.StripeException;
-import com.stripe.param.PaymentMethodAttachParams;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,18 +24,24 @@ import java.util.Optional;
 @RequestMapping("/api/profile")
 public class UserProfileController {
 
-    @Value("${stripe.api.key:sk_test_default}")
-    private String stripeSecretKey;
-
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private StripeGateway stripeGateway;
+    
+    @Autowired
+    private PaymentMethodMetadataService paymentMethodMetadataService;
+    
     @Autowired
     private PasswordEncoder passwordEncoder;
 
     @Autowired
     private PaymentMethodRepository paymentMethodRepository;
 
+    @Autowired
+    private InvalidationBus invalidationBus;
+
     // Get user profile
     @GetMapping
     public ResponseEntity<?> getProfile(Principal principal) {
@@ -85,6 +92,7 @@ public class UserProfileController {
             }
             
             userRepository.save(user);
+            invalidationBus.publish(InvalidationBus.Topic.USER, user.getEmail());
             
             return ResponseEntity.ok(user);
         } catch (Exception e) {
@@ -110,6 +118,33 @@ public class UserProfileController {
         }
     }
 
+    // Card details for all saved cards, served from our DB (no Stripe calls)
+    @GetMapping("/payment-methods/details")
+    public ResponseEntity<?> getPaymentMethodDetails(Principal principal) {
+        try {
+            User user = userRepository.findByEmail(principal.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            
+            List<Map<String, Object>> details = new ArrayList<>();
+            for (PaymentMethod pm : paymentMethodRepository.findByUserOrderByIsDefaultDescCreatedAtDesc(user)) {
+                Map<String, Object> card = new HashMap<>();
+                card.put("id", pm.getId());
+                card.put("paymentMethodId", pm.getStripePaymentMethodId());
+                card.put("brand", pm.getCardBrand());
+                card.put("last4", pm.getCardLastFour());
+                card.put("expMonth", pm.getCardExpMonth());
+                card.put("expYear", pm.getCardExpYear());
+                card.put("billingZip", pm.getBillingZip());
+                card.put("isDefault", pm.getIsDefault());
+                details.add(card);
+            }
+            
+            return ResponseEntity.ok(details);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
     // Get default payment method
     @GetMapping("/default-payment-method")
     public ResponseEntity<?> getDefaultPaymentMethod(Principal principal) {
@@ -180,8 +215,6 @@ public class UserProfileController {
             Principal principal) {
         
         try {
-            Stripe.apiKey = stripeSecretKey;
-            
             User user = userRepository.findByEmail(principal.getName())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
@@ -189,17 +222,14 @@ public class UserProfileController {
             System.out.println("Payment Method ID: " + request.getPaymentMethodId());
             System.out.println("Is Default: " + request.getIsDefault());
             
-            // Attach to Stripe Customer
-            if (user.getStripeCustomerId() != null && request.getPaymentMethodId() != null) {
+            // Single Stripe read: attach if needed and capture card metadata for local display
+            com.stripe.model.PaymentMethod stripePM = null;
+            if (request.getPaymentMethodId() != null) {
                 try {
-                    com.stripe.model.PaymentMethod stripePM = com.stripe.model.PaymentMethod
-                            .retrieve(request.getPaymentMethodId());
+                    stripePM = stripeGateway.retrievePaymentMethod(request.getPaymentMethodId());
                     
-                    if (stripePM.getCustomer() == null) {
-                        PaymentMethodAttachParams attachParams = PaymentMethodAttachParams.builder()
-                                .setCustomer(user.getStripeCustomerId())
-                                .build();
-                        stripePM.attach(attachParams);
+                    if (user.getStripeCustomerId() != null && stripePM.getCustomer() == null) {
+                        stripeGateway.attachPaymentMethod(request.getPaymentMethodId(), user.getStripeCustomerId());
                         System.out.println("✅ PaymentMethod attached to Customer");
                     }
                 } catch (StripeException e) {
@@ -223,10 +253,14 @@ public class UserProfileController {
                 System.out.println("Creating new payment method");
             }
             
-            // Set payment method details
+            // Set payment method details, preferring what Stripe reports over the client's copy
             paymentMethod.setStripePaymentMethodId(request.getPaymentMethodId());
             paymentMethod.setCardBrand(request.getCardBrand());
             paymentMethod.setCardLastFour(request.getCardLast4());
+            paymentMethod.setBillingZip(request.getBillingZip());
+            if (stripePM != null) {
+                paymentMethodMetadataService.apply(paymentMethod, stripePM);
+            }
             
             // Determine if this should be default
             List<PaymentMethod> userMethods = paymentMethodRepository.findByUser(user);
@@ -242,8 +276,9 @@ public class UserProfileController {
                 
                 // Update legacy fields for backward compatibility
                 user.setStripePaymentMethodId(request.getPaymentMethodId());
-                user.setSavedPaymentMethod(request.getCardBrand());
-                user.setCardLastFour(request.getCardLast4());
+                user.setSavedPaymentMethod(paymentMethod.getCardBrand());
+                user.setCardLastFour(paymentMethod.getCardLastFour());
+                user.setBillingZip(paymentMethod.getBillingZip());
             } else {
                 paymentMethod.setIsDefault(false);
             }
@@ -253,7 +288,7 @@ public class UserProfileController {
             
             System.out.println("✅ Payment method saved - Default: " + paymentMethod.getIsDefault());
             
-            return ResponseEntity.ok().build();
+            return ResponseEntity.ok(paymentMethod);
             
         } catch (Exception e) {
             System.err.println("❌ Exception: " + e.getMessage());
@@ -392,6 +427,7 @@ public class UserProfileController {
             // Encode and save new password
             user.setPassword(passwordEncoder.encode(request.getNewPassword()));
             userRepository.save(user);
+            invalidationBus.publish(InvalidationBus.Topic.USER, user.getEmail());
             
             System.out.println("========================================");
             System.out.println("✅ Password changed successfully for: " + principal.getName());
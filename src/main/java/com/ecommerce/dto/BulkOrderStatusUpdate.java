@@ -0,0 +1,74 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Body of PATCH /api/admin/orders; null fields are left unchanged, the carrier follows the tracking number
+public class BulkOrderStatusUpdate {
+
+    private List<Item> orders = new ArrayList<>();
+
+    public BulkOrderStatusUpdate() {
+    }
+
+    public List<Item> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Item> orders) {
+        this.orders = orders;
+    }
+
+    public static class Item {
+
+        private Long orderId;
+        private Order.OrderStatus orderStatus;
+        private Order.PaymentStatus paymentStatus;
+        private String trackingNumber;
+
+        public Item() {
+        }
+
+        public Item(Long orderId, Order.OrderStatus orderStatus, Order.PaymentStatus paymentStatus,
+                    String trackingNumber) {
+            this.orderId = orderId;
+            this.orderStatus = orderStatus;
+            this.paymentStatus = paymentStatus;
+            this.trackingNumber = trackingNumber;
+        }
+
+        public Long getOrderId() {
+            return orderId;
+        }
+
+        public void setOrderId(Long orderId) {
+            this.orderId = orderId;
+        }
+
+        public Order.OrderStatus getOrderStatus() {
+            return orderStatus;
+        }
+
+        public void setOrderStatus(Order.OrderStatus orderStatus) {
+            this.orderStatus = orderStatus;
+        }
+
+        public Order.PaymentStatus getPaymentStatus() {
+            return paymentStatus;
+        }
+
+        public void setPaymentStatus(Order.PaymentStatus paymentStatus) {
+            this.paymentStatus = paymentStatus;
+        }
+
+        public String getTrackingNumber() {
+            return trackingNumber;
+        }
+
+        public void setTrackingNumber(String trackingNumber) {
+            this.trackingNumber = trackingNumber;
+        }
+    }
+}
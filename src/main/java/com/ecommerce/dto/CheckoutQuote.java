@@ -0,0 +1,170 @@
+package com.ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Payload carried inside a signed quote token returned by /api/orders/calculate
+public class CheckoutQuote {
+
+    private String email;
+    private List<QuotedItem> items = new ArrayList<>();
+    private String shippingState;
+    private String shippingZipCode;
+    private Double subtotal;
+    private Double tax;
+    private Double taxRate;
+    private Double shipping;
+    private Double total;
+    private Long expiresAt;
+    // Versions the totals were computed at; see CatalogVersionService
+    private String versionEpoch;
+    private Long catalogVersion;
+    private Long shippingConfigVersion;
+
+    public CheckoutQuote() {
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public List<QuotedItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<QuotedItem> items) {
+        this.items = items;
+    }
+
+    public String getShippingState() {
+        return shippingState;
+    }
+
+    public void setShippingState(String shippingState) {
+        this.shippingState = shippingState;
+    }
+
+    public String getShippingZipCode() {
+        return shippingZipCode;
+    }
+
+    public void setShippingZipCode(String shippingZipCode) {
+        this.shippingZipCode = shippingZipCode;
+    }
+
+    public Double getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(Double subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    public Double getTax() {
+        return tax;
+    }
+
+    public void setTax(Double tax) {
+        this.tax = tax;
+    }
+
+    public Double getTaxRate() {
+        return taxRate;
+    }
+
+    public void setTaxRate(Double taxRate) {
+        this.taxRate = taxRate;
+    }
+
+    public Double getShipping() {
+        return shipping;
+    }
+
+    public void setShipping(Double shipping) {
+        this.shipping = shipping;
+    }
+
+    public Double getTotal() {
+        return total;
+    }
+
+    public void setTotal(Double total) {
+        this.total = total;
+    }
+
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public String getVersionEpoch() {
+        return versionEpoch;
+    }
+
+    public void setVersionEpoch(String versionEpoch) {
+        this.versionEpoch = versionEpoch;
+    }
+
+    public Long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(Long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    public Long getShippingConfigVersion() {
+        return shippingConfigVersion;
+    }
+
+    public void setShippingConfigVersion(Long shippingConfigVersion) {
+        this.shippingConfigVersion = shippingConfigVersion;
+    }
+
+    public static class QuotedItem {
+
+        private Long productId;
+        private Integer quantity;
+        private Double unitPrice;
+
+        public QuotedItem() {
+        }
+
+        public QuotedItem(Long productId, Integer quantity, Double unitPrice) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public Double getUnitPrice() {
+            return unitPrice;
+        }
+
+        public void setUnitPrice(Double unitPrice) {
+            this.unitPrice = unitPrice;
+        }
+    }
+}
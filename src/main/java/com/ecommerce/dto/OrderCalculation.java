@@ -7,6 +7,8 @@ public class OrderCalculation {
     private Double taxRate;
     private Double shipping;
     private Double total;
+    private String quoteToken;
+    private Long quoteExpiresAt;
     
     // Constructors
     public OrderCalculation() {
@@ -60,4 +62,20 @@ public class OrderCalculation {
     public void setTotal(Double total) {
         this.total = total;
     }
+    
+    public String getQuoteToken() {
+        return quoteToken;
+    }
+    
+    public void setQuoteToken(String quoteToken) {
+        this.quoteToken = quoteToken;
+    }
+    
+    public Long getQuoteExpiresAt() {
+        return quoteExpiresAt;
+    }
+    
+    public void setQuoteExpiresAt(Long quoteExpiresAt) {
+        this.quoteExpiresAt = quoteExpiresAt;
+    }
 }
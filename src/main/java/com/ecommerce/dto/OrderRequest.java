@@ -30,6 +30,8 @@ public class OrderRequest {
     
     private String paymentId;
     
+    private String quoteToken;
+    
     public OrderRequest() {
     }
     
@@ -97,6 +99,14 @@ public class OrderRequest {
         this.paymentId = paymentId;
     }
     
+    public String getQuoteToken() {
+        return quoteToken;
+    }
+    
+    public void setQuoteToken(String quoteToken) {
+        this.quoteToken = quoteToken;
+    }
+    
     public static class OrderItemDTO {
         
         @NotNull(message = "Product ID is required")
@@ -0,0 +1,11 @@
+package com.ecommerce.exception;
+
+public class StripeUnavailableException extends RuntimeException {
+    public StripeUnavailableException(String message) {
+        super(message);
+    }
+
+    public StripeUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One row per published cache invalidation; the change log JdbcInvalidationBus polls.
+ * Rows are short-lived and purged after app.invalidation.retention-minutes.
+ */
+@Entity
+@Table(name = "cache_invalidations",
+       indexes = @Index(name = "idx_cache_invalidations_published_at", columnList = "published_at"))
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "topic", nullable = false, length = 32)
+    private String topic;
+
+    @Column(name = "cache_key")
+    private String cacheKey;
+
+    @Column(name = "origin_node", nullable = false, length = 64)
+    private String originNode;
+
+    // Publisher's clock, epoch millis; used for the latency metric and purging
+    @Column(name = "published_at", nullable = false)
+    private Long publishedAt;
+
+    // Constructors
+    public CacheInvalidation() {}
+
+    public CacheInvalidation(String topic, String cacheKey, String originNode, Long publishedAt) {
+        this.topic = topic;
+        this.cacheKey = cacheKey;
+        this.originNode = originNode;
+        this.publishedAt = publishedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getOriginNode() {
+        return originNode;
+    }
+
+    public void setOriginNode(String originNode) {
+        this.originNode = originNode;
+    }
+
+    public Long getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(Long publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+}
@@ -31,6 +31,23 @@ public class PaymentMethod {
     @JsonProperty("cardLastFour")
     private String cardLastFour;
     
+    @Column(name = "card_exp_month")
+    @JsonProperty("cardExpMonth")
+    private Integer cardExpMonth;
+    
+    @Column(name = "card_exp_year")
+    @JsonProperty("cardExpYear")
+    private Integer cardExpYear;
+    
+    @Column(name = "billing_zip")
+    @JsonProperty("billingZip")
+    private String billingZip;
+    
+    // Last time card metadata was copied from Stripe; null means never synced
+    @Column(name = "metadata_synced_at")
+    @JsonIgnore
+    private LocalDateTime metadataSyncedAt;
+    
     @Column(name = "is_default")
     @JsonProperty("isDefault")
     private Boolean isDefault = false;
@@ -83,6 +100,38 @@ public class PaymentMethod {
         this.cardLastFour = cardLastFour;
     }
     
+    public Integer getCardExpMonth() {
+        return cardExpMonth;
+    }
+    
+    public void setCardExpMonth(Integer cardExpMonth) {
+        this.cardExpMonth = cardExpMonth;
+    }
+    
+    public Integer getCardExpYear() {
+        return cardExpYear;
+    }
+    
+    public void setCardExpYear(Integer cardExpYear) {
+        this.cardExpYear = cardExpYear;
+    }
+    
+    public String getBillingZip() {
+        return billingZip;
+    }
+    
+    public void setBillingZip(String billingZip) {
+        this.billingZip = billingZip;
+    }
+    
+    public LocalDateTime getMetadataSyncedAt() {
+        return metadataSyncedAt;
+    }
+    
+    public void setMetadataSyncedAt(LocalDateTime metadataSyncedAt) {
+        this.metadataSyncedAt = metadataSyncedAt;
+    }
+    
     public Boolean getIsDefault() {
         return isDefault;
     }
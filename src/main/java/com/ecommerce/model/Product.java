@@ -3,13 +3,19 @@ package com.ecommerce.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "ux_products_sku", columnList = "sku", unique = true)
+})
 public class Product {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Supplier stock-keeping unit; bulk imports upsert on it (see CatalogTransferService)
+    @Column(length = 64)
+    private String sku;
+    
     @Column(nullable = false)
     private String name;
     
@@ -27,6 +33,22 @@ public class Product {
     @Column(name = "image_url")
     private String imageUrl;  // ADD THIS FIELD
     
+    // Uploaded image (see ImageStorageService); imageUrl then points at /images/products/<hash>.<ext>
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+    
+    @Column(name = "image_content_type", length = 32)
+    private String imageContentType;
+    
+    @Column(name = "image_size")
+    private Long imageSize;
+    
+    @Column(name = "image_width")
+    private Integer imageWidth;
+    
+    @Column(name = "image_height")
+    private Integer imageHeight;
+    
     // Constructors
     public Product() {}
     
@@ -48,6 +70,14 @@ public class Product {
         this.id = id;
     }
     
+    public String getSku() {
+        return sku;
+    }
+    
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+    
     public String getName() {
         return name;
     }
@@ -96,4 +126,44 @@ public class Product {
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
     }
+    
+    public String getImageHash() {
+        return imageHash;
+    }
+    
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
+    }
+    
+    public String getImageContentType() {
+        return imageContentType;
+    }
+    
+    public void setImageContentType(String imageContentType) {
+        this.imageContentType = imageContentType;
+    }
+    
+    public Long getImageSize() {
+        return imageSize;
+    }
+    
+    public void setImageSize(Long imageSize) {
+        this.imageSize = imageSize;
+    }
+    
+    public Integer getImageWidth() {
+        return imageWidth;
+    }
+    
+    public void setImageWidth(Integer imageWidth) {
+        this.imageWidth = imageWidth;
+    }
+    
+    public Integer getImageHeight() {
+        return imageHeight;
+    }
+    
+    public void setImageHeight(Integer imageHeight) {
+        this.imageHeight = imageHeight;
+    }
 }
@@ -0,0 +1,21 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @Transactional(readOnly = true)
+    List<ArchivedOrder> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT COALESCE(SUM(a.totalAmount), 0) FROM ArchivedOrder a WHERE a.paymentStatus = :paymentStatus")
+    double sumTotalAmountByPaymentStatus(@Param("paymentStatus") String paymentStatus);
+}
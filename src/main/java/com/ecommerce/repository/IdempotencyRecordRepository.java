@@ -0,0 +1,43 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :cutoff")
+    int deleteExpired(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.expiresAt < :cutoff")
+    int deleteIfExpired(@Param("key") String key, @Param("cutoff") LocalDateTime cutoff);
+
+    // The lease checks below match on createdAt, so only the current owner of an IN_PROGRESS key changes it
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.createdAt = :now WHERE r.idempotencyKey = :key"
+            + " AND r.status = com.ecommerce.model.IdempotencyRecord$Status.IN_PROGRESS AND r.createdAt = :leasedAt")
+    int takeOver(@Param("key") String key, @Param("leasedAt") LocalDateTime leasedAt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.ecommerce.model.IdempotencyRecord$Status.COMPLETED,"
+            + " r.responseStatus = :responseStatus, r.responseBody = :responseBody WHERE r.idempotencyKey = :key"
+            + " AND r.status = com.ecommerce.model.IdempotencyRecord$Status.IN_PROGRESS AND r.createdAt = :leasedAt")
+    int complete(@Param("key") String key, @Param("leasedAt") LocalDateTime leasedAt,
+                 @Param("responseStatus") int responseStatus, @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key"
+            + " AND r.status = com.ecommerce.model.IdempotencyRecord$Status.IN_PROGRESS AND r.createdAt = :leasedAt")
+    int release(@Param("key") String key, @Param("leasedAt") LocalDateTime leasedAt);
+}
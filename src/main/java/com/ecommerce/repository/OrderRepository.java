@@ -4,7 +4,9 @@ import com.ecommerce.model.Order;
 import com.ecommerce.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,5 +16,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC")
     List<Order> findAllByOrderByCreatedAtDesc();
+    
+    // Derived queries get no transaction by default; read-only lets it go to a replica
+    @Transactional(readOnly = true)
     List<Order> findByOrderStatusOrderByReturnRequestDateDesc(Order.OrderStatus status);
+    
+    @Transactional(readOnly = true)
+    @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.paymentStatus = :paymentStatus")
+    double sumTotalAmountByPaymentStatus(@Param("paymentStatus") Order.PaymentStatus paymentStatus);
 }
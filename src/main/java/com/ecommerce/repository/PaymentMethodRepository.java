@@ -2,9 +2,13 @@ package com.ecommerce.repository;
 
 import com.ecommerce.model.PaymentMethod;
 import com.ecommerce.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +18,9 @@ public interface PaymentMethodRepository extends JpaRepository<PaymentMethod, Lo
     List<PaymentMethod> findByUserOrderByIsDefaultDescCreatedAtDesc(User user);
     Optional<PaymentMethod> findByUserAndIsDefault(User user, Boolean isDefault);
     Optional<PaymentMethod> findByUserAndStripePaymentMethodId(User user, String stripePaymentMethodId);
+
+    // Cards whose Stripe metadata was never synced or is older than the cutoff, oldest first
+    @Query("SELECT pm FROM PaymentMethod pm WHERE pm.metadataSyncedAt IS NULL OR pm.metadataSyncedAt < :cutoff " +
+           "ORDER BY pm.metadataSyncedAt ASC NULLS FIRST, pm.id ASC")
+    List<PaymentMethod> findStaleMetadata(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
 }
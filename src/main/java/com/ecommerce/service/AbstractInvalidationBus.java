@@ -0,0 +1,99 @@
+package com.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Listener bookkeeping and metrics shared by the bus implementations:
+ * ecommerce.invalidation.latency (publish to delivery, per topic),
+ * ecommerce.invalidation.published and ecommerce.invalidation.resets.
+ */
+public abstract class AbstractInvalidationBus implements InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractInvalidationBus.class);
+
+    private final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+    private final String nodeId;
+    private final String busName;
+    private final MeterRegistry meterRegistry;
+    private final Counter resets;
+
+    protected AbstractInvalidationBus(String busName, String nodeId, MeterRegistry meterRegistry) {
+        this.busName = busName;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.meterRegistry = meterRegistry;
+        this.resets = Counter.builder("ecommerce.invalidation.resets")
+                .description("Full cache resets after this node fell behind the invalidation stream")
+                .tag("bus", busName)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void subscribe(Consumer<Event> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    protected void countPublished(Topic topic) {
+        meterRegistry.counter("ecommerce.invalidation.published", "bus", busName, "topic", topic.name()).increment();
+    }
+
+    /**
+     * Records the latency of every event, then hands each distinct (topic, key) to the
+     * listeners once: a burst of stock changes only needs one invalidation.
+     */
+    protected void deliver(List<Event> events) {
+        long now = System.currentTimeMillis();
+        Map<String, Event> distinct = new LinkedHashMap<>();
+        for (Event event : events) {
+            Timer.builder("ecommerce.invalidation.latency")
+                    .description("Time from publishing an invalidation to applying it on another node")
+                    .tag("bus", busName)
+                    .tag("topic", event.topic().name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(Duration.ofMillis(Math.max(0, now - event.publishedAt())));
+            distinct.put(event.topic() + "|" + Objects.toString(event.key(), ""), event);
+        }
+        distinct.values().forEach(this::dispatch);
+    }
+
+    /** Tells every listener to drop everything it has cached. */
+    protected void resetAll(String reason) {
+        log.warn("Invalidation bus ({}) fell behind: {} - resetting all caches", busName, reason);
+        resets.increment();
+        dispatch(new Event(Topic.ALL, null, nodeId, System.currentTimeMillis()));
+    }
+
+    private void dispatch(Event event) {
+        for (Consumer<Event> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.error("Invalidation listener failed for {}", event.topic(), e);
+            }
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host = System.getenv().getOrDefault("HOSTNAME", "node");
+        // Fits cache_invalidations.origin_node
+        return (host.length() > 50 ? host.substring(0, 50) : host) + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
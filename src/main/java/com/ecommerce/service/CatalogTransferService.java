@@ -0,0 +1,575 @@
+package com.ecommerce.service;
+
+import com.ecommerce.util.Csv;
+import com.ecommerce.util.ReadFromReplica;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk catalog import and export for supplier feeds (CSV or JSON Lines).
+ * <p>
+ * Imports stream the input row by row, reject invalid rows individually and upsert the rest on sku
+ * in batches of batch-size, each batch in its own transaction: through COPY into a temp table on
+ * PostgreSQL, as a batched MERGE elsewhere. Re-running a feed after a failure is safe. Catalog and
+ * stock caches are invalidated once, when the import ends. Exports stream the table through a
+ * server-side cursor (fetch-size rows at a time) straight into the response.
+ */
+@Service
+@Workload(WorkloadClass.ADMIN)
+public class CatalogTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogTransferService.class);
+
+    public enum Format {
+        CSV("text/csv"), JSONL("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /** An explicit format parameter wins over the request's content type. */
+        public static Format of(String format, String contentType) {
+            String value = format != null && !format.isBlank() ? format : contentType;
+            if (value != null) {
+                String lower = value.toLowerCase(Locale.ROOT);
+                if (lower.contains("csv")) {
+                    return CSV;
+                }
+                if (lower.contains("jsonl") || lower.contains("ndjson") || lower.contains("json-lines")) {
+                    return JSONL;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported format: " + value + " (use csv or jsonl)");
+        }
+    }
+
+    /** One product in a feed. The id is only written by exports; imports match on sku. */
+    public record CatalogRow(Long id, String sku, String name, String description, Double price,
+                             String category, Integer stock, String imageUrl) {
+    }
+
+    public record RowError(long row, String sku, String message) {
+    }
+
+    public static final class ImportJob {
+
+        public enum Status { RUNNING, COMPLETED, FAILED }
+
+        private final String id = UUID.randomUUID().toString().substring(0, 8);
+        private final Format format;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong rowsUpserted = new AtomicLong();
+        private final AtomicLong rowsRejected = new AtomicLong();
+        private final List<RowError> errors = new ArrayList<>();
+        private final int maxErrors;
+        private volatile Status status = Status.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String failure;
+
+        ImportJob(Format format, int maxErrors) {
+            this.format = format;
+            this.maxErrors = maxErrors;
+        }
+
+        void reject(long row, String sku, String message) {
+            rowsRejected.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(new RowError(row, sku, message));
+                }
+            }
+        }
+
+        public String getId() { return id; }
+        public Format getFormat() { return format; }
+        public Status getStatus() { return status; }
+        public Instant getStartedAt() { return startedAt; }
+        public Instant getFinishedAt() { return finishedAt; }
+        public long getRowsRead() { return rowsRead.get(); }
+        public long getRowsUpserted() { return rowsUpserted.get(); }
+        public long getRowsRejected() { return rowsRejected.get(); }
+        public String getFailure() { return failure; }
+
+        /** The first max-reported-errors rejected rows; rowsRejected has the full count. */
+        public List<RowError> getErrors() {
+            synchronized (errors) {
+                return List.copyOf(errors);
+            }
+        }
+
+        public long getRowsPerSecond() {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            long ms = Math.max(1, end.toEpochMilli() - startedAt.toEpochMilli());
+            return rowsRead.get() * 1000 / ms;
+        }
+    }
+
+    private static final String[] COLUMNS = {"sku", "name", "description", "price", "category", "stock", "image_url"};
+
+    // Matches the products column lengths
+    private static final int MAX_SKU = 64;
+    private static final int MAX_TEXT = 255;
+    private static final int MAX_DESCRIPTION = 1000;
+
+    // Kept for GET /api/admin/catalog/imports
+    private static final int RECENT_JOBS = 20;
+
+    private static final String MERGE_SQL =
+            "MERGE INTO products p USING (VALUES (CAST(? AS VARCHAR(64)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(1000)), "
+            + "CAST(? AS DOUBLE PRECISION), CAST(? AS VARCHAR(255)), CAST(? AS INTEGER), CAST(? AS VARCHAR(255)))) "
+            + "AS s (sku, name, description, price, category, stock, image_url) ON p.sku = s.sku "
+            + "WHEN MATCHED THEN UPDATE SET name = s.name, description = s.description, price = s.price, "
+            + "category = s.category, stock = s.stock, image_url = COALESCE(s.image_url, p.image_url) "
+            + "WHEN NOT MATCHED THEN INSERT (sku, name, description, price, category, stock, image_url) "
+            + "VALUES (s.sku, s.name, s.description, s.price, s.category, s.stock, s.image_url)";
+
+    private static final String COPY_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS product_import (sku VARCHAR(64), name VARCHAR(255), "
+            + "description VARCHAR(1000), price DOUBLE PRECISION, category VARCHAR(255), stock INTEGER, "
+            + "image_url VARCHAR(255)) ON COMMIT DELETE ROWS";
+
+    private static final String COPY_IN_SQL =
+            "COPY product_import (sku, name, description, price, category, stock, image_url) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String COPY_UPSERT_SQL =
+            "INSERT INTO products (sku, name, description, price, category, stock, image_url) "
+            + "SELECT sku, name, description, price, category, stock, image_url FROM product_import "
+            + "ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, "
+            + "price = EXCLUDED.price, category = EXCLUDED.category, stock = EXCLUDED.stock, "
+            + "image_url = COALESCE(EXCLUDED.image_url, products.image_url)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.catalog.import.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.catalog.import.use-copy:true}")
+    private boolean useCopy;
+
+    @Value("${app.catalog.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    @Value("${app.catalog.import.progress-every:100000}")
+    private long progressEvery;
+
+    @Value("${app.catalog.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    private final Map<String, ImportJob> recentJobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > RECENT_JOBS;
+        }
+    };
+
+    // ==================== IMPORT ====================
+
+    /** Runs an import to completion on the calling thread; the stream is read exactly once. */
+    public ImportJob importProducts(InputStream in, Format format) {
+        ImportJob job = new ImportJob(format, maxReportedErrors);
+        synchronized (recentJobs) {
+            recentJobs.put(job.getId(), job);
+        }
+        log.info("Catalog import {} started ({})", job.getId(), format);
+
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        // Keyed by sku: a repeated sku inside one batch would make the upsert touch a row twice
+        Map<String, CatalogRow> batch = new LinkedHashMap<>();
+        try {
+            Iterator<CatalogRow> rows = format == Format.CSV ? csvRows(reader, job) : jsonRows(reader, job);
+            while (rows.hasNext()) {
+                CatalogRow row = rows.next();
+                batch.put(row.sku(), row);
+                if (batch.size() >= batchSize) {
+                    flush(batch.values(), job);
+                    batch.clear();
+                }
+            }
+            flush(batch.values(), job);
+            job.status = ImportJob.Status.COMPLETED;
+        } catch (IllegalArgumentException e) {
+            // Unusable input (e.g. no header): nothing was written
+            job.failure = e.getMessage();
+            job.status = ImportJob.Status.FAILED;
+            throw e;
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+            job.failure = cause.getMessage();
+            job.status = ImportJob.Status.FAILED;
+            log.error("Catalog import {} failed after {} upserted rows: {}", job.getId(), job.getRowsUpserted(),
+                    cause.getMessage());
+        } finally {
+            job.finishedAt = Instant.now();
+            if (job.getRowsUpserted() > 0) {
+                // Once per import, not per batch: every node drops its catalog caches a single time
+                catalogVersionService.bumpCatalogVersion();
+                catalogVersionService.bumpStockVersion();
+            }
+        }
+        log.info("Catalog import {} {}: {} rows read, {} upserted, {} rejected ({} rows/s)", job.getId(),
+                job.getStatus().name().toLowerCase(), job.getRowsRead(), job.getRowsUpserted(),
+                job.getRowsRejected(), job.getRowsPerSecond());
+        return job;
+    }
+
+    public List<ImportJob> getRecentImports() {
+        synchronized (recentJobs) {
+            List<ImportJob> jobs = new ArrayList<>(recentJobs.values());
+            Collections.reverse(jobs);
+            return jobs;
+        }
+    }
+
+    public Optional<ImportJob> getImport(String id) {
+        synchronized (recentJobs) {
+            return Optional.ofNullable(recentJobs.get(id));
+        }
+    }
+
+    private void flush(Collection<CatalogRow> rows, ImportJob job) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    if (useCopy && connection.isWrapperFor(PGConnection.class)) {
+                        copyUpsert(connection, rows);
+                    } else {
+                        mergeUpsert(connection, rows);
+                    }
+                    return null;
+                }));
+
+        long before = job.rowsUpserted.get();
+        long after = job.rowsUpserted.addAndGet(rows.size());
+        if (progressEvery > 0 && before / progressEvery != after / progressEvery) {
+            log.info("Catalog import {}: {} rows read, {} upserted, {} rejected ({} rows/s)", job.getId(),
+                    job.getRowsRead(), after, job.getRowsRejected(), job.getRowsPerSecond());
+        }
+    }
+
+    private void copyUpsert(Connection connection, Collection<CatalogRow> rows) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(COPY_STAGING_SQL);
+        }
+        CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_IN_SQL);
+        try {
+            StringBuilder line = new StringBuilder(256);
+            for (CatalogRow row : rows) {
+                line.setLength(0);
+                line.append(Csv.field(row.sku())).append(',')
+                        .append(Csv.field(row.name())).append(',')
+                        .append(Csv.field(row.description())).append(',')
+                        .append(row.price()).append(',')
+                        .append(Csv.field(row.category())).append(',')
+                        .append(row.stock()).append(',')
+                        .append(Csv.field(row.imageUrl())).append('\n');
+                byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                copy.writeToCopy(bytes, 0, bytes.length);
+            }
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(COPY_UPSERT_SQL);
+        }
+    }
+
+    private void mergeUpsert(Connection connection, Collection<CatalogRow> rows) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(MERGE_SQL)) {
+            for (CatalogRow row : rows) {
+                statement.setString(1, row.sku());
+                statement.setString(2, row.name());
+                statement.setString(3, row.description());
+                statement.setDouble(4, row.price());
+                statement.setString(5, row.category());
+                statement.setInt(6, row.stock());
+                if (row.imageUrl() != null) {
+                    statement.setString(7, row.imageUrl());
+                } else {
+                    statement.setNull(7, Types.VARCHAR);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    // ==================== PARSING ====================
+
+    private Iterator<CatalogRow> csvRows(Reader reader, ImportJob job) {
+        Csv.RecordReader records = new Csv.RecordReader(reader);
+        Map<String, Integer> header = new HashMap<>();
+        try {
+            List<String> names = records.next();
+            if (names == null) {
+                throw new IllegalArgumentException("Empty CSV: a header row is required");
+            }
+            for (int i = 0; i < names.size(); i++) {
+                // "image_url", "imageUrl" and "Image URL" all name the same column
+                header.put(names.get(i).trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z]", ""), i);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String required : new String[] {"sku", "name", "price", "stock"}) {
+            if (!header.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing the '" + required + "' column");
+            }
+        }
+
+        return new RowIterator(job) {
+            @Override
+            protected CatalogRow parse() throws IOException {
+                List<String> record = records.next();
+                if (record == null) {
+                    return null;
+                }
+                String sku = column(record, "sku");
+                try {
+                    String price = column(record, "price");
+                    String stock = column(record, "stock");
+                    return new CatalogRow(null, sku, column(record, "name"), column(record, "description"),
+                            price != null ? Double.valueOf(price) : null, column(record, "category"),
+                            stock != null ? Integer.valueOf(stock) : null, column(record, "imageurl"));
+                } catch (NumberFormatException e) {
+                    return reject(sku, "Not a number: " + e.getMessage());
+                }
+            }
+
+            private String column(List<String> record, String name) {
+                Integer index = header.get(name);
+                return index != null && index < record.size() ? blankToNull(record.get(index)) : null;
+            }
+        };
+    }
+
+    private Iterator<CatalogRow> jsonRows(Reader reader, ImportJob job) {
+        BufferedReader lines = (BufferedReader) reader;
+        return new RowIterator(job) {
+            @Override
+            protected CatalogRow parse() throws IOException {
+                String line;
+                do {
+                    line = lines.readLine();
+                    if (line == null) {
+                        return null;
+                    }
+                } while (line.isBlank());
+                try {
+                    CatalogRow row = objectMapper.readValue(line, CatalogRow.class);
+                    return new CatalogRow(null, blankToNull(row.sku()), blankToNull(row.name()),
+                            blankToNull(row.description()), row.price(), blankToNull(row.category()),
+                            row.stock(), blankToNull(row.imageUrl()));
+                } catch (JsonProcessingException e) {
+                    return reject(null, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    /** Yields valid rows only; invalid ones are recorded on the job and skipped. */
+    private abstract static class RowIterator implements Iterator<CatalogRow> {
+
+        // Returned by parse() for a rejected row
+        private static final CatalogRow REJECTED = new CatalogRow(null, null, null, null, null, null, null, null);
+
+        private final ImportJob job;
+        private CatalogRow next;
+        private boolean done;
+
+        RowIterator(ImportJob job) {
+            this.job = job;
+        }
+
+        /** The next row (valid or not), REJECTED after calling reject, or null at the end. */
+        protected abstract CatalogRow parse() throws IOException;
+
+        protected CatalogRow reject(String sku, String message) {
+            job.reject(job.rowsRead.get(), sku, message);
+            return REJECTED;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                CatalogRow row;
+                try {
+                    job.rowsRead.incrementAndGet();
+                    row = parse();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (row == null) {
+                    job.rowsRead.decrementAndGet();
+                    done = true;
+                } else if (row != REJECTED) {
+                    String problem = validate(row);
+                    if (problem == null) {
+                        next = row;
+                    } else {
+                        reject(row.sku(), problem);
+                    }
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public CatalogRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CatalogRow row = next;
+            next = null;
+            return row;
+        }
+    }
+
+    static String validate(CatalogRow row) {
+        if (row.sku() == null) {
+            return "sku is required";
+        }
+        if (row.sku().length() > MAX_SKU) {
+            return "sku is longer than " + MAX_SKU + " characters";
+        }
+        if (row.name() == null) {
+            return "name is required";
+        }
+        if (row.name().length() > MAX_TEXT) {
+            return "name is longer than " + MAX_TEXT + " characters";
+        }
+        if (row.description() != null && row.description().length() > MAX_DESCRIPTION) {
+            return "description is longer than " + MAX_DESCRIPTION + " characters";
+        }
+        if (row.category() != null && row.category().length() > MAX_TEXT) {
+            return "category is longer than " + MAX_TEXT + " characters";
+        }
+        if (row.imageUrl() != null && row.imageUrl().length() > MAX_TEXT) {
+            return "imageUrl is longer than " + MAX_TEXT + " characters";
+        }
+        if (row.price() == null || row.price().isNaN() || row.price().isInfinite() || row.price() < 0) {
+            return "price must be a number >= 0";
+        }
+        if (row.stock() == null || row.stock() < 0) {
+            return "stock must be an integer >= 0";
+        }
+        return null;
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // ==================== EXPORT ====================
+
+    /** Streams every product to out; returns the number of rows written. */
+    @Transactional(readOnly = true)
+    @ReadFromReplica
+    public long exportProducts(OutputStream out, Format format) throws IOException {
+        // The transaction keeps autocommit off, which the PostgreSQL driver needs to use a cursor
+        JdbcTemplate cursor = new JdbcTemplate(dataSource);
+        cursor.setFetchSize(exportFetchSize);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        ObjectWriter json = objectMapper.writerFor(CatalogRow.class);
+        if (format == Format.CSV) {
+            writer.write("id," + String.join(",", COLUMNS) + "\n");
+        }
+
+        AtomicLong count = new AtomicLong();
+        cursor.query("SELECT id, sku, name, description, price, category, stock, image_url FROM products ORDER BY id", rs -> {
+            CatalogRow row = new CatalogRow(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getDouble(5), rs.getString(6), rs.getInt(7), rs.getString(8));
+            try {
+                if (format == Format.CSV) {
+                    writer.write(row.id() + "," + Csv.field(row.sku()) + "," + Csv.field(row.name()) + ","
+                            + Csv.field(row.description()) + "," + row.price() + "," + Csv.field(row.category()) + ","
+                            + row.stock() + "," + Csv.field(row.imageUrl()) + "\n");
+                } else {
+                    writer.write(json.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count.incrementAndGet();
+        });
+        writer.flush();
+        return count.get();
+    }
+}
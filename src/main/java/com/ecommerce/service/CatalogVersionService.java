@@ -0,0 +1,150 @@
+package com.ecommerce.service;
+
+import com.ecommerce.service.InvalidationBus.Event;
+import com.ecommerce.service.InvalidationBus.Topic;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version counters for data that derived results depend on.
+ * Every write to products bumps the catalog version and every write to the
+ * shipping config bumps the config version, so caches can check freshness
+ * by comparing two longs instead of reloading rows.
+ *
+ * Stock changes from checkout get their own counter: they do not affect prices
+ * (so quotes stay cached) but they do change the product JSON, so they are part
+ * of the catalog ETag. ETags also carry the boot time, since counters restart at 1.
+ *
+ * Every bump is published on the {@link InvalidationBus}, and bumps published by other
+ * nodes are applied here, so their writes invalidate this node's caches too.
+ *
+ * Inside a transaction only the bus insert joins it; the local counter moves after
+ * commit. Bumping earlier would let a concurrent reader cache the old rows under the
+ * new version, and a rollback would still invalidate every node for nothing.
+ */
+@Service
+public class CatalogVersionService {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong catalogVersion = new AtomicLong(1);
+    private final AtomicLong stockVersion = new AtomicLong(1);
+    private final AtomicLong shippingConfigVersion = new AtomicLong(1);
+
+    private volatile long catalogLastModified = System.currentTimeMillis();
+    private volatile long shippingConfigLastModified = catalogLastModified;
+
+    // Absent when built outside Spring (tests, benchmarks): bumps then stay local
+    @Autowired(required = false)
+    private InvalidationBus invalidationBus;
+
+    @PostConstruct
+    public void subscribe() {
+        if (invalidationBus != null) {
+            invalidationBus.subscribe(this::onInvalidation);
+        }
+    }
+
+    // Counters restart at 1 and are per node, so a version only means something together with its epoch
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public long getShippingConfigVersion() {
+        return shippingConfigVersion.get();
+    }
+
+    public void bumpCatalogVersion() {
+        publish(Topic.CATALOG);
+        afterCommit(this::applyCatalogChange);
+    }
+
+    public void bumpStockVersion() {
+        publish(Topic.STOCK);
+        afterCommit(this::applyStockChange);
+    }
+
+    public void bumpShippingConfigVersion() {
+        publish(Topic.SHIPPING_CONFIG);
+        afterCommit(this::applyShippingConfigChange);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    // A change made on another node: apply it, but do not publish it again
+    private void onInvalidation(Event event) {
+        switch (event.topic()) {
+            case CATALOG -> applyCatalogChange();
+            case STOCK -> applyStockChange();
+            case SHIPPING_CONFIG -> applyShippingConfigChange();
+            case ALL -> {
+                applyCatalogChange();
+                applyStockChange();
+                applyShippingConfigChange();
+            }
+            default -> {
+                // not versioned here
+            }
+        }
+    }
+
+    private void publish(Topic topic) {
+        if (invalidationBus != null) {
+            invalidationBus.publish(topic, null);
+        }
+    }
+
+    private void applyCatalogChange() {
+        catalogLastModified = System.currentTimeMillis();
+        catalogVersion.incrementAndGet();
+    }
+
+    private void applyStockChange() {
+        catalogLastModified = System.currentTimeMillis();
+        stockVersion.incrementAndGet();
+    }
+
+    private void applyShippingConfigChange() {
+        shippingConfigLastModified = System.currentTimeMillis();
+        shippingConfigVersion.incrementAndGet();
+    }
+
+    // Read validators before loading the data: a racing write then only makes
+    // the ETag older than the body, which costs one extra 200 and never a stale 304
+
+    public String getCatalogETag() {
+        return "\"catalog-" + epoch + "-" + catalogVersion.get() + "." + stockVersion.get() + "\"";
+    }
+
+    public long getCatalogLastModified() {
+        return catalogLastModified;
+    }
+
+    public String getShippingConfigETag() {
+        return "\"shipping-" + epoch + "-" + shippingConfigVersion.get() + "\"";
+    }
+
+    public long getShippingConfigLastModified() {
+        return shippingConfigLastModified;
+    }
+}
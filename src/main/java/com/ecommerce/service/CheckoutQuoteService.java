@@ -0,0 +1,284 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CheckoutQuote;
+import com.ecommerce.dto.OrderCalculation;
+import com.ecommerce.dto.OrderRequest;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.util.CacheMetrics;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Prices a cart for /api/orders/calculate and hands back a signed, short-lived
+ * quote token. The token binds the user, the cart lines with their unit prices,
+ * the pricing-relevant address fields (state and zip), the totals and the
+ * catalog and shipping-config versions they were computed at, so order
+ * creation can reuse the totals instead of repricing. A token issued before a
+ * catalog or shipping-config change, by an earlier boot or by another node no
+ * longer verifies, and the order is repriced.
+ */
+@Service
+@Workload(WorkloadClass.CHECKOUT)
+public class CheckoutQuoteService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TaxService taxService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${checkout.quote.secret:${jwt.secret}}")
+    private String quoteSecret;
+
+    @Value("${checkout.quote.ttl-seconds:900}")
+    private long ttlSeconds;
+
+    @Value("${checkout.quote.cache-size:1000}")
+    private int cacheSize;
+
+    // Guarded by a ReentrantLock rather than synchronized so virtual threads never pin
+    private final ReentrantLock quoteCacheLock = new ReentrantLock();
+    private Map<String, CachedQuote> quoteCache;
+    private CacheMetrics quoteCacheMetrics;
+
+    @PostConstruct
+    public void init() {
+        quoteCache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedQuote> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        quoteCacheMetrics = new CacheMetrics(meterRegistry, "checkout-quotes", () -> quoteCache.size());
+    }
+
+    public OrderCalculation quote(OrderRequest request, String email) {
+        String key = cacheKey(request, email);
+        long catalogVersion = catalogVersionService.getCatalogVersion();
+        long configVersion = catalogVersionService.getShippingConfigVersion();
+        long now = System.currentTimeMillis();
+
+        CachedQuote cached = cachedQuote(key);
+        // Serve the memoized quote only while prices and shipping config are unchanged
+        // and at least half of its lifetime is left, so the client can still use it
+        if (cached != null
+                && cached.catalogVersion == catalogVersion
+                && cached.configVersion == configVersion
+                && cached.calculation.getQuoteExpiresAt() - now > ttlSeconds * 500) {
+            quoteCacheMetrics.hit();
+            return cached.calculation;
+        }
+        quoteCacheMetrics.miss();
+
+        CheckoutQuote quote = new CheckoutQuote();
+        quote.setEmail(email);
+        quote.setShippingState(request.getShippingState());
+        quote.setShippingZipCode(request.getShippingZipCode());
+
+        double subtotal = 0.0;
+        for (OrderRequest.OrderItemDTO item : request.getItems()) {
+            Product product = productRepository.findById(item.getProductId())
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + item.getProductId()));
+            quote.getItems().add(new CheckoutQuote.QuotedItem(product.getId(), item.getQuantity(), product.getPrice()));
+            subtotal += product.getPrice() * item.getQuantity();
+        }
+
+        double shipping = taxService.calculateShipping(subtotal);
+        double taxRate = taxService.getTaxRate(request.getShippingState(), request.getShippingZipCode());
+        double tax = subtotal * (taxRate / 100);
+        double total = subtotal + tax + shipping;
+
+        quote.setSubtotal(subtotal);
+        quote.setTax(tax);
+        quote.setTaxRate(taxRate);
+        quote.setShipping(shipping);
+        quote.setTotal(total);
+        quote.setExpiresAt(now + ttlSeconds * 1000);
+        quote.setVersionEpoch(catalogVersionService.getEpoch());
+        quote.setCatalogVersion(catalogVersion);
+        quote.setShippingConfigVersion(configVersion);
+
+        OrderCalculation calculation = new OrderCalculation(subtotal, tax, taxRate, shipping, total);
+        calculation.setQuoteToken(sign(quote));
+        calculation.setQuoteExpiresAt(quote.getExpiresAt());
+
+        cacheQuote(key, new CachedQuote(calculation, catalogVersion, configVersion));
+        return calculation;
+    }
+
+    /**
+     * Returns the quote carried by the request's token when the signature checks out,
+     * it has not expired, it was issued to this user for the same cart and pricing
+     * address, and neither the catalog nor the shipping config has changed since.
+     * Callers must still compare the quoted unit prices with the current product
+     * prices before trusting the totals.
+     */
+    public Optional<CheckoutQuote> verify(OrderRequest request, String email) {
+        String token = request.getQuoteToken();
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+
+        try {
+            String payload = token.substring(0, dot);
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, hmac(payload))) {
+                return Optional.empty();
+            }
+
+            CheckoutQuote quote = objectMapper.readValue(
+                    Base64.getUrlDecoder().decode(payload), CheckoutQuote.class);
+
+            if (quote.getExpiresAt() == null || quote.getExpiresAt() < System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            // Shipping rates are not in the token, so a config change can only be caught by its version
+            if (!catalogVersionService.getEpoch().equals(quote.getVersionEpoch())
+                    || !Long.valueOf(catalogVersionService.getCatalogVersion()).equals(quote.getCatalogVersion())
+                    || !Long.valueOf(catalogVersionService.getShippingConfigVersion()).equals(quote.getShippingConfigVersion())) {
+                return Optional.empty();
+            }
+            if (!email.equals(quote.getEmail())
+                    || !equalsIgnoreCase(quote.getShippingState(), request.getShippingState())
+                    || !equalsIgnoreCase(quote.getShippingZipCode(), request.getShippingZipCode())
+                    || !sameItems(quote.getItems(), request.getItems())) {
+                return Optional.empty();
+            }
+            return Optional.of(quote);
+
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private String sign(CheckoutQuote quote) {
+        try {
+            String payload = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(quote));
+            return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(payload));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to sign checkout quote: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] hmac(String payload) throws Exception {
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(new SecretKeySpec(quoteSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+        return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private boolean sameItems(List<CheckoutQuote.QuotedItem> quoted, List<OrderRequest.OrderItemDTO> requested) {
+        if (requested == null || quoted.size() != requested.size()) {
+            return false;
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CheckoutQuote.QuotedItem item : quoted) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        for (OrderRequest.OrderItemDTO item : requested) {
+            Integer remaining = quantities.get(item.getProductId());
+            if (remaining == null || remaining < item.getQuantity()) {
+                return false;
+            }
+            quantities.put(item.getProductId(), remaining - item.getQuantity());
+        }
+        return quantities.values().stream().allMatch(q -> q == 0);
+    }
+
+    private CachedQuote cachedQuote(String key) {
+        quoteCacheLock.lock();
+        try {
+            return quoteCache.get(key);
+        } finally {
+            quoteCacheLock.unlock();
+        }
+    }
+
+    private void cacheQuote(String key, CachedQuote quote) {
+        quoteCacheLock.lock();
+        try {
+            quoteCache.put(key, quote);
+        } finally {
+            quoteCacheLock.unlock();
+        }
+    }
+
+    private String cacheKey(OrderRequest request, String email) {
+        List<OrderRequest.OrderItemDTO> items = new ArrayList<>(request.getItems());
+        items.sort(Comparator.comparing(OrderRequest.OrderItemDTO::getProductId)
+                .thenComparing(OrderRequest.OrderItemDTO::getQuantity));
+
+        StringBuilder key = new StringBuilder(email).append('|');
+        for (OrderRequest.OrderItemDTO item : items) {
+            key.append(item.getProductId()).append('x').append(item.getQuantity()).append(',');
+        }
+        key.append('|').append(normalize(request.getShippingState()))
+           .append('|').append(normalize(request.getShippingZipCode()));
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (Exception e) {
+            return key.toString();
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toUpperCase();
+    }
+
+    private static boolean equalsIgnoreCase(String a, String b) {
+        return normalize(a).equals(normalize(b));
+    }
+
+    private static class CachedQuote {
+        private final OrderCalculation calculation;
+        private final long catalogVersion;
+        private final long configVersion;
+
+        CachedQuote(OrderCalculation calculation, long catalogVersion, long configVersion) {
+            this.calculation = calculation;
+            this.catalogVersion = catalogVersion;
+            this.configVersion = configVersion;
+        }
+    }
+}
@@ -7,23 +7,31 @@ import com.ecommerce.util.CarrierDetector;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.io.UnsupportedEncodingException;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+// Every public send is timed under ecommerce.email.send, tagged by method
 @Service
 @ConditionalOnProperty(name = "spring.mail.host")
+@Timed("ecommerce.email.send")
 public class EmailService {
     
+    private static final int STATUS_EMAIL_GROUP_SIZE = 50;
+    
     @Autowired
     private JavaMailSender mailSender;
     
@@ -454,103 +462,7 @@ public class EmailService {
     @Async
     public void sendOrderStatusUpdateEmail(Order order) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail, fromName);
-            helper.setTo(order.getUser().getEmail());
-            helper.setSubject("Order Status Update - Order #" + order.getId());
-            
-            String statusColor = "#f59e0b";
-            String statusIcon = "📦";
-            
-            switch (order.getOrderStatus()) {
-                case SHIPPED:
-                    statusColor = "#3b82f6";
-                    statusIcon = "🚚";
-                    break;
-                case DELIVERED:
-                    statusColor = "#10b981";
-                    statusIcon = "✅";
-                    break;
-                case CANCELLED:
-                    statusColor = "#ef4444";
-                    statusIcon = "❌";
-                    break;
-                default:
-                    statusColor = "#f59e0b";
-                    statusIcon = "📦";
-            }
-            
-            // Tracking section
-            String trackingSection = "";
-            if (order.getTrackingNumber() != null && !order.getTrackingNumber().isEmpty() && 
-                (order.getOrderStatus() == Order.OrderStatus.SHIPPED || order.getOrderStatus() == Order.OrderStatus.DELIVERED)) {
-                
-                // Get carrier (auto-detected or default)
-                String carrier = order.getCarrier() != null ? order.getCarrier() : 
-                                 CarrierDetector.detectCarrier(order.getTrackingNumber());
-                
-                String trackingUrl = CarrierDetector.getTrackingUrl(order.getTrackingNumber(), carrier);
-                
-                trackingSection = String.format(
-                    "<div style='background:#dbeafe;padding:20px;border-radius:12px;margin:20px 0;border-left:4px solid #3b82f6;'>" +
-                    "  <h3 style='margin:0 0 10px 0;color:#1e40af;'>📦 Tracking Information</h3>" +
-                    "  <p style='margin:5px 0;color:#1e40af;'><strong>Carrier:</strong> %s</p>" +
-                    "  <p style='margin:5px 0;color:#1e40af;'><strong>Tracking Number:</strong></p>" +
-                    "  <p style='font-family:monospace;font-size:1.3em;font-weight:bold;color:#3b82f6;margin:10px 0;'>%s</p>" +
-                    "  <a href='%s' style='display:inline-block;background:#3b82f6;color:white;padding:10px 20px;text-decoration:none;border-radius:8px;margin-top:10px;'>Track Your Package →</a>" +
-                    "</div>",
-                    carrier,
-                    order.getTrackingNumber(),
-                    trackingUrl
-                );
-            }
-            
-            String emailContent = String.format(
-                "<!DOCTYPE html>" +
-                "<html>" +
-                "<body style='margin:0;padding:0;font-family:Arial,sans-serif;background-color:#f5f5f5;'>" +
-                "  <div style='max-width:600px;margin:20px auto;background:white;'>" +
-                "    <div style='background:%s;color:white;padding:40px 20px;text-align:center;'>" +
-                "      <h1 style='margin:0;font-size:32px;'>%s Order Update</h1>" +
-                "    </div>" +
-                "    <div style='padding:30px;'>" +
-                "      <h2 style='color:#1f2937;'>Hello %s,</h2>" +
-                "      <p style='color:#555;font-size:16px;line-height:1.6;'>Your order status has been updated!</p>" +
-                "      " +
-                "      <div style='background:#f9fafb;padding:20px;border-radius:12px;margin:25px 0;border-left:4px solid %s;'>" +
-                "        <h3 style='margin:0 0 15px 0;color:#1f2937;'>Order Status</h3>" +
-                "        <table style='width:100%%;'>" +
-                "          <tr><td style='padding:5px 0;color:#555;'><strong>Order ID:</strong></td><td style='text-align:right;'>#%d</td></tr>" +
-                "          <tr><td style='padding:5px 0;color:#555;'><strong>Status:</strong></td><td style='text-align:right;'><span style='background:%s;color:white;padding:4px 12px;border-radius:4px;font-weight:bold;'>%s</span></td></tr>" +
-                "          <tr><td style='padding:5px 0;color:#555;'><strong>Payment:</strong></td><td style='text-align:right;'>%s</td></tr>" +
-                "        </table>" +
-                "      </div>" +
-                "      %s" +
-                "      <div style='text-align:center;margin:30px 0;'>" +
-                "        <a href='http://localhost:8080/web/orders' style='display:inline-block;background:#3b82f6;color:white;padding:12px 30px;text-decoration:none;border-radius:8px;font-weight:bold;'>View Order Details</a>" +
-                "      </div>" +
-                "    </div>" +
-                "    <div style='background:#1f2937;color:white;padding:20px;text-align:center;'>" +
-                "      <p style='margin:0;color:#9ca3af;'>© 2025 E-Commerce Store</p>" +
-                "    </div>" +
-                "  </div>" +
-                "</body>" +
-                "</html>",
-                statusColor,
-                statusIcon,
-                order.getUser().getName(),
-                statusColor,
-                order.getId(),
-                statusColor,
-                order.getOrderStatus(),
-                order.getPaymentStatus(),
-                trackingSection
-            );
-            
-            helper.setText(emailContent, true);
-            mailSender.send(message);
+            mailSender.send(buildOrderStatusUpdateMessage(order));
             
             System.out.println("✅ Order status update email sent to: " + order.getUser().getEmail());
             
@@ -558,6 +470,138 @@ public class EmailService {
             System.err.println("❌ Failed to send status update email: " + e.getMessage());
         }
     }
+    
+    // Bulk status changes: messages go out in groups, each group over one SMTP connection
+    @Async
+    public void sendOrderStatusUpdateEmails(List<Order> orders) {
+        int sent = 0;
+        for (int from = 0; from < orders.size(); from += STATUS_EMAIL_GROUP_SIZE) {
+            List<Order> group = orders.subList(from, Math.min(from + STATUS_EMAIL_GROUP_SIZE, orders.size()));
+            // A message that cannot be built (bad address, missing status) only costs its own customer
+            List<MimeMessage> messages = new ArrayList<>(group.size());
+            for (Order order : group) {
+                try {
+                    messages.add(buildOrderStatusUpdateMessage(order));
+                } catch (Exception e) {
+                    System.err.println("❌ Skipping status update email for order " + order.getId() + ": " + e.getMessage());
+                }
+            }
+            if (messages.isEmpty()) {
+                continue;
+            }
+            try {
+                mailSender.send(messages.toArray(new MimeMessage[0]));
+                sent += messages.size();
+            } catch (MailSendException e) {
+                // The rest of the group was delivered
+                sent += messages.size() - e.getFailedMessages().size();
+                System.err.println("❌ Failed to send " + e.getFailedMessages().size() + " status update emails: " + e.getMessage());
+            } catch (Exception e) {
+                System.err.println("❌ Failed to send " + messages.size() + " status update emails: " + e.getMessage());
+            }
+        }
+        System.out.println("✅ Order status update emails sent: " + sent + " of " + orders.size());
+    }
+    
+    private MimeMessage buildOrderStatusUpdateMessage(Order order) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        helper.setFrom(fromEmail, fromName);
+        helper.setTo(order.getUser().getEmail());
+        helper.setSubject("Order Status Update - Order #" + order.getId());
+        
+        String statusColor = "#f59e0b";
+        String statusIcon = "📦";
+        
+        switch (order.getOrderStatus()) {
+            case SHIPPED:
+                statusColor = "#3b82f6";
+                statusIcon = "🚚";
+                break;
+            case DELIVERED:
+                statusColor = "#10b981";
+                statusIcon = "✅";
+                break;
+            case CANCELLED:
+                statusColor = "#ef4444";
+                statusIcon = "❌";
+                break;
+            default:
+                statusColor = "#f59e0b";
+                statusIcon = "📦";
+        }
+        
+        // Tracking section
+        String trackingSection = "";
+        if (order.getTrackingNumber() != null && !order.getTrackingNumber().isEmpty() && 
+            (order.getOrderStatus() == Order.OrderStatus.SHIPPED || order.getOrderStatus() == Order.OrderStatus.DELIVERED)) {
+            
+            // Get carrier (auto-detected or default)
+            String carrier = order.getCarrier() != null ? order.getCarrier() : 
+                             CarrierDetector.detectCarrier(order.getTrackingNumber());
+            
+            String trackingUrl = CarrierDetector.getTrackingUrl(order.getTrackingNumber(), carrier);
+            
+            trackingSection = String.format(
+                "<div style='background:#dbeafe;padding:20px;border-radius:12px;margin:20px 0;border-left:4px solid #3b82f6;'>" +
+                "  <h3 style='margin:0 0 10px 0;color:#1e40af;'>📦 Tracking Information</h3>" +
+                "  <p style='margin:5px 0;color:#1e40af;'><strong>Carrier:</strong> %s</p>" +
+                "  <p style='margin:5px 0;color:#1e40af;'><strong>Tracking Number:</strong></p>" +
+                "  <p style='font-family:monospace;font-size:1.3em;font-weight:bold;color:#3b82f6;margin:10px 0;'>%s</p>" +
+                "  <a href='%s' style='display:inline-block;background:#3b82f6;color:white;padding:10px 20px;text-decoration:none;border-radius:8px;margin-top:10px;'>Track Your Package →</a>" +
+                "</div>",
+                carrier,
+                order.getTrackingNumber(),
+                trackingUrl
+            );
+        }
+        
+        String emailContent = String.format(
+            "<!DOCTYPE html>" +
+            "<html>" +
+            "<body style='margin:0;padding:0;font-family:Arial,sans-serif;background-color:#f5f5f5;'>" +
+            "  <div style='max-width:600px;margin:20px auto;background:white;'>" +
+            "    <div style='background:%s;color:white;padding:40px 20px;text-align:center;'>" +
+            "      <h1 style='margin:0;font-size:32px;'>%s Order Update</h1>" +
+            "    </div>" +
+            "    <div style='padding:30px;'>" +
+            "      <h2 style='color:#1f2937;'>Hello %s,</h2>" +
+            "      <p style='color:#555;font-size:16px;line-height:1.6;'>Your order status has been updated!</p>" +
+            "      " +
+            "      <div style='background:#f9fafb;padding:20px;border-radius:12px;margin:25px 0;border-left:4px solid %s;'>" +
+            "        <h3 style='margin:0 0 15px 0;color:#1f2937;'>Order Status</h3>" +
+            "        <table style='width:100%%;'>" +
+            "          <tr><td style='padding:5px 0;color:#555;'><strong>Order ID:</strong></td><td style='text-align:right;'>#%d</td></tr>" +
+            "          <tr><td style='padding:5px 0;color:#555;'><strong>Status:</strong></td><td style='text-align:right;'><span style='background:%s;color:white;padding:4px 12px;border-radius:4px;font-weight:bold;'>%s</span></td></tr>" +
+            "          <tr><td style='padding:5px 0;color:#555;'><strong>Payment:</strong></td><td style='text-align:right;'>%s</td></tr>" +
+            "        </table>" +
+            "      </div>" +
+            "      %s" +
+            "      <div style='text-align:center;margin:30px 0;'>" +
+            "        <a href='http://localhost:8080/web/orders' style='display:inline-block;background:#3b82f6;color:white;padding:12px 30px;text-decoration:none;border-radius:8px;font-weight:bold;'>View Order Details</a>" +
+            "      </div>" +
+            "    </div>" +
+            "    <div style='background:#1f2937;color:white;padding:20px;text-align:center;'>" +
+            "      <p style='margin:0;color:#9ca3af;'>© 2025 E-Commerce Store</p>" +
+            "    </div>" +
+            "  </div>" +
+            "</body>" +
+            "</html>",
+            statusColor,
+            statusIcon,
+            order.getUser().getName(),
+            statusColor,
+            order.getId(),
+            statusColor,
+            order.getOrderStatus(),
+            order.getPaymentStatus(),
+            trackingSection
+        );
+        
+        helper.setText(emailContent, true);
+        return message;
+    }
 
     // ========== NEW: RETURN REQUEST EMAILS ==========
     
@@ -0,0 +1,266 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.IdempotencyConflictException;
+import com.ecommerce.exception.IdempotencyKeyReuseException;
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.repository.IdempotencyRecordRepository;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request handler at most once per idempotency key.
+ *
+ * Duplicates on this node wait on the in-flight future of the first request.
+ * Across nodes the unique key column decides the winner; the losers poll the
+ * stored record until it completes. Successful responses are stored and replayed
+ * until they expire, failed attempts release the key so the client can retry.
+ * A key reused with a different request body is refused with 422 rather than
+ * answered with the first request's response.
+ *
+ * An IN_PROGRESS key is a lease of wait-timeout from created_at. If the owner has
+ * not finished by then (crashed node, lost connection) a waiting request takes the
+ * key over instead of failing with 409 until the record expires.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String REPLAY_HEADER = "Idempotent-Replayed";
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${orders.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${orders.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    private final TransactionTemplate requiresNew;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyService(PlatformTransactionManager transactionManager) {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Workload(WorkloadClass.CHECKOUT)
+    public ResponseEntity<?> execute(Long userId, String clientKey, Object request, Supplier<ResponseEntity<?>> handler) {
+        String key = userId + ":" + clientKey;
+        String requestHash = hash(request);
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        InFlight entry = new InFlight(requestHash, mine);
+        InFlight existing = inFlight.putIfAbsent(key, entry);
+        if (existing != null) {
+            checkSameRequest(existing.requestHash(), requestHash);
+            log.info("Duplicate request for idempotency key {} - waiting for first request", clientKey);
+            return await(existing.response());
+        }
+
+        try {
+            Claim claim = claim(key, requestHash);
+            if (claim.stored() != null) {
+                mine.complete(claim.stored());
+                return claim.stored().toResponse();
+            }
+
+            ResponseEntity<?> response;
+            try {
+                response = handler.get();
+            } catch (RuntimeException e) {
+                release(key, claim.leasedAt());
+                throw e;
+            }
+
+            if (response.getStatusCode().is2xxSuccessful()) {
+                StoredResponse result = store(key, claim.leasedAt(), response);
+                mine.complete(result);
+            } else {
+                release(key, claim.leasedAt());
+                mine.complete(StoredResponse.of(response, objectMapper));
+            }
+            return response;
+
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, entry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval-ms:3600000}")
+    @Workload(WorkloadClass.BACKGROUND)
+    public void purgeExpired() {
+        Integer removed = requiresNew.execute(status ->
+                idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            log.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    // Inserts the IN_PROGRESS marker (or takes over a stale one), or returns the stored response of an earlier request
+    private Claim claim(String key, String requestHash) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+
+        while (true) {
+            LocalDateTime now = now();
+            try {
+                requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.saveAndFlush(
+                        new IdempotencyRecord(key, requestHash, now, now.plusHours(ttlHours))));
+                return new Claim(now, null);
+            } catch (DataIntegrityViolationException e) {
+                // Another request (possibly on another node) owns the key
+            }
+
+            IdempotencyRecord record = requiresNew.execute(status ->
+                    idempotencyRecordRepository.findByIdempotencyKey(key).orElse(null));
+
+            if (record == null) {
+                continue;
+            }
+            if (record.getExpiresAt().isBefore(now)) {
+                requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.deleteIfExpired(key, now));
+                continue;
+            }
+            checkSameRequest(record.getRequestHash(), requestHash);
+            if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                return new Claim(null, new StoredResponse(record.getResponseStatus(), record.getResponseBody()));
+            }
+            if (record.getCreatedAt().plus(waitTimeoutMs, ChronoUnit.MILLIS).isBefore(now)) {
+                Integer taken = requiresNew.execute(status ->
+                        idempotencyRecordRepository.takeOver(key, record.getCreatedAt(), now));
+                if (taken != null && taken == 1) {
+                    log.warn("Took over idempotency key {} after its lease ran out", key);
+                    return new Claim(now, null);
+                }
+                continue;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new IdempotencyConflictException("A request with this idempotency key is still being processed");
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyConflictException("Interrupted while waiting for the original request");
+            }
+        }
+    }
+
+    private StoredResponse store(String key, LocalDateTime leasedAt, ResponseEntity<?> response) {
+        StoredResponse result = StoredResponse.of(response, objectMapper);
+        Integer updated = requiresNew.execute(status ->
+                idempotencyRecordRepository.complete(key, leasedAt, result.status, result.body));
+        if (updated == null || updated == 0) {
+            log.warn("Idempotency key {} was taken over while this request ran - response not stored", key);
+        }
+        return result;
+    }
+
+    private void release(String key, LocalDateTime leasedAt) {
+        requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.release(key, leasedAt));
+    }
+
+    // Records stored before request hashes existed have none and are not checked
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (storedHash != null && !Objects.equals(storedHash, requestHash)) {
+            throw new IdempotencyKeyReuseException(
+                    "This idempotency key was already used with a different request; use a new key for a new order");
+        }
+    }
+
+    // Hash of the deserialized body, so formatting and field order in the JSON do not matter
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to hash idempotent request: " + e.getMessage(), e);
+        }
+    }
+
+    // created_at is TIMESTAMP(6); leases are compared for equality, so keep no more precision than the column
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private ResponseEntity<?> await(CompletableFuture<StoredResponse> future) {
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS).toResponse();
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this idempotency key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for the original request");
+        } catch (Exception e) {
+            throw new IdempotencyConflictException("The original request failed: " + e.getMessage());
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<StoredResponse> response) {
+    }
+
+    // Either the lease this request now holds, or the stored response of an earlier request
+    private record Claim(LocalDateTime leasedAt, StoredResponse stored) {
+    }
+
+    private static class StoredResponse {
+        private final int status;
+        private final String body;
+
+        StoredResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static StoredResponse of(ResponseEntity<?> response, ObjectMapper objectMapper) {
+            try {
+                return new StoredResponse(response.getStatusCode().value(),
+                        objectMapper.writeValueAsString(response.getBody()));
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to store idempotent response: " + e.getMessage(), e);
+            }
+        }
+
+        ResponseEntity<String> toResponse() {
+            return ResponseEntity.status(HttpStatus.valueOf(status))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(REPLAY_HEADER, "true")
+                    .body(body);
+        }
+    }
+}
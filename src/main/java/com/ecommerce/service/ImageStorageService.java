@@ -0,0 +1,198 @@
+package com.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for product images.
+ *
+ * Uploads are streamed to a temp file while their SHA-256 is computed, then moved to
+ * images/<first 2 hex>/<hash>.<ext>. The same picture uploaded twice is stored once,
+ * and since a name always means the same bytes, files can be cached forever.
+ * The type comes from the file's magic bytes, never from the client.
+ */
+@Service
+public class ImageStorageService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageStorageService.class);
+
+    public static final String URL_PREFIX = "/images/products/";
+
+    private static final Pattern FILE_NAME = Pattern.compile("([0-9a-f]{64})\\.(jpg|png|gif|webp)");
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    private Path imagesDir;
+    private Path tmpDir;
+
+    public record StoredImage(String hash, String extension, String contentType, long size,
+                              Integer width, Integer height) {
+
+        public String fileName() {
+            return hash + "." + extension;
+        }
+
+        public String url() {
+            return URL_PREFIX + fileName();
+        }
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        imagesDir = Path.of(uploadDir, "images").toAbsolutePath().normalize();
+        // Same file system as the final location, so the move below is a rename
+        tmpDir = imagesDir.resolve("tmp");
+        Files.createDirectories(tmpDir);
+        log.info("Product images stored in {}", imagesDir);
+    }
+
+    /**
+     * Streams the upload to disk and files it under its content hash.
+     * @throws IllegalArgumentException if the bytes are not a JPEG, PNG, GIF or WebP image
+     */
+    public StoredImage store(InputStream upload) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            long size;
+            try (InputStream in = new DigestInputStream(upload, sha256)) {
+                size = Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String extension = sniffExtension(tmp);
+            if (extension == null) {
+                throw new IllegalArgumentException("Unsupported image type. Please upload a JPEG, PNG, GIF or WebP");
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            int[] dimensions = readDimensions(tmp);
+
+            Path target = pathFor(hash, extension);
+            if (Files.exists(target)) {
+                log.info("Image {} already stored, reusing it", hash.substring(0, 12));
+            } else {
+                Files.createDirectories(target.getParent());
+                moveIntoPlace(tmp, target);
+                log.info("Stored image {} ({} bytes)", hash.substring(0, 12), size);
+            }
+            return new StoredImage(hash, extension, CONTENT_TYPES.get(extension), size,
+                    dimensions == null ? null : dimensions[0], dimensions == null ? null : dimensions[1]);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** The stored file for a /images/products/ file name, if the name is valid and the file exists. */
+    public Optional<Path> resolve(String fileName) {
+        Matcher matcher = FILE_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        Path path = pathFor(matcher.group(1), matcher.group(2));
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public static String contentTypeOf(String fileName) {
+        return CONTENT_TYPES.getOrDefault(fileName.substring(fileName.lastIndexOf('.') + 1), "application/octet-stream");
+    }
+
+    /** Hash part of a /images/products/ file name, usable as a strong ETag. */
+    public static String hashOf(String fileName) {
+        int dot = fileName.indexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    private Path pathFor(String hash, String extension) {
+        return imagesDir.resolve(hash.substring(0, 2)).resolve(hash + "." + extension);
+    }
+
+    // Another upload of the same bytes may win the race; either copy is the right one
+    private static void moveIntoPlace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // already there
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tmp, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // already there
+            }
+        }
+    }
+
+    private static String sniffExtension(Path file) throws IOException {
+        byte[] head = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(head, 0, head.length);
+        }
+        if (read >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (read >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return "png";
+        }
+        if (read >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8') {
+            return "gif";
+        }
+        if (read >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    // Reads only the header; null when ImageIO has no reader for the format (e.g. WebP)
+    private static int[] readDimensions(Path file) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new int[] {reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.ecommerce.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Resized copies of stored product images, one per width bucket (160/320/640/1280 by default).
+ *
+ * Variants are made lazily on a small bounded pool; concurrent requests for the same
+ * variant share one resize. Results live in a disk cache that is trimmed least recently
+ * used first once it passes its size limit. Whenever a variant cannot be had in time
+ * (pool full, slow resize, format ImageIO cannot write) callers get empty and serve the
+ * original, which is always correct, just bigger.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private static final Pattern VARIANT_NAME = Pattern.compile("([0-9a-f]{64}-\\d+)\\.(jpg|png)");
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    // Falls back to the global registry when built outside Spring (tests)
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Value("${app.images.variant-widths:160,320,640,1280}")
+    private int[] widths;
+
+    @Value("${app.images.variant-quality:0.82}")
+    private float quality;
+
+    @Value("${app.images.variant-cache-dir:${file.upload-dir:./uploads}/variants}")
+    private String cacheDirSetting;
+
+    @Value("${app.images.variant-cache-max-mb:512}")
+    private long cacheMaxMb;
+
+    @Value("${app.images.resize-threads:2}")
+    private int resizeThreads;
+
+    @Value("${app.images.resize-queue-capacity:64}")
+    private int resizeQueueCapacity;
+
+    @Value("${app.images.resize-timeout-ms:5000}")
+    private long resizeTimeoutMs;
+
+    public record Variant(Path path, String contentType) {
+    }
+
+    private Path cacheDir;
+    private ThreadPoolExecutor resizePool;
+
+    private final Map<String, CompletableFuture<Optional<Path>>> inFlight = new ConcurrentHashMap<>();
+    // Variants that are not worth making: the original is already that small, or unreadable
+    private final Set<String> useOriginal = ConcurrentHashMap.newKeySet();
+
+    // key (<hash>-<width>) -> file, least recently used first; guarded by itself
+    private final LinkedHashMap<String, CachedFile> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long cacheBytes;
+
+    private record CachedFile(Path path, long size) {
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Arrays.sort(widths);
+        cacheDir = Path.of(cacheDirSetting).toAbsolutePath().normalize();
+        Files.createDirectories(cacheDir);
+        loadCacheIndex();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        resizePool = new ThreadPoolExecutor(
+                resizeThreads, resizeThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(resizeQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-resize-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        resizePool.allowCoreThreadTimeOut(true);
+
+        new ExecutorServiceMetrics(resizePool, "image-resize", List.of()).bindTo(meterRegistry);
+        Gauge.builder("ecommerce.images.variant-cache.bytes", this, service -> service.cacheBytes)
+                .description("Disk used by resized product image variants")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        resizePool.shutdownNow();
+    }
+
+    /** Smallest bucket at least as wide as requested, or the largest bucket. */
+    public int bucketFor(int requestedWidth) {
+        for (int width : widths) {
+            if (width >= requestedWidth) {
+                return width;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    /**
+     * The variant of a stored image (a /images/products/ file name) for a width bucket,
+     * making it if needed. Empty means "serve the original".
+     */
+    public Optional<Variant> variant(String fileName, int width) {
+        String key = ImageStorageService.hashOf(fileName) + "-" + width;
+        if (useOriginal.contains(key)) {
+            return Optional.empty();
+        }
+        CachedFile cached = lookup(key);
+        if (cached != null) {
+            return Optional.of(toVariant(cached.path()));
+        }
+
+        try {
+            return flight(fileName, key, width)
+                    .get(resizeTimeoutMs, TimeUnit.MILLISECONDS)
+                    .map(ImageVariantService::toVariant);
+        } catch (TimeoutException e) {
+            // The resize keeps going; the next request gets the cached copy
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Queues every bucket of a freshly stored image so the catalog never waits on a resize. */
+    public void pregenerate(String fileName) {
+        for (int width : widths) {
+            String key = ImageStorageService.hashOf(fileName) + "-" + width;
+            if (!useOriginal.contains(key) && lookup(key) == null) {
+                flight(fileName, key, width);
+            }
+        }
+    }
+
+    // One resize per key at a time; late arrivals wait on the same future
+    private CompletableFuture<Optional<Path>> flight(String fileName, String key, int width) {
+        CompletableFuture<Optional<Path>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<Path>> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            resizePool.execute(() -> {
+                Optional<Path> result = Optional.empty();
+                try {
+                    result = generate(fileName, key, width);
+                } catch (Exception e) {
+                    // Disk full, cache dir gone, out of memory...: serve the original now, retry next time
+                    log.error("Resizing {} to {}px failed", fileName, width, e);
+                } finally {
+                    // Out of inFlight before waiters wake, so a retry starts a new resize
+                    inFlight.remove(key, mine);
+                    mine.complete(result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool saturated: shed the work, the original is served meanwhile
+            inFlight.remove(key, mine);
+            mine.complete(Optional.empty());
+        }
+        return mine;
+    }
+
+    // ========================================
+    // RESIZING
+    // ========================================
+
+    private Optional<Path> generate(String fileName, String key, int width) throws IOException {
+        Optional<Path> original = imageStorageService.resolve(fileName);
+        if (original.isEmpty()) {
+            return Optional.empty();
+        }
+
+        BufferedImage source;
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.get().toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                useOriginal.add(key);
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sourceWidth = reader.getWidth(0);
+                if (sourceWidth <= width) {
+                    useOriginal.add(key);
+                    return Optional.empty();
+                }
+                // Let the decoder skip pixels we would throw away anyway (keeps 2x for quality)
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = sourceWidth / (width * 2);
+                if (subsampling >= 2) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                source = reader.read(0, param);
+            } catch (IIOException | RuntimeException e) {
+                // Corrupt or truncated file; its name is its hash, so retrying decodes the same bytes
+                log.warn("Cannot decode {}, serving the original: {}", fileName, e.getMessage());
+                useOriginal.add(key);
+                return Optional.empty();
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        boolean alpha = source.getColorModel().hasAlpha();
+        BufferedImage resized = scale(source, width, alpha);
+        String extension = alpha ? "png" : "jpg";
+
+        Path target = cacheDir.resolve(key + "." + extension);
+        Path tmp = Files.createTempFile(cacheDir, key, ".part");
+        try {
+            if (alpha) {
+                ImageIO.write(resized, "png", tmp.toFile());
+            } else {
+                writeJpeg(resized, tmp);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        remember(key, target, Files.size(target));
+        return Optional.of(target);
+    }
+
+    // Halves with bilinear filtering until close, then one last step: much less aliasing than one big jump
+    private static BufferedImage scale(BufferedImage source, int width, boolean alpha) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = currentWidth == width ? height : Math.max(height, currentHeight / 2);
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = step;
+        } while (currentWidth > width);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static Variant toVariant(Path path) {
+        return new Variant(path, ImageStorageService.contentTypeOf(path.getFileName().toString()));
+    }
+
+    // ========================================
+    // DISK CACHE
+    // ========================================
+
+    private CachedFile lookup(String key) {
+        synchronized (cache) {
+            CachedFile cached = cache.get(key);
+            if (cached != null && !Files.exists(cached.path())) {
+                // Deleted behind our back (e.g. someone cleaned the directory)
+                cache.remove(key);
+                cacheBytes -= cached.size();
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private void remember(String key, Path path, long size) {
+        synchronized (cache) {
+            CachedFile previous = cache.put(key, new CachedFile(path, size));
+            cacheBytes += size - (previous == null ? 0 : previous.size());
+
+            long maxBytes = cacheMaxMb * 1024 * 1024;
+            Iterator<Map.Entry<String, CachedFile>> eldest = cache.entrySet().iterator();
+            while (cacheBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, CachedFile> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(entry.getValue().path());
+                } catch (IOException e) {
+                    log.warn("Could not evict {}: {}", entry.getValue().path(), e.getMessage());
+                }
+                cacheBytes -= entry.getValue().size();
+                eldest.remove();
+            }
+        }
+    }
+
+    // Rebuilds the LRU order from file times after a restart (oldest first)
+    private void loadCacheIndex() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            List<Path> sorted = files
+                    .filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(ImageVariantService::lastModified))
+                    .toList();
+            for (Path file : sorted) {
+                Matcher matcher = VARIANT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    remember(matcher.group(1), file, Files.size(file));
+                } else if (file.getFileName().toString().endsWith(".part")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        if (!cache.isEmpty()) {
+            log.info("Image variant cache: {} files, {} KB", cache.size(), cacheBytes / 1024);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
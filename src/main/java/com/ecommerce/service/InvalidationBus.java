@@ -0,0 +1,33 @@
+package com.ecommerce.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Tells the other application nodes that data they may have cached has changed.
+ *
+ * A node applies its own changes locally before publishing, so buses never hand a
+ * node its own events back. ALL is never published; a bus delivers it locally when
+ * it may have missed events and every cache has to be reset.
+ *
+ * Selected with app.invalidation.bus: "jdbc" (default, {@link JdbcInvalidationBus})
+ * or "local" ({@link LocalInvalidationBus}, single node and tests).
+ */
+public interface InvalidationBus {
+
+    enum Topic {
+        CATALOG, STOCK, SHIPPING_CONFIG, USER, ALL
+    }
+
+    /**
+     * @param key what changed within the topic (e.g. a user's email), or null for the whole topic
+     * @param publishedAt publisher's clock, epoch millis
+     */
+    record Event(Topic topic, String key, String originNode, long publishedAt) {
+    }
+
+    void publish(Topic topic, String key);
+
+    void subscribe(Consumer<Event> listener);
+
+    String getNodeId();
+}
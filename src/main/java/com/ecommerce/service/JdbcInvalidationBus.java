@@ -0,0 +1,166 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.CacheInvalidation;
+import com.ecommerce.repository.CacheInvalidationRepository;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Database-backed bus: publishing inserts a row into cache_invalidations and every
+ * node polls for rows it has not seen. Works on PostgreSQL and H2 alike.
+ *
+ * The insert joins the caller's transaction, so other nodes only see an invalidation
+ * once the change it describes is committed. Because of that, ids can become visible
+ * out of order; ids skipped by a poll are re-checked for app.invalidation.gap-timeout-ms
+ * before being given up as rollbacks.
+ *
+ * A node that cannot keep up (a full batch pending, or no successful poll for
+ * app.invalidation.max-lag-ms, e.g. while the database was unreachable) may have
+ * missed events, so it skips to the newest row and resets all of its caches.
+ */
+@Service
+@ConditionalOnProperty(name = "app.invalidation.bus", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcInvalidationBus extends AbstractInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcInvalidationBus.class);
+
+    private final CacheInvalidationRepository repository;
+    private final TransactionTemplate requiresNew;
+
+    @Value("${app.invalidation.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${app.invalidation.gap-timeout-ms:30000}")
+    private long gapTimeoutMs = 30000;
+
+    @Value("${app.invalidation.max-lag-ms:30000}")
+    private long maxLagMs = 30000;
+
+    @Value("${app.invalidation.retention-minutes:60}")
+    private long retentionMinutes = 60;
+
+    // Only touched by poll(), which the scheduler never runs concurrently
+    private long lastSeenId;
+    private long lastPollAt;
+    private final Map<Long, Long> gaps = new HashMap<>();   // id -> when it was first missed
+    private boolean pollFailing;
+
+    @Autowired
+    public JdbcInvalidationBus(CacheInvalidationRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.invalidation.node-id:}") String nodeId,
+                               MeterRegistry meterRegistry) {
+        super("jdbc", nodeId, meterRegistry);
+        this.repository = repository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Caches start empty, so there is nothing older to catch up on
+    @PostConstruct
+    public void start() {
+        lastSeenId = repository.findMaxId();
+        lastPollAt = System.currentTimeMillis();
+        log.info("Invalidation bus (jdbc) started as node {} at id {}", getNodeId(), lastSeenId);
+    }
+
+    @Override
+    public void publish(Topic topic, String key) {
+        countPublished(topic);
+        repository.save(new CacheInvalidation(topic.name(), key, getNodeId(), System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.invalidation.poll-interval-ms:1000}")
+    @Workload(WorkloadClass.BACKGROUND)
+    public synchronized void poll() {
+        long now = System.currentTimeMillis();
+        List<CacheInvalidation> rows;
+        try {
+            rows = new ArrayList<>(repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, PageRequest.of(0, batchSize)));
+            if (!gaps.isEmpty()) {
+                rows.addAll(repository.findByIdIn(gaps.keySet()));
+            }
+        } catch (RuntimeException e) {
+            if (!pollFailing) {
+                log.error("Invalidation poll failed: {}", e.getMessage());
+                pollFailing = true;
+            }
+            return;
+        }
+        pollFailing = false;
+
+        if (now - lastPollAt > maxLagMs) {
+            skipToNewest("no successful poll for " + (now - lastPollAt) + " ms");
+            return;
+        }
+        lastPollAt = now;
+
+        List<Event> events = new ArrayList<>();
+        long newest = lastSeenId;
+        for (CacheInvalidation row : rows) {
+            long id = row.getId();
+            if (id > newest) {
+                if (id - newest - 1 > batchSize) {
+                    skipToNewest("gap of " + (id - newest - 1) + " ids");
+                    return;
+                }
+                // Ids between the last one seen and this one may still be in open transactions
+                for (long missing = newest + 1; missing < id; missing++) {
+                    gaps.putIfAbsent(missing, now);
+                }
+                newest = id;
+            } else {
+                gaps.remove(id);
+            }
+            if (!getNodeId().equals(row.getOriginNode())) {
+                events.add(new Event(Topic.valueOf(row.getTopic()), row.getCacheKey(),
+                        row.getOriginNode(), row.getPublishedAt()));
+            }
+        }
+        if (rows.size() >= batchSize) {
+            skipToNewest(rows.size() + " events pending");
+            return;
+        }
+        lastSeenId = newest;
+        gaps.values().removeIf(firstMissed -> now - firstMissed > gapTimeoutMs);
+
+        if (!events.isEmpty()) {
+            deliver(events);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.invalidation.purge-interval-ms:600000}")
+    @Workload(WorkloadClass.BACKGROUND)
+    public void purge() {
+        long cutoff = System.currentTimeMillis() - retentionMinutes * 60_000;
+        Integer removed = requiresNew.execute(status -> repository.deletePublishedBefore(cutoff));
+        if (removed != null && removed > 0) {
+            log.info("Purged {} old cache invalidations", removed);
+        }
+    }
+
+    private void skipToNewest(String reason) {
+        lastSeenId = repository.findMaxId();
+        lastPollAt = System.currentTimeMillis();
+        gaps.clear();
+        resetAll(reason);
+    }
+}
@@ -5,6 +5,7 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -24,6 +25,7 @@ public class JwtService {
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    @Timed("ecommerce.jwt.verify")
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -49,6 +51,7 @@ public class JwtService {
         return extractExpiration(token).before(new Date());
     }
     
+    @Timed("ecommerce.jwt.verify")
     public Boolean validateToken(String token, UserDetails userDetails) {
         final String username = extractUsername(token);
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
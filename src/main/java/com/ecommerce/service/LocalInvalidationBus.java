@@ -0,0 +1,60 @@
+package com.ecommerce.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-JVM bus: events go synchronously to every other bus on the same channel in this
+ * JVM. With one application context that is nobody, which is exactly right for a
+ * single node; tests can start several contexts on one channel to act as a cluster.
+ */
+@Service
+@ConditionalOnProperty(name = "app.invalidation.bus", havingValue = "local")
+public class LocalInvalidationBus extends AbstractInvalidationBus {
+
+    private static final Map<String, Set<LocalInvalidationBus>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+
+    @Autowired
+    public LocalInvalidationBus(@Value("${app.invalidation.local-channel:default}") String channel,
+                                @Value("${app.invalidation.node-id:}") String nodeId,
+                                MeterRegistry meterRegistry) {
+        super("local", nodeId, meterRegistry);
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void join() {
+        CHANNELS.computeIfAbsent(channel, name -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @PreDestroy
+    public void leave() {
+        Set<LocalInvalidationBus> members = CHANNELS.get(channel);
+        if (members != null) {
+            members.remove(this);
+        }
+    }
+
+    @Override
+    public void publish(Topic topic, String key) {
+        countPublished(topic);
+        Event event = new Event(topic, key, getNodeId(), System.currentTimeMillis());
+        for (LocalInvalidationBus member : CHANNELS.getOrDefault(channel, Set.of())) {
+            if (member != this) {
+                member.deliver(List.of(event));
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-JVM token buckets. Each bucket is a single AtomicLong holding the time its next token
+ * is due (GCRA, the "virtual scheduling" form of a token bucket), updated with CAS, so no
+ * request ever takes a lock. A bucket whose due time has passed is full again and carries no
+ * information, so idle buckets are simply dropped.
+ *
+ * Keys are spread over stripes that are each capped at max-buckets / stripes entries; a full
+ * stripe first drops its idle buckets and, under a flood of distinct keys, then arbitrary ones
+ * (which start over full), down to 90% of the cap. Memory stays bounded whatever callers send.
+ */
+@Service
+@ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimiter implements RateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final int maxPerStripe;
+    private final int evictBatch;
+    private final Counter evictions;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public LocalRateLimiter(@Value("${app.rate-limit.max-buckets:100000}") int maxBuckets,
+                            @Value("${app.rate-limit.stripes:16}") int stripeCount,
+                            MeterRegistry meterRegistry) {
+        // Power of two so a stripe is picked with a mask
+        int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ConcurrentHashMap[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.maxPerStripe = Math.max(1, maxBuckets / count);
+        this.evictBatch = Math.max(1, maxPerStripe / 10);
+        this.evictions = Counter.builder("ecommerce.ratelimit.evictions")
+                .description("Buckets dropped before going idle because their stripe was full")
+                .register(meterRegistry);
+        Gauge.builder("ecommerce.ratelimit.buckets", this, LocalRateLimiter::size)
+                .description("Token buckets currently tracked")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long tryAcquire(String key, Limit limit) {
+        long now = System.nanoTime();
+        long interval = limit.period().toNanos() / limit.capacity();
+        long tolerance = interval * (limit.capacity() - 1);
+
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long due = bucket.get();
+            long start = due - now > 0 ? due : now;
+            long wait = start - tolerance - now;
+            if (wait > 0) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait + 999_999));
+            }
+            if (bucket.compareAndSet(due, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    // Full buckets are indistinguishable from new ones. A request racing the sweep may update a
+    // bucket just removed, which costs at most one extra token
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            stripe.values().removeIf(bucket -> bucket.get() - now <= 0);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        int hash = key.hashCode();
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        AtomicLong bucket = stripe.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (stripe.size() >= maxPerStripe) {
+            makeRoom(stripe, now);
+        }
+        return stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+
+    // One pass frees a tenth of the stripe, so a flood of new keys pays for a scan once per
+    // evictBatch inserts rather than on every insert. Idle buckets go first: dropping them loses nothing
+    private void makeRoom(ConcurrentHashMap<String, AtomicLong> stripe, long now) {
+        int target = maxPerStripe - evictBatch;
+        stripe.values().removeIf(bucket -> bucket.get() - now <= 0);
+        Iterator<AtomicLong> buckets = stripe.values().iterator();
+        while (stripe.size() > target && buckets.hasNext()) {
+            buckets.next();
+            buckets.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.ArchivedOrder;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.ArchivedOrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps orders/order_items down to the working set. Orders that are finished (delivered, cancelled or
+ * refunded) and older than app.orders.archive.after-days are moved, in batches, into order_archive as one
+ * compressed document each and removed from the hot tables, along with their index entries.
+ * Archived orders stay readable: {@link OrderService#getOrderById} and the order history fall back to
+ * this service, which rebuilds detached {@link Order} objects. They can no longer be changed.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    /** What is stored per order; unknown fields are ignored, so columns can be added later. */
+    public record ArchivedOrderData(Long id, Long userId, Double totalAmount, Double subtotal, Double tax,
+                                    Double shipping, String orderStatus, String paymentStatus, String paymentMethod,
+                                    String paymentId, String trackingNumber, String carrier, String shippingStreet,
+                                    String shippingCity, String shippingState, String shippingZipCode,
+                                    String shippingCountry, LocalDateTime createdAt, LocalDateTime returnRequestDate,
+                                    String returnTrackingNumber, String returnCarrier, String returnStatus,
+                                    LocalDateTime refundIssuedDate, Double refundAmount, List<ArchivedItem> items) {
+    }
+
+    public record ArchivedItem(Long id, Long productId, String productName, Integer quantity, Double price) {
+    }
+
+    // Orders still being worked on (or with a return in progress) stay hot however old they are
+    // Every node runs the archive job. The row locks keep two nodes, or a concurrent update of the order,
+    // from acting on the same order; SKIP LOCKED lets each node carry on with the orders nobody holds
+    private static final String CANDIDATES_SQL =
+            "SELECT * FROM orders WHERE created_at < ?"
+                    + " AND order_status IN ('DELIVERED', 'CANCELLED', 'RETURNED')"
+                    + " AND (return_status IS NULL OR return_status = 'REFUND_ISSUED')"
+                    + " ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_archive (id, user_id, created_at, order_status, payment_status, total_amount,"
+                    + " archived_at, payload) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.orders.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.orders.archive.after-days:120}")
+    private int afterDays;
+
+    @Value("${app.orders.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.orders.archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter archivedCounter;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        archivedCounter = Counter.builder("ecommerce.orders.archived")
+                .description("Orders moved to order_archive")
+                .register(meterRegistry);
+    }
+
+    // ==================== ARCHIVING ====================
+
+    @Scheduled(cron = "${app.orders.archive.cron:0 30 3 * * *}")
+    @Workload(WorkloadClass.BACKGROUND)
+    public void archiveColdOrders() {
+        if (enabled) {
+            archiveOrdersCreatedBefore(LocalDateTime.now().minusDays(afterDays));
+        }
+    }
+
+    /** Archives eligible orders created before cutoff; returns how many were moved. */
+    @Workload(WorkloadClass.BACKGROUND)
+    public int archiveOrdersCreatedBefore(LocalDateTime cutoff) {
+        long started = System.currentTimeMillis();
+        int total = 0;
+        // One transaction per batch keeps locks short; a batch is archived completely or not at all
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Archived {} orders created before {} in {} ms", total, cutoff.toLocalDate(),
+                    System.currentTimeMillis() - started);
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        Map<Long, Map<String, Object>> orders = new LinkedHashMap<>();
+        jdbcTemplate.query(CANDIDATES_SQL, rs -> {
+            orders.put(rs.getLong("id"), row(rs));
+        }, Timestamp.valueOf(cutoff), batchSize);
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", orders.keySet());
+        Map<Long, List<ArchivedItem>> items = new LinkedHashMap<>();
+        named.query("SELECT * FROM order_items WHERE order_id IN (:ids) ORDER BY id", ids, rs -> {
+            items.computeIfAbsent(rs.getLong("order_id"), id -> new ArrayList<>())
+                    .add(new ArchivedItem(rs.getLong("id"), rs.getLong("product_id"), rs.getString("product_name"),
+                            rs.getInt("quantity"), rs.getDouble("price")));
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> inserts = new ArrayList<>(orders.size());
+        for (Map.Entry<Long, Map<String, Object>> entry : orders.entrySet()) {
+            ArchivedOrderData data = toData(entry.getValue(), items.getOrDefault(entry.getKey(), List.of()));
+            inserts.add(new Object[]{data.id(), data.userId(), Timestamp.valueOf(data.createdAt()), data.orderStatus(),
+                    data.paymentStatus(), data.totalAmount(), Timestamp.valueOf(now), encode(data)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        named.update("DELETE FROM order_items WHERE order_id IN (:ids)", ids);
+        named.update("DELETE FROM orders WHERE id IN (:ids)", ids);
+
+        archivedCounter.increment(orders.size());
+        return orders.size();
+    }
+
+    private static Map<String, Object> row(ResultSet rs) throws SQLException {
+        Map<String, Object> row = new HashMap<>();
+        for (int column = 1; column <= rs.getMetaData().getColumnCount(); column++) {
+            row.put(rs.getMetaData().getColumnLabel(column).toLowerCase(), rs.getObject(column));
+        }
+        return row;
+    }
+
+    private static ArchivedOrderData toData(Map<String, Object> row, List<ArchivedItem> items) {
+        return new ArchivedOrderData(number(row, "id", Number::longValue), number(row, "user_id", Number::longValue),
+                number(row, "total_amount", Number::doubleValue), number(row, "subtotal", Number::doubleValue),
+                number(row, "tax", Number::doubleValue), number(row, "shipping", Number::doubleValue),
+                text(row, "order_status"), text(row, "payment_status"), text(row, "payment_method"),
+                text(row, "payment_id"), text(row, "tracking_number"), text(row, "carrier"),
+                text(row, "shipping_street"), text(row, "shipping_city"), text(row, "shipping_state"),
+                text(row, "shipping_zip_code"), text(row, "shipping_country"), dateTime(row, "created_at"),
+                dateTime(row, "return_request_date"), text(row, "return_tracking_number"),
+                text(row, "return_carrier"), text(row, "return_status"), dateTime(row, "refund_issued_date"),
+                number(row, "refund_amount", Number::doubleValue), items);
+    }
+
+    private static <T> T number(Map<String, Object> row, String column, Function<Number, T> convert) {
+        Object value = row.get(column);
+        return value != null ? convert.apply((Number) value) : null;
+    }
+
+    private static String text(Map<String, Object> row, String column) {
+        Object value = row.get(column);
+        return value != null ? value.toString() : null;
+    }
+
+    private static LocalDateTime dateTime(Map<String, Object> row, String column) {
+        Object value = row.get(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    // ==================== PAYLOAD ====================
+
+    byte[] encode(ArchivedOrderData data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public ArchivedOrderData decode(byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, ArchivedOrderData.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ==================== READS ====================
+
+    @Transactional(readOnly = true)
+    public Optional<Order> findOrder(Long id) {
+        return archivedOrderRepository.findById(id).map(archived -> {
+            ArchivedOrderData data = decode(archived.getPayload());
+            User user = userRepository.findById(data.userId()).orElse(null);
+            return toOrders(List.of(data), user).get(0);
+        });
+    }
+
+    /** The user's archived orders, newest first. */
+    @Transactional(readOnly = true)
+    public List<Order> findUserOrders(User user) {
+        List<ArchivedOrderData> data = archivedOrderRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).stream()
+                .map(archived -> decode(archived.getPayload()))
+                .toList();
+        return data.isEmpty() ? List.of() : toOrders(data, user);
+    }
+
+    // Products are looked up together; an item whose product has since been deleted keeps its name only
+    private List<Order> toOrders(Collection<ArchivedOrderData> data, User user) {
+        Set<Long> productIds = new HashSet<>();
+        data.forEach(order -> order.items().forEach(item -> productIds.add(item.productId())));
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<Order> orders = new ArrayList<>(data.size());
+        for (ArchivedOrderData archived : data) {
+            Order order = new Order();
+            order.setId(archived.id());
+            order.setUser(user);
+            order.setTotalAmount(archived.totalAmount());
+            order.setSubtotal(archived.subtotal());
+            order.setTax(archived.tax());
+            order.setShipping(archived.shipping());
+            order.setOrderStatus(archived.orderStatus() != null ? Order.OrderStatus.valueOf(archived.orderStatus()) : null);
+            order.setPaymentStatus(archived.paymentStatus() != null ? Order.PaymentStatus.valueOf(archived.paymentStatus()) : null);
+            order.setPaymentMethod(archived.paymentMethod());
+            order.setPaymentId(archived.paymentId());
+            order.setTrackingNumber(archived.trackingNumber());
+            order.setCarrier(archived.carrier());
+            order.setShippingStreet(archived.shippingStreet());
+            order.setShippingCity(archived.shippingCity());
+            order.setShippingState(archived.shippingState());
+            order.setShippingZipCode(archived.shippingZipCode());
+            order.setShippingCountry(archived.shippingCountry());
+            order.setCreatedAt(archived.createdAt());
+            order.setReturnRequestDate(archived.returnRequestDate());
+            order.setReturnTrackingNumber(archived.returnTrackingNumber());
+            order.setReturnCarrier(archived.returnCarrier());
+            order.setReturnStatus(archived.returnStatus() != null ? Order.ReturnStatus.valueOf(archived.returnStatus()) : null);
+            order.setRefundIssuedDate(archived.refundIssuedDate());
+            order.setRefundAmount(archived.refundAmount());
+
+            for (ArchivedItem archivedItem : archived.items()) {
+                Product product = products.get(archivedItem.productId());
+                if (product == null) {
+                    product = new Product();
+                    product.setId(archivedItem.productId());
+                    product.setName(archivedItem.productName());
+                }
+                order.getItems().add(new OrderItem(archivedItem.id(), order, product, archivedItem.productName(),
+                        archivedItem.quantity(), archivedItem.price()));
+            }
+            orders.add(order);
+        }
+        orders.sort(Comparator.comparing(Order::getCreatedAt).reversed());
+        return orders;
+    }
+}
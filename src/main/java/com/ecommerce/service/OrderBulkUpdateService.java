@@ -0,0 +1,193 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.BulkOrderStatusUpdate;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.User;
+import com.ecommerce.util.CarrierDetector;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies status, payment and tracking changes to many orders at once (e.g. marking a whole pickup as
+ * shipped). Each chunk is one JDBC batch in its own transaction, so a large request neither holds locks
+ * for long nor makes a round-trip per order. Each chunk's customer emails go to the mail pipeline as soon
+ * as that chunk commits; a failing chunk stops the run and the result says what was and wasn't applied.
+ */
+@Service
+public class OrderBulkUpdateService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBulkUpdateService.class);
+
+    /**
+     * updated, notFound and failed are order ids; archived orders count as not found, they can no longer change.
+     * When a chunk fails, its orders and every later one are in failed (unchanged) and error says why.
+     */
+    public record Result(List<Long> updated, List<Long> notFound, List<Long> failed, int emailsQueued, String error) {
+    }
+
+    // Null parameters keep the current value
+    private static final String UPDATE_SQL =
+            "UPDATE orders SET order_status = COALESCE(?, order_status), payment_status = COALESCE(?, payment_status),"
+                    + " tracking_number = COALESCE(?, tracking_number), carrier = COALESCE(?, carrier) WHERE id = ?";
+
+    private static final int[] UPDATE_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT};
+
+    // Only what the status email shows
+    private static final String NOTIFY_SQL =
+            "SELECT o.id, o.order_status, o.payment_status, o.tracking_number, o.carrier, u.id AS user_id, u.name,"
+                    + " u.email FROM orders o JOIN users u ON u.id = o.user_id WHERE o.id IN (:ids)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private EmailService emailService;
+
+    @Value("${app.orders.bulk-update.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.orders.bulk-update.max-orders:10000}")
+    private int maxOrders;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Workload(WorkloadClass.ADMIN)
+    public Result updateStatuses(List<BulkOrderStatusUpdate.Item> items) {
+        validate(items);
+        long started = System.currentTimeMillis();
+
+        List<Long> updated = new ArrayList<>(items.size());
+        List<Long> notFound = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        String error = null;
+        int emailsQueued = 0;
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<BulkOrderStatusUpdate.Item> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            List<Long> chunkUpdated = new ArrayList<>(chunk.size());
+            List<Long> chunkNotFound = new ArrayList<>();
+            List<Order> notifications = new ArrayList<>(chunk.size());
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> updateChunk(chunk, chunkUpdated, chunkNotFound, notifications));
+            } catch (RuntimeException e) {
+                // The chunk rolled back; earlier chunks stay applied and the rest is not attempted
+                for (BulkOrderStatusUpdate.Item item : items.subList(from, items.size())) {
+                    failed.add(item.getOrderId());
+                }
+                error = e.getMessage();
+                log.error("Bulk status update stopped at order {}: {}", chunk.get(0).getOrderId(), error);
+                break;
+            }
+            updated.addAll(chunkUpdated);
+            notFound.addAll(chunkNotFound);
+            // Only committed changes are announced
+            if (emailService != null && !notifications.isEmpty()) {
+                emailService.sendOrderStatusUpdateEmails(notifications);
+                emailsQueued += notifications.size();
+            }
+        }
+
+        log.info("Bulk status update: {} orders updated, {} not found, {} failed, {} emails queued in {} ms",
+                updated.size(), notFound.size(), failed.size(), emailsQueued, System.currentTimeMillis() - started);
+        return new Result(updated, notFound, failed, emailsQueued, error);
+    }
+
+    private void validate(List<BulkOrderStatusUpdate.Item> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("No orders to update");
+        }
+        if (items.size() > maxOrders) {
+            throw new IllegalArgumentException("At most " + maxOrders + " orders can be updated at once");
+        }
+        Set<Long> seen = new HashSet<>();
+        for (BulkOrderStatusUpdate.Item item : items) {
+            if (item.getOrderId() == null) {
+                throw new IllegalArgumentException("orderId is required");
+            }
+            if (!seen.add(item.getOrderId())) {
+                throw new IllegalArgumentException("Order " + item.getOrderId() + " is listed more than once");
+            }
+            if (item.getOrderStatus() == null && item.getPaymentStatus() == null && trackingNumber(item) == null) {
+                throw new IllegalArgumentException("Nothing to change for order " + item.getOrderId());
+            }
+        }
+    }
+
+    private void updateChunk(List<BulkOrderStatusUpdate.Item> chunk, List<Long> updated, List<Long> notFound,
+                             List<Order> notifications) {
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        for (BulkOrderStatusUpdate.Item item : chunk) {
+            String trackingNumber = trackingNumber(item);
+            rows.add(new Object[]{
+                    item.getOrderStatus() != null ? item.getOrderStatus().name() : null,
+                    item.getPaymentStatus() != null ? item.getPaymentStatus().name() : null,
+                    trackingNumber,
+                    trackingNumber != null ? CarrierDetector.detectCarrier(trackingNumber) : null,
+                    item.getOrderId()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, rows, UPDATE_TYPES);
+
+        for (int i = 0; i < counts.length; i++) {
+            Long orderId = chunk.get(i).getOrderId();
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                updated.add(orderId);
+            } else {
+                notFound.add(orderId);
+            }
+        }
+        if (updated.isEmpty()) {
+            return;
+        }
+
+        // Read back inside the transaction so the emails show exactly what was committed
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(NOTIFY_SQL, new MapSqlParameterSource("ids", updated),
+                rs -> {
+                    User user = new User();
+                    user.setId(rs.getLong("user_id"));
+                    user.setName(rs.getString("name"));
+                    user.setEmail(rs.getString("email"));
+
+                    Order order = new Order();
+                    order.setId(rs.getLong("id"));
+                    order.setUser(user);
+                    String orderStatus = rs.getString("order_status");
+                    String paymentStatus = rs.getString("payment_status");
+                    order.setOrderStatus(orderStatus != null ? Order.OrderStatus.valueOf(orderStatus) : null);
+                    order.setPaymentStatus(paymentStatus != null ? Order.PaymentStatus.valueOf(paymentStatus) : null);
+                    order.setTrackingNumber(rs.getString("tracking_number"));
+                    order.setCarrier(rs.getString("carrier"));
+                    notifications.add(order);
+                });
+    }
+
+    private static String trackingNumber(BulkOrderStatusUpdate.Item item) {
+        String trackingNumber = item.getTrackingNumber();
+        return trackingNumber != null && !trackingNumber.trim().isEmpty() ? trackingNumber.trim() : null;
+    }
+}
@@ -0,0 +1,305 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order.OrderStatus;
+import com.ecommerce.service.CatalogTransferService.Format;
+import com.ecommerce.service.OrderArchiveService.ArchivedItem;
+import com.ecommerce.service.OrderArchiveService.ArchivedOrderData;
+import com.ecommerce.util.Csv;
+import com.ecommerce.util.ReadFromReplica;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streams orders as CSV (one row per order line, order columns repeated) or JSON Lines (one order per
+ * line with its items nested), archived orders included. Rows are read through a forward-only cursor and
+ * written as they arrive, so memory stays flat however many orders match; nothing is loaded through Hibernate.
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExportService.class);
+
+    /** Null fields are not filtered on. to is exclusive. */
+    public record Filter(LocalDateTime from, LocalDateTime to, Set<OrderStatus> statuses, Long userId) {
+    }
+
+    public record ExportedItem(Long productId, String productName, Integer quantity, Double price) {
+    }
+
+    public record ExportedOrder(Long id, LocalDateTime createdAt, String customerEmail, String orderStatus,
+                                String paymentStatus, String paymentMethod, Double subtotal, Double tax,
+                                Double shipping, Double totalAmount, String trackingNumber, String carrier,
+                                String shippingStreet, String shippingCity, String shippingState,
+                                String shippingZipCode, String shippingCountry, String returnStatus,
+                                Double refundAmount, List<ExportedItem> items) {
+    }
+
+    private static final String CSV_HEADER = "order_id,created_at,customer_email,order_status,payment_status,"
+            + "payment_method,subtotal,tax,shipping,total_amount,tracking_number,carrier,shipping_street,"
+            + "shipping_city,shipping_state,shipping_zip_code,shipping_country,return_status,refund_amount,"
+            + "product_id,product_name,quantity,price\n";
+
+    private static final String SELECT_SQL =
+            "SELECT o.id, o.created_at, u.email, o.order_status, o.payment_status, o.payment_method, o.subtotal,"
+                    + " o.tax, o.shipping, o.total_amount, o.tracking_number, o.carrier, o.shipping_street,"
+                    + " o.shipping_city, o.shipping_state, o.shipping_zip_code, o.shipping_country, o.return_status,"
+                    + " o.refund_amount, i.product_id, i.product_name, i.quantity, i.price"
+                    + " FROM orders o JOIN users u ON u.id = o.user_id LEFT JOIN order_items i ON i.order_id = o.id";
+
+    private static final String ARCHIVE_SQL =
+            "SELECT a.payload, u.email FROM order_archive a JOIN users u ON u.id = a.user_id";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Value("${app.orders.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /** All customers' orders, for admins. */
+    @Transactional(readOnly = true)
+    @ReadFromReplica
+    @Workload(WorkloadClass.ADMIN)
+    public long exportOrders(OutputStream out, Format format, Filter filter) throws IOException {
+        return export(out, format, filter);
+    }
+
+    /** One customer's own order history. */
+    @Transactional(readOnly = true)
+    @ReadFromReplica
+    public long exportUserOrders(OutputStream out, Format format, Long userId) throws IOException {
+        return export(out, format, new Filter(null, null, null, userId));
+    }
+
+    /** Streams the matching orders to out; returns the number of orders written. */
+    private long export(OutputStream out, Format format, Filter filter) throws IOException {
+        long started = System.currentTimeMillis();
+
+        List<Object> args = new ArrayList<>();
+        String where = where("o", filter, args);
+        List<Object> archiveArgs = new ArrayList<>();
+        String archiveWhere = where("a", filter, archiveArgs);
+
+        // The transaction keeps autocommit off, which the PostgreSQL driver needs to use a cursor
+        JdbcTemplate cursor = new JdbcTemplate(dataSource);
+        cursor.setFetchSize(fetchSize);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        ObjectWriter json = objectMapper.writerFor(ExportedOrder.class);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        OrderAccumulator orders = new OrderAccumulator(writer, json);
+        try {
+            // Archived orders are (nearly always) older than the live ones, so they go first
+            cursor.query(ARCHIVE_SQL + archiveWhere + " ORDER BY a.created_at, a.id", rs -> {
+                ExportedOrder order = toExported(orderArchiveService.decode(rs.getBytes(1)), rs.getString(2));
+                try {
+                    if (format == Format.CSV) {
+                        writeCsvRows(writer, order);
+                        orders.count(order.id());
+                    } else {
+                        orders.write(order);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, archiveArgs.toArray());
+
+            // Items of one order arrive together, so only the current order is ever held
+            cursor.query(SELECT_SQL + where + " ORDER BY o.created_at, o.id, i.id", rs -> {
+                try {
+                    if (format == Format.CSV) {
+                        writeCsvRow(writer, rs);
+                        orders.count(rs.getLong(1));
+                    } else {
+                        orders.add(rs);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray());
+            orders.finish();
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the cursor and its connection are released on the way out
+            log.warn("Order export aborted after {} orders: {}", orders.getWritten(), e.getCause().getMessage());
+            throw e.getCause();
+        }
+
+        log.info("Exported {} orders as {} in {} ms", orders.getWritten(), format.name().toLowerCase(),
+                System.currentTimeMillis() - started);
+        return orders.getWritten();
+    }
+
+    private static String where(String alias, Filter filter, List<Object> args) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        if (filter.userId() != null) {
+            where.append(" AND ").append(alias).append(".user_id = ?");
+            args.add(filter.userId());
+        }
+        if (filter.from() != null) {
+            where.append(" AND ").append(alias).append(".created_at >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            where.append(" AND ").append(alias).append(".created_at < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+            where.append(" AND ").append(alias).append(".order_status IN (")
+                    .append(String.join(", ", Collections.nCopies(filter.statuses().size(), "?")))
+                    .append(")");
+            filter.statuses().forEach(status -> args.add(status.name()));
+        }
+        return where.toString();
+    }
+
+    private static void writeCsvRow(Writer writer, ResultSet rs) throws SQLException, IOException {
+        StringBuilder line = new StringBuilder(256);
+        for (int column = 1; column <= 23; column++) {
+            if (column > 1) {
+                line.append(',');
+            }
+            line.append(csvValue(column == 2 ? timestamp(rs, column) : rs.getObject(column)));
+        }
+        writer.write(line.append('\n').toString());
+    }
+
+    // Same columns as writeCsvRow, one row per item
+    private static void writeCsvRows(Writer writer, ExportedOrder order) throws IOException {
+        List<ExportedItem> items = order.items().isEmpty()
+                ? List.of(new ExportedItem(null, null, null, null)) : order.items();
+        for (ExportedItem item : items) {
+            Object[] values = {order.id(), order.createdAt(), order.customerEmail(), order.orderStatus(),
+                    order.paymentStatus(), order.paymentMethod(), order.subtotal(), order.tax(), order.shipping(),
+                    order.totalAmount(), order.trackingNumber(), order.carrier(), order.shippingStreet(),
+                    order.shippingCity(), order.shippingState(), order.shippingZipCode(), order.shippingCountry(),
+                    order.returnStatus(), order.refundAmount(), item.productId(), item.productName(),
+                    item.quantity(), item.price()};
+            StringBuilder line = new StringBuilder(256);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(csvValue(values[i]));
+            }
+            writer.write(line.append('\n').toString());
+        }
+    }
+
+    private static String csvValue(Object value) {
+        return value instanceof String text ? Csv.field(text) : value == null ? "" : value.toString();
+    }
+
+    private static ExportedOrder toExported(ArchivedOrderData order, String customerEmail) {
+        List<ExportedItem> items = new ArrayList<>(order.items().size());
+        for (ArchivedItem item : order.items()) {
+            items.add(new ExportedItem(item.productId(), item.productName(), item.quantity(), item.price()));
+        }
+        return new ExportedOrder(order.id(), order.createdAt(), customerEmail, order.orderStatus(),
+                order.paymentStatus(), order.paymentMethod(), order.subtotal(), order.tax(), order.shipping(),
+                order.totalAmount(), order.trackingNumber(), order.carrier(), order.shippingStreet(),
+                order.shippingCity(), order.shippingState(), order.shippingZipCode(), order.shippingCountry(),
+                order.returnStatus(), order.refundAmount(), items);
+    }
+
+    private static LocalDateTime timestamp(ResultSet rs, int column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value != null ? value.toLocalDateTime() : null;
+    }
+
+    private static Double decimal(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /** Collects the rows of one order and writes it as a JSON line when the next order starts. */
+    private static final class OrderAccumulator {
+
+        private final Writer writer;
+        private final ObjectWriter json;
+        private ExportedOrder current;
+        private long currentId = -1;
+        private long written;
+
+        OrderAccumulator(Writer writer, ObjectWriter json) {
+            this.writer = writer;
+            this.json = json;
+        }
+
+        // CSV rows are written directly; this only counts distinct orders
+        void count(long orderId) {
+            if (orderId != currentId) {
+                currentId = orderId;
+                written++;
+            }
+        }
+
+        void add(ResultSet rs) throws SQLException, IOException {
+            long orderId = rs.getLong(1);
+            if (current == null || orderId != currentId) {
+                finish();
+                currentId = orderId;
+                current = new ExportedOrder(orderId, timestamp(rs, 2), rs.getString(3), rs.getString(4),
+                        rs.getString(5), rs.getString(6), decimal(rs, 7), decimal(rs, 8), decimal(rs, 9),
+                        decimal(rs, 10), rs.getString(11), rs.getString(12), rs.getString(13), rs.getString(14),
+                        rs.getString(15), rs.getString(16), rs.getString(17), rs.getString(18), decimal(rs, 19),
+                        new ArrayList<>());
+            }
+            long productId = rs.getLong(20);
+            if (!rs.wasNull()) {
+                current.items().add(new ExportedItem(productId, rs.getString(21), rs.getInt(22), decimal(rs, 23)));
+            }
+        }
+
+        void finish() throws IOException {
+            if (current != null) {
+                write(current);
+                current = null;
+            }
+        }
+
+        void write(ExportedOrder order) throws IOException {
+            writer.write(json.writeValueAsString(order));
+            writer.write('\n');
+            written++;
+        }
+
+        long getWritten() {
+            return written;
+        }
+    }
+}
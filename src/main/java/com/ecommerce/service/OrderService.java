@@ -1,5 +1,6 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CheckoutQuote;
 import com.ecommerce.dto.OrderRequest;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.model.Order;
@@ -8,37 +9,59 @@ import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.util.ReadFromReplica;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
 public class OrderService {
     
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+    
     @Autowired
     private OrderRepository orderRepository;
     
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    
     @Autowired
     private TaxService taxService;
     
+    @Autowired
+    private CheckoutQuoteService checkoutQuoteService;
+    
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+    
     @Autowired(required = false)
     private EmailService emailService;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     @Transactional
+    @Workload(WorkloadClass.CHECKOUT)
+    @Timed("ecommerce.orders.create")
     public Order createOrder(OrderRequest request, User user) {
-        System.out.println("========================================");
-        System.out.println("🛒 OrderService.createOrder() STARTED");
-        System.out.println("User: " + user.getEmail() + " (ID: " + user.getId() + ")");
-        System.out.println("Payment ID: " + request.getPaymentId());
-        System.out.println("========================================");
+        log.info("Creating order for user {} with payment {}", user.getId(), request.getPaymentId());
         
         try {
             Order order = new Order();
@@ -57,14 +80,18 @@ public class OrderService {
             order.setCreatedAt(LocalDateTime.now());
             order.setCarrier("USPS");
             
-            System.out.println("📍 Shipping: " + request.getShippingStreet() + ", " + request.getShippingCity());
+            // A valid quote from /calculate lets us skip repricing and the tax lookup
+            CheckoutQuote quote = checkoutQuoteService.verify(request, user.getEmail()).orElse(null);
+            Map<Long, Double> quotedPrices = new HashMap<>();
+            if (quote != null) {
+                quote.getItems().forEach(item -> quotedPrices.put(item.getProductId(), item.getUnitPrice()));
+            }
+            boolean pricesUnchanged = quote != null;
             
             // Process items
             double subtotal = 0.0;
             List<OrderItem> orderItems = new ArrayList<>();
             
-            System.out.println("📦 Processing " + request.getItems().size() + " items:");
-            
             for (OrderRequest.OrderItemDTO itemDTO : request.getItems()) {
                 Product product = productRepository.findById(itemDTO.getProductId())
                     .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + itemDTO.getProductId()));
@@ -83,67 +110,79 @@ public class OrderService {
                 orderItems.add(orderItem);
                 subtotal += product.getPrice() * itemDTO.getQuantity();
                 
+                if (pricesUnchanged && !product.getPrice().equals(quotedPrices.get(product.getId()))) {
+                    pricesUnchanged = false;
+                }
+                
                 // Update stock
                 product.setStock(product.getStock() - itemDTO.getQuantity());
                 productRepository.save(product);
                 
-                System.out.println("   ✅ " + product.getName() + " x" + itemDTO.getQuantity() + " @ $" + product.getPrice());
+                log.debug("Order item {} x{} @ {}", product.getId(), itemDTO.getQuantity(), product.getPrice());
             }
             
             order.setItems(orderItems);
+            // Stock is part of the product JSON, so cached listings must revalidate
+            catalogVersionService.bumpStockVersion();
             
             // Calculate totals
-            double shipping = taxService.calculateShipping(subtotal);
-            double tax = taxService.calculateTax(subtotal, request.getShippingState(), request.getShippingZipCode());
-            double total = subtotal + tax + shipping;
+            double shipping;
+            double tax;
+            double total;
+            if (pricesUnchanged) {
+                subtotal = quote.getSubtotal();
+                shipping = quote.getShipping();
+                tax = quote.getTax();
+                total = quote.getTotal();
+            } else {
+                shipping = taxService.calculateShipping(subtotal);
+                tax = taxService.calculateTax(subtotal, request.getShippingState(), request.getShippingZipCode());
+                total = subtotal + tax + shipping;
+            }
             
             order.setSubtotal(subtotal);
             order.setTax(tax);
             order.setShipping(shipping);
             order.setTotalAmount(total);
             
-            System.out.println("💰 Order Totals:");
-            System.out.println("   Subtotal: $" + subtotal);
-            System.out.println("   Tax: $" + tax);
-            System.out.println("   Shipping: $" + shipping);
-            System.out.println("   TOTAL: $" + total);
-            
-            System.out.println("💾 Saving order to PostgreSQL database...");
-            
             Order savedOrder = orderRepository.save(order);
+            meterRegistry.counter("ecommerce.orders.placed", "pricing", pricesUnchanged ? "quote" : "repriced").increment();
             
-            System.out.println("========================================");
-            System.out.println("✅ ORDER SAVED SUCCESSFULLY!");
-            System.out.println("   Order ID: " + savedOrder.getId());
-            System.out.println("   User ID: " + savedOrder.getUser().getId());
-            System.out.println("   Total Amount: $" + savedOrder.getTotalAmount());
-            System.out.println("   Items Count: " + savedOrder.getItems().size());
-            System.out.println("   Created At: " + savedOrder.getCreatedAt());
-            System.out.println("========================================");
+            log.info("Order {} saved: user={} items={} subtotal={} tax={} shipping={} total={} pricing={}",
+                    savedOrder.getId(), user.getId(), orderItems.size(), subtotal, tax, shipping, total,
+                    pricesUnchanged ? "quote" : "repriced");
             
             return savedOrder;
             
         } catch (Exception e) {
-            System.err.println("========================================");
-            System.err.println("❌ ERROR IN OrderService.createOrder()");
-            System.err.println("   Error Type: " + e.getClass().getName());
-            System.err.println("   Error Message: " + e.getMessage());
-            System.err.println("========================================");
-            e.printStackTrace();
+            log.error("Order creation failed for user {}", user.getId(), e);
             throw new RuntimeException("Failed to create order: " + e.getMessage(), e);
         }
     }
 
+    @Transactional(readOnly = true)
+    @ReadFromReplica
     public List<Order> getUserOrders(User user) {
-        System.out.println("📦 Getting orders for user: " + user.getEmail());
-        List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
-        System.out.println("✅ Found " + orders.size() + " orders");
+        List<Order> orders = new ArrayList<>(orderRepository.findByUserOrderByCreatedAtDesc(user));
+        List<Order> archived = orderArchiveService.findUserOrders(user);
+        if (!archived.isEmpty()) {
+            orders.addAll(archived);
+            orders.sort(Comparator.comparing(Order::getCreatedAt).reversed());
+        }
+        log.debug("Found {} orders ({} archived) for user {}", orders.size(), archived.size(), user.getId());
         return orders;
     }
     
-    public Order getOrderById(Long id, User user) {
-        Order order = orderRepository.findById(id)
+    /** Looks in the live orders first, then in the archive; archived orders come back detached and read-only. */
+    @Transactional(readOnly = true)
+    public Order findOrder(Long id) {
+        return orderRepository.findById(id)
+            .or(() -> orderArchiveService.findOrder(id))
             .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+    }
+    
+    public Order getOrderById(Long id, User user) {
+        Order order = findOrder(id);
         
         if (!order.getUser().getId().equals(user.getId()) && 
             !user.getRole().name().equals("ADMIN")) {
@@ -153,53 +192,49 @@ public class OrderService {
         return order;
     }
     
+    // Live orders only; archived ones are in order_archive (OrderArchiveService)
+    @Transactional(readOnly = true)
+    @ReadFromReplica
+    @Workload(WorkloadClass.ADMIN)
     public List<Order> getAllOrders() {
         return orderRepository.findAllByOrderByCreatedAtDesc();
     }
     
     @Transactional
     public Order updateOrderStatus(Long id, Order.OrderStatus orderStatus, Order.PaymentStatus paymentStatus, String trackingNumber) {
-        System.out.println("========================================");
-        System.out.println("🔄 Updating Order #" + id);
-        System.out.println("========================================");
-        
         Order order = orderRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
         
         if (orderStatus != null) {
             order.setOrderStatus(orderStatus);
-            System.out.println("✅ Order Status: " + orderStatus);
         }
         
         if (paymentStatus != null) {
             order.setPaymentStatus(paymentStatus);
-            System.out.println("✅ Payment Status: " + paymentStatus);
         }
         
         if (trackingNumber != null && !trackingNumber.trim().isEmpty()) {
             order.setTrackingNumber(trackingNumber.trim());
-            System.out.println("✅ Tracking Number: " + trackingNumber);
         }
         
         Order updatedOrder = orderRepository.save(order);
         
-        System.out.println("========================================");
-        System.out.println("✅ Order #" + id + " updated successfully");
-        System.out.println("========================================");
+        log.info("Order {} updated: status={} payment={} tracking={}", id, orderStatus, paymentStatus, trackingNumber);
         
         // Send status update email
         if (emailService != null) {
             try {
                 emailService.sendOrderStatusUpdateEmail(updatedOrder);
-                System.out.println("📧 Status update email queued");
             } catch (Exception e) {
-                System.err.println("⚠️ Failed to send status email: " + e.getMessage());
+                log.warn("Failed to queue status email for order {}: {}", id, e.getMessage());
             }
         }
         
         return updatedOrder;
     }
     
+    @Workload(WorkloadClass.CHECKOUT)
+    @Timed("ecommerce.orders.calculate")
     public java.util.Map<String, Object> calculateOrderTotals(User user, OrderRequest request) {
         double subtotal = 0.0;
         
@@ -0,0 +1,101 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.StripeUnavailableException;
+import com.ecommerce.model.PaymentMethod;
+import com.ecommerce.repository.PaymentMethodRepository;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
+import com.stripe.exception.StripeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps a local copy of card metadata (brand, last4, expiry, billing zip) so the
+ * profile and checkout pages never have to ask Stripe for it. Metadata is captured
+ * once when a card is saved and refreshed afterwards only by the reconciliation job.
+ */
+@Service
+public class PaymentMethodMetadataService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentMethodMetadataService.class);
+
+    @Autowired
+    private StripeGateway stripeGateway;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Value("${payments.card-metadata.max-age-hours:24}")
+    private long maxAgeHours;
+
+    @Value("${payments.card-metadata.reconcile-batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Copies card details from an already retrieved Stripe payment method.
+     * Does not save the entity.
+     */
+    public void apply(PaymentMethod paymentMethod, com.stripe.model.PaymentMethod stripePM) {
+        com.stripe.model.PaymentMethod.Card card = stripePM.getCard();
+        if (card != null) {
+            paymentMethod.setCardBrand(card.getBrand());
+            paymentMethod.setCardLastFour(card.getLast4());
+            paymentMethod.setCardExpMonth(card.getExpMonth() != null ? card.getExpMonth().intValue() : null);
+            paymentMethod.setCardExpYear(card.getExpYear() != null ? card.getExpYear().intValue() : null);
+        }
+        if (stripePM.getBillingDetails() != null && stripePM.getBillingDetails().getAddress() != null) {
+            paymentMethod.setBillingZip(stripePM.getBillingDetails().getAddress().getPostalCode());
+        }
+        paymentMethod.setMetadataSyncedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Refreshes cards whose metadata is missing or older than max-age-hours, a batch
+     * at a time, until nothing is stale or Stripe becomes unavailable.
+     */
+    @Scheduled(initialDelayString = "${payments.card-metadata.reconcile-initial-delay-ms:60000}",
+               fixedDelayString = "${payments.card-metadata.reconcile-interval-ms:3600000}")
+    @Workload(WorkloadClass.BACKGROUND)
+    public void reconcile() {
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        LocalDateTime cutoff = runStartedAt.minusHours(maxAgeHours);
+        int refreshed = 0;
+        int failed = 0;
+
+        while (true) {
+            List<PaymentMethod> stale = paymentMethodRepository.findStaleMetadata(cutoff, PageRequest.of(0, batchSize));
+            if (stale.isEmpty()) {
+                break;
+            }
+
+            for (PaymentMethod paymentMethod : stale) {
+                try {
+                    apply(paymentMethod, stripeGateway.retrievePaymentMethod(paymentMethod.getStripePaymentMethodId()));
+                    refreshed++;
+                } catch (StripeUnavailableException e) {
+                    log.warn("Card metadata reconciliation paused: {}", e.getMessage());
+                    paymentMethodRepository.saveAll(stale);
+                    return;
+                } catch (StripeException e) {
+                    // Deleted or detached on Stripe's side; keep what we have and retry next window
+                    log.warn("Could not refresh card {}: {}", paymentMethod.getStripePaymentMethodId(), e.getMessage());
+                    paymentMethod.setMetadataSyncedAt(runStartedAt);
+                    failed++;
+                }
+            }
+            paymentMethodRepository.saveAll(stale);
+        }
+
+        if (refreshed > 0 || failed > 0) {
+            log.info("Card metadata reconciled: {} refreshed, {} failed", refreshed, failed);
+        }
+    }
+}
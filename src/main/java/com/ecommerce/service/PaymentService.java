@@ -1,27 +1,19 @@
 package com.ecommerce.service;
 
-import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.param.PaymentIntentCreateParams;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import java.util.HashMap;
 import java.util.Map;
 
 @Service
 public class PaymentService {
     
-    @Value("${stripe.api.key}")
-    private String stripeApiKey;
-    
-    @PostConstruct
-    public void init() {
-        Stripe.apiKey = stripeApiKey;
-        System.out.println("✅ Stripe initialized with API key: " + stripeApiKey.substring(0, 20) + "...");
-    }
+    @Autowired
+    private StripeGateway stripeGateway;
     
     public Map<String, String> createPaymentIntent(Double amount) throws StripeException {
         System.out.println("💳 Creating payment intent for amount: $" + amount);
@@ -33,7 +25,7 @@ public class PaymentService {
                     .addPaymentMethodType("card")
                     .build();
             
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
+            PaymentIntent paymentIntent = stripeGateway.createPaymentIntent(params);
             
             System.out.println("✅ Payment intent created: " + paymentIntent.getId());
             
@@ -3,32 +3,49 @@ package com.ecommerce.service;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.util.ReadFromReplica;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class ProductService {
     
     private final ProductRepository productRepository;
+    private final CatalogVersionService catalogVersionService;
     
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, CatalogVersionService catalogVersionService) {
         this.productRepository = productRepository;
+        this.catalogVersionService = catalogVersionService;
     }
     
+    @Transactional(readOnly = true)
+    @ReadFromReplica
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
     
+    @Transactional(readOnly = true)
+    @ReadFromReplica
+    public Optional<Product> findProductById(Long id) {
+        return productRepository.findById(id);
+    }
+    
+    @Transactional(readOnly = true)
+    @ReadFromReplica
     public Product getProductById(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
     }
     
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogVersionService.bumpCatalogVersion();
+        return saved;
     }
     
     public Product updateProduct(Long id, Product productDetails) {
@@ -41,14 +58,19 @@ public class ProductService {
         product.setStock(productDetails.getStock());
         product.setImageUrl(productDetails.getImageUrl());  // CHANGED from setImage to setImageUrl
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogVersionService.bumpCatalogVersion();
+        return saved;
     }
     
     public void deleteProduct(Long id) {
         Product product = getProductById(id);
         productRepository.delete(product);
+        catalogVersionService.bumpCatalogVersion();
     }
     
+    @Transactional(readOnly = true)
+    @ReadFromReplica
     public List<Product> searchProducts(String keyword) {
         return productRepository.findByNameContainingIgnoreCase(keyword);
     }
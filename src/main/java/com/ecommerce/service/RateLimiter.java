@@ -0,0 +1,47 @@
+package com.ecommerce.service;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * Token buckets keyed by caller (e.g. "login:ip:203.0.113.7"), used by
+ * {@link com.ecommerce.config.RateLimitFilter}.
+ *
+ * Selected with app.rate-limit.backend: "local" (default, {@link LocalRateLimiter}) keeps the
+ * buckets in this JVM, so each node enforces the limits on its own; a shared store would
+ * implement this interface to enforce them across the cluster.
+ */
+public interface RateLimiter {
+
+    /** capacity requests at once, refilled evenly over period (capacity / period steady rate). */
+    record Limit(int capacity, Duration period) {
+
+        public Limit {
+            if (capacity < 1 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Rate limit needs a positive capacity and period");
+            }
+        }
+
+        /** "20/1m", "5/10m", "100/1s" */
+        public static Limit parse(String value) {
+            String[] parts = value.trim().split("/");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Rate limit must look like 20/1m, got: " + value);
+            }
+            return new Limit(Integer.parseInt(parts[0].trim()), DurationStyle.detectAndParse(parts[1].trim()));
+        }
+
+        @Override
+        public String toString() {
+            return capacity + "/" + period.toSeconds() + "s";
+        }
+    }
+
+    /**
+     * Takes one token from key's bucket.
+     *
+     * @return 0 if the request may go ahead, else the milliseconds until a token will be available
+     */
+    long tryAcquire(String key, Limit limit);
+}
@@ -1,6 +1,8 @@
 package com.ecommerce.service;
 
 import com.ecommerce.model.Order;
+import com.ecommerce.util.Workload;
+import com.ecommerce.util.WorkloadClass;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
@@ -22,6 +24,7 @@ import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
 import com.itextpdf.layout.properties.VerticalAlignment;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
@@ -31,8 +34,10 @@ import java.time.format.DateTimeFormatter;
 import java.util.Base64;
 
 @Service
+@Workload(WorkloadClass.ADMIN)
 public class ShippingLabelService {
 
+    @Timed("ecommerce.shipping-labels.generate")
     public byte[] generateReturnShippingLabel(Order order) throws Exception {
         System.out.println("📦 Generating USPS-style return shipping label for Order #" + order.getId());
         
@@ -0,0 +1,361 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.StripeUnavailableException;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.util.BoundedVirtualThreadExecutor;
+import com.ecommerce.util.CircuitBreaker;
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Customer;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.PaymentMethod;
+import com.stripe.model.SetupIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.CustomerCreateParams;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.PaymentMethodAttachParams;
+import com.stripe.param.SetupIntentCreateParams;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single entry point for every Stripe call.
+ *
+ * Calls run on a bounded bulkhead pool so a slow Stripe can tie up at most
+ * maxConcurrent threads, never the Tomcat workers. Each operation has its own
+ * timeout, enforced both on the HTTP read and on the caller's wait, and a circuit
+ * breaker fails fast while Stripe is unreachable. Customer provisioning is
+ * single-flight per user so concurrent checkouts never create duplicate customers.
+ */
+@Service
+public class StripeGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeGateway.class);
+
+    private final StripeClient stripeClient;
+    private final UserRepository userRepository;
+    private final ExecutorService bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Map<Long, CompletableFuture<String>> customerFlights = new ConcurrentHashMap<>();
+
+    // Falls back to the global registry when built outside Spring (tests)
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Value("${stripe.gateway.customer-timeout-ms:5000}")
+    private int customerTimeoutMs = 5000;
+
+    @Value("${stripe.gateway.payment-intent-timeout-ms:8000}")
+    private int paymentIntentTimeoutMs = 8000;
+
+    @Value("${stripe.gateway.setup-intent-timeout-ms:5000}")
+    private int setupIntentTimeoutMs = 5000;
+
+    @Value("${stripe.gateway.payment-method-timeout-ms:4000}")
+    private int paymentMethodTimeoutMs = 4000;
+
+    public StripeGateway(StripeClient stripeClient,
+                         UserRepository userRepository,
+                         int maxConcurrent,
+                         int queueCapacity,
+                         int failureThreshold,
+                         long openStateMs) {
+        this(stripeClient, userRepository, maxConcurrent, queueCapacity, failureThreshold, openStateMs, false);
+    }
+
+    @Autowired
+    public StripeGateway(StripeClient stripeClient,
+                         UserRepository userRepository,
+                         @Value("${stripe.gateway.max-concurrent:16}") int maxConcurrent,
+                         @Value("${stripe.gateway.queue-capacity:32}") int queueCapacity,
+                         @Value("${stripe.gateway.failure-threshold:5}") int failureThreshold,
+                         @Value("${stripe.gateway.open-state-ms:30000}") long openStateMs,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.stripeClient = stripeClient;
+        this.userRepository = userRepository;
+        this.circuitBreaker = new CircuitBreaker("stripe", failureThreshold, openStateMs);
+
+        if (virtualThreads) {
+            // Same limits, but waiting calls park a virtual thread instead of holding a pool thread
+            this.bulkhead = new BoundedVirtualThreadExecutor("stripe-vt-", maxConcurrent, queueCapacity);
+            return;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stripe-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.bulkhead = executor;
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("ecommerce.stripe.circuit.open", circuitBreaker,
+                        breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 while the Stripe circuit breaker is open or half-open")
+                .register(meterRegistry);
+
+        if (bulkhead instanceof ThreadPoolExecutor executor) {
+            new ExecutorServiceMetrics(executor, "stripe", List.of()).bindTo(meterRegistry);
+        } else if (bulkhead instanceof BoundedVirtualThreadExecutor executor) {
+            Gauge.builder("ecommerce.stripe.bulkhead.active", executor, BoundedVirtualThreadExecutor::getActiveCount)
+                    .register(meterRegistry);
+            Gauge.builder("ecommerce.stripe.bulkhead.queued", executor, BoundedVirtualThreadExecutor::getQueuedCount)
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkhead.shutdownNow();
+    }
+
+    // ========================================
+    // OPERATIONS
+    // ========================================
+
+    /**
+     * Returns the user's Stripe customer id, creating the customer on first use.
+     * Concurrent callers for the same user share one in-flight creation, and the
+     * Stripe idempotency key makes a race across nodes resolve to the same customer.
+     */
+    public String ensureCustomer(User user) throws StripeException {
+        if (hasText(user.getStripeCustomerId())) {
+            return user.getStripeCustomerId();
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> flight = customerFlights.putIfAbsent(user.getId(), mine);
+        if (flight == null) {
+            try {
+                mine.complete(provisionCustomer(user));
+            } catch (StripeException | RuntimeException e) {
+                mine.completeExceptionally(e);
+            } finally {
+                customerFlights.remove(user.getId(), mine);
+            }
+            flight = mine;
+        }
+
+        try {
+            String customerId = flight.get(customerTimeoutMs * 2L, TimeUnit.MILLISECONDS);
+            user.setStripeCustomerId(customerId);
+            return customerId;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            throw new StripeUnavailableException("Timed out waiting for Stripe customer creation");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StripeUnavailableException("Interrupted while waiting for Stripe customer creation");
+        }
+    }
+
+    public Customer retrieveCustomer(String customerId) throws StripeException {
+        return call("customers.retrieve", customerTimeoutMs,
+                options -> stripeClient.customers().retrieve(customerId, options));
+    }
+
+    public PaymentIntent createPaymentIntent(PaymentIntentCreateParams params) throws StripeException {
+        return call("paymentIntents.create", paymentIntentTimeoutMs,
+                options -> stripeClient.paymentIntents().create(params, options));
+    }
+
+    public SetupIntent createSetupIntent(String customerId) throws StripeException {
+        SetupIntentCreateParams params = SetupIntentCreateParams.builder()
+                .setCustomer(customerId)
+                .build();
+        return call("setupIntents.create", setupIntentTimeoutMs,
+                options -> stripeClient.setupIntents().create(params, options));
+    }
+
+    public PaymentMethod retrievePaymentMethod(String paymentMethodId) throws StripeException {
+        return call("paymentMethods.retrieve", paymentMethodTimeoutMs,
+                options -> stripeClient.paymentMethods().retrieve(paymentMethodId, options));
+    }
+
+    public PaymentMethod attachPaymentMethod(String paymentMethodId, String customerId) throws StripeException {
+        PaymentMethodAttachParams params = PaymentMethodAttachParams.builder()
+                .setCustomer(customerId)
+                .build();
+        return call("paymentMethods.attach", paymentMethodTimeoutMs,
+                options -> stripeClient.paymentMethods().attach(paymentMethodId, params, options));
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    // ========================================
+    // INTERNALS
+    // ========================================
+
+    private String provisionCustomer(User user) throws StripeException {
+        // Another request or node may have stored a customer since this user was loaded
+        String stored = userRepository.findById(user.getId())
+                .map(User::getStripeCustomerId)
+                .orElse(null);
+        if (hasText(stored)) {
+            return stored;
+        }
+
+        log.info("Creating Stripe customer for user {}", user.getId());
+
+        CustomerCreateParams params = CustomerCreateParams.builder()
+                .setEmail(user.getEmail())
+                .setName(user.getName())
+                .setDescription("Customer for " + user.getEmail())
+                .build();
+
+        Customer customer = call("customers.create", customerTimeoutMs, options ->
+                stripeClient.customers().create(params, RequestOptions.builder()
+                        .setReadTimeout(customerTimeoutMs)
+                        .setIdempotencyKey("customer-" + user.getId())
+                        .build()));
+
+        User fresh = userRepository.findById(user.getId()).orElse(user);
+        fresh.setStripeCustomerId(customer.getId());
+        userRepository.save(fresh);
+
+        log.info("Stripe customer {} created for user {}", customer.getId(), user.getId());
+        return customer.getId();
+    }
+
+    private <T> T call(String operation, int timeoutMs, StripeCall<T> stripeCall) throws StripeException {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = callWithLimits(operation, timeoutMs, stripeCall);
+            outcome = "success";
+            return result;
+        } catch (StripeUnavailableException e) {
+            outcome = "unavailable";
+            throw e;
+        } finally {
+            Timer.builder("ecommerce.stripe.calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> T callWithLimits(String operation, int timeoutMs, StripeCall<T> stripeCall) throws StripeException {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new StripeUnavailableException("Stripe is temporarily unavailable (circuit open)");
+        }
+
+        RequestOptions options = RequestOptions.builder()
+                .setReadTimeout(timeoutMs)
+                .build();
+
+        Future<T> future;
+        try {
+            // Carry the request's correlation id onto the bulkhead thread
+            Map<String, String> mdc = MDC.getCopyOfContextMap();
+            future = bulkhead.submit(() -> {
+                if (mdc != null) {
+                    MDC.setContextMap(mdc);
+                }
+                try {
+                    return stripeCall.execute(options);
+                } finally {
+                    MDC.clear();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Our own bulkhead is full; Stripe was never called, so this is not a Stripe failure
+            circuitBreaker.onNotAttempted();
+            throw new StripeUnavailableException("Too many concurrent Stripe requests, please retry");
+        }
+
+        try {
+            T result = future.get(timeoutMs + 500L, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            return result;
+
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            throw new StripeUnavailableException("Stripe " + operation + " timed out after " + timeoutMs + " ms");
+
+        } catch (ExecutionException e) {
+            StripeException cause = unwrap(e);
+            if (isInfrastructureFailure(cause)) {
+                circuitBreaker.onFailure();
+                if (cause instanceof ApiConnectionException) {
+                    throw new StripeUnavailableException("Stripe " + operation + " failed: " + cause.getMessage(), cause);
+                }
+            } else {
+                // Card declines and validation errors mean Stripe itself is healthy
+                circuitBreaker.onSuccess();
+            }
+            throw cause;
+
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new StripeUnavailableException("Interrupted while calling Stripe " + operation);
+        }
+    }
+
+    private static boolean isInfrastructureFailure(StripeException e) {
+        Integer status = e.getStatusCode();
+        return e instanceof ApiConnectionException || status == null || status >= 500 || status == 429;
+    }
+
+    private static StripeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof StripeException stripeException) {
+            return stripeException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw new StripeUnavailableException("Stripe call failed: " + cause, cause);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    @FunctionalInterface
+    private interface StripeCall<T> {
+        T execute(RequestOptions options) throws StripeException;
+    }
+}
@@ -2,6 +2,7 @@ package com.ecommerce.service;
 
 import com.ecommerce.model.ShippingConfig;
 import com.ecommerce.repository.ShippingConfigRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +15,9 @@ public class TaxService {
     @Autowired
     private ShippingConfigRepository shippingConfigRepository;
     
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+    
     // Default values if not configured
     private static final double DEFAULT_SHIPPING_COST = 10.0;
     private static final double DEFAULT_FREE_SHIPPING_THRESHOLD = 50.0;
@@ -52,11 +56,13 @@ public class TaxService {
         ZIP_TAX_RATES.put("244", 6.5); //UP
     }
     
+    @Timed("ecommerce.tax.lookup")
     public double calculateTax(double amount, String state, String zipCode) {
         double taxRate = getTaxRate(state, zipCode);
         return amount * (taxRate / 100);
     }
     
+    @Timed("ecommerce.tax.lookup")
     public double getTaxRate(String state, String zipCode) {
         if (zipCode != null && zipCode.length() >= 3) {
             String zipPrefix = zipCode.substring(0, 3);
@@ -72,6 +78,7 @@ public class TaxService {
         return 7.0;
     }
     
+    @Timed("ecommerce.tax.lookup")
     public double calculateShipping(double subtotal) {
         ShippingConfig config = getShippingConfig();
         
@@ -82,6 +89,7 @@ public class TaxService {
         return config.getShippingCost();
     }
     
+    @Timed("ecommerce.tax.lookup")
     public ShippingConfig getShippingConfig() {
         return shippingConfigRepository.findFirstByOrderByIdDesc()
                 .orElse(new ShippingConfig(DEFAULT_SHIPPING_COST, DEFAULT_FREE_SHIPPING_THRESHOLD));
@@ -95,6 +103,8 @@ public class TaxService {
         config.setFreeShippingThreshold(freeShippingThreshold);
         config.setUpdatedAt(java.time.LocalDateTime.now());
         
-        return shippingConfigRepository.save(config);
+        ShippingConfig saved = shippingConfigRepository.save(config);
+        catalogVersionService.bumpShippingConfigVersion();
+        return saved;
     }
 }
@@ -0,0 +1,156 @@
+package com.ecommerce.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit that follows latency instead of being fixed (gradient algorithm).
+ *
+ * Request latencies are averaged per window (at least windowMs and windowMinSamples). When a
+ * window's average rises above the long-term average by more than RTT_TOLERANCE, work is
+ * queueing somewhere downstream (DB, Stripe) and the limit shrinks in proportion, down to half
+ * per step; otherwise it grows by sqrt(limit), but only while requests actually use it. Changes
+ * are smoothed and kept within [minLimit, maxLimit].
+ *
+ * Callers over the limit are refused at once rather than queued. Priorities share one limit:
+ * CRITICAL may fill all of it, NORMAL and LOW only their share, so when the limit shrinks the
+ * lower classes are shed first and the remaining slots go to CRITICAL work.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Priority {
+        CRITICAL, NORMAL, LOW
+    }
+
+    // The long-term average moves about 1/LONG_WINDOW of the way towards each window's average
+    private static final double LONG_WINDOW = 100;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double normalShare;
+    private final double lowShare;
+    private final long windowNanos;
+    private final int windowMinSamples;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Written only by the caller that closes a window
+    private volatile double limit;
+    private volatile double longRttNanos;
+
+    private final AtomicLong windowStart;
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double normalShare, double lowShare, long windowMs, int windowMinSamples) {
+        this(name, initialLimit, minLimit, maxLimit, normalShare, lowShare, windowMs, windowMinSamples,
+                System::nanoTime);
+    }
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double normalShare, double lowShare, long windowMs, int windowMinSamples,
+                                      LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limit needs 1 <= min-limit <= max-limit");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.normalShare = normalShare;
+        this.lowShare = lowShare;
+        this.windowNanos = windowMs * 1_000_000;
+        this.windowMinSamples = Math.max(1, windowMinSamples);
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windowStart = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /** Takes a slot, or returns false when priority's share of the limit is in use. */
+    public boolean tryAcquire(Priority priority) {
+        int allowed = allowed(priority);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees a slot taken by tryAcquire.
+     *
+     * @param rttNanos how long the slot was held, fed to the limit unless negative
+     */
+    public void release(long rttNanos) {
+        inFlight.decrementAndGet();
+        if (rttNanos < 0) {
+            return;
+        }
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+
+        long now = nanoClock.getAsLong();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowSamples.sum() >= windowMinSamples
+                && windowStart.compareAndSet(start, now)) {
+            // A sample landing between the two resets counts towards the next window; harmless for an average
+            long samples = windowSamples.sumThenReset();
+            long total = windowRttNanos.sumThenReset();
+            int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+            if (samples > 0) {
+                update((double) total / samples, maxInFlight);
+            }
+        }
+    }
+
+    private void update(double shortRtt, int maxInFlight) {
+        double longRtt = longRttNanos == 0 ? shortRtt : longRttNanos + (shortRtt - longRttNanos) / LONG_WINDOW;
+        // After a slow spell the long average lags far behind; let it come down faster once latency recovers
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        longRttNanos = longRtt;
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        // A mostly idle limit says nothing about capacity, so it must not grow
+        if (target > current && maxInFlight < current / 2) {
+            return;
+        }
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private int allowed(Priority priority) {
+        double share = switch (priority) {
+            case CRITICAL -> 1.0;
+            case NORMAL -> normalShare;
+            case LOW -> lowShare;
+        };
+        return Math.max(1, (int) (limit * share));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+}
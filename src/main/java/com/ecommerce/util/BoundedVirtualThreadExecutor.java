@@ -0,0 +1,92 @@
+package com.ecommerce.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Virtual-thread counterpart of a fixed pool with a bounded queue.
+ * Every task gets its own virtual thread, but at most maxConcurrent run at once
+ * and at most maxConcurrent + queueCapacity are admitted; beyond that tasks are
+ * rejected just like ThreadPoolExecutor's AbortPolicy.
+ */
+public class BoundedVirtualThreadExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+
+    public BoundedVirtualThreadExecutor(String namePrefix, int maxConcurrent, int queueCapacity) {
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 1).factory());
+        this.admitted = new Semaphore(maxConcurrent + queueCapacity);
+        this.running = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new RejectedExecutionException("Executor saturated");
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    // Waiting virtual threads park here without holding a carrier
+                    running.acquire();
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    admitted.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    public int getActiveCount() {
+        return maxConcurrent - running.availablePermits();
+    }
+
+    public int getQueuedCount() {
+        return Math.max(0, maxConcurrent + queueCapacity - admitted.availablePermits() - getActiveCount());
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
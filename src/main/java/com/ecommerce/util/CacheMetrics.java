@@ -0,0 +1,50 @@
+package com.ecommerce.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.Supplier;
+
+/**
+ * Hit/miss counters, hit ratio and size gauges for one of our in-process caches.
+ * Meter names follow Micrometer's cache binders (cache.gets, cache.size) with an
+ * "ecommerce." prefix and a cache tag.
+ */
+public class CacheMetrics {
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Supplier<Number> size;
+
+    public CacheMetrics(MeterRegistry registry, String cacheName, Supplier<Number> size) {
+        this.size = size;
+        this.hits = Counter.builder("ecommerce.cache.gets")
+                .tag("cache", cacheName).tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder("ecommerce.cache.gets")
+                .tag("cache", cacheName).tag("result", "miss")
+                .register(registry);
+
+        Gauge.builder("ecommerce.cache.hit.ratio", this, CacheMetrics::hitRatio)
+                .tag("cache", cacheName)
+                .register(registry);
+        // Gauges hold their target weakly; the owning service keeps this object alive
+        Gauge.builder("ecommerce.cache.size", this, metrics -> metrics.size.get().doubleValue())
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
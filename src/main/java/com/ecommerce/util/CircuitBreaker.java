@@ -0,0 +1,80 @@
+package com.ecommerce.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Consecutive-failure circuit breaker.
+ * CLOSED lets calls through; after failureThreshold failures in a row it goes OPEN
+ * and rejects calls for openStateMs; then HALF_OPEN lets a single trial call through,
+ * which closes the breaker on success or re-opens it on failure.
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openStateMs;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+
+    public CircuitBreaker(String name, int failureThreshold, long openStateMs) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openStateMs = openStateMs;
+    }
+
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.currentTimeMillis() - openedAt.get() >= openStateMs) {
+            // Only one caller wins the transition and becomes the trial call
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            if (state.getAndSet(State.OPEN) != State.OPEN) {
+                log.warn("Circuit breaker '{}' opened after {} failures", name, consecutiveFailures.get());
+            }
+            openedAt.set(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * The acquired call never reached the remote side (e.g. a local bulkhead turned it away),
+     * so it says nothing about the remote's health. Counts for neither success nor failure;
+     * a half-open trial goes back to OPEN so the next caller after openStateMs can take it.
+     */
+    public void onNotAttempted() {
+        state.compareAndSet(State.HALF_OPEN, State.OPEN);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ecommerce.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV: a streaming record reader and a field quoter.
+ * Quoted fields may contain commas, doubled quotes and line breaks.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    /** Quotes a value only when it needs it; null becomes an empty field. */
+    public static String field(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    public static final class RecordReader {
+
+        // Longer fields are treated as a broken file rather than buffered without bound
+        private static final int MAX_FIELD_LENGTH = 64 * 1024;
+
+        private final Reader in;
+        private int peeked = -2;
+
+        public RecordReader(Reader in) {
+            this.in = in;
+        }
+
+        /** Next record, or null at end of input. Blank lines are skipped. */
+        public List<String> next() throws IOException {
+            List<String> record = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean sawAnything = false;
+
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    if (quoted) {
+                        throw new IOException("Unterminated quoted field");
+                    }
+                    if (!sawAnything) {
+                        return null;
+                    }
+                    record.add(field.toString());
+                    return record;
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                    sawAnything = true;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                    sawAnything = true;
+                } else if (c == '\r' || c == '\n') {
+                    if (c == '\r' && peek() == '\n') {
+                        read();
+                    }
+                    if (!sawAnything) {
+                        continue;
+                    }
+                    record.add(field.toString());
+                    return record;
+                } else {
+                    field.append((char) c);
+                    sawAnything = true;
+                }
+                if (field.length() > MAX_FIELD_LENGTH) {
+                    throw new IOException("Field longer than " + MAX_FIELD_LENGTH + " characters");
+                }
+            }
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return in.read();
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = in.read();
+            }
+            return peeked;
+        }
+    }
+}
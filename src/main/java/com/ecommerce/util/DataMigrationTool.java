@@ -1,223 +1,762 @@
 package com.ecommerce.util;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
 
+/**
+ * Copies every table from one database into another, by default the local H2 file into PostgreSQL.
+ * <ul>
+ *   <li>Tables are copied in foreign-key order; tables at the same depth are copied in parallel.</li>
+ *   <li>Tables with an integer primary key are split into id ranges of MIGRATION_CHUNK_ROWS ids,
+ *       spread over MIGRATION_THREADS workers. Other tables are copied as one range.</li>
+ *   <li>A range is read through a cursor (MIGRATION_FETCH_SIZE rows per round trip) and written with
+ *       COPY on PostgreSQL or MIGRATION_BATCH_SIZE-row insert batches elsewhere, in one target
+ *       transaction that also records it in migration_checkpoint. A rerun skips recorded ranges, so a
+ *       failed migration resumes where it stopped; MIGRATION_RESTART=true empties the target and starts over.</li>
+ *   <li>Afterwards row counts and per-range checksums are compared and PostgreSQL id sequences are reset.</li>
+ * </ul>
+ * Connections: MIGRATION_SOURCE_URL/_USER/_PASSWORD and MIGRATION_TARGET_URL/_USER/_PASSWORD (the target
+ * falls back to DB_URL/DB_USERNAME/DB_PASSWORD). Target tables must already exist, e.g. created by starting
+ * the application against it once (Flyway migrates it). The source must not change until the migration has finished.
+ * <p>
+ * Run from the packaged jar:
+ * <pre>
+ * java -cp target/ecommerce-springboot-1.0.0-exec.jar -Dloader.main=com.ecommerce.util.DataMigrationTool \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher
+ * </pre>
+ */
 public class DataMigrationTool {
-    
-    private static final String H2_URL = "jdbc:h2:file:./data/ecommerce_db";
-    private static final String H2_USER = "SA";
-    private static final String H2_PASSWORD = "password";  // Use your actual H2 password
-    
-    private static final String PG_URL = "jdbc:postgresql://ep-jolly-fire-ahjrykdg-pooler.c-3.us-east-1.aws.neon.tech:5432/neondb?sslmode=require";
-    private static final String PG_USER = "neondb_owner";
-    private static final String PG_PASSWORD = "npg_CkrEz2Ug7XGw";
-    
+
+    static final String CHECKPOINT_TABLE = "migration_checkpoint";
+    // Each database keeps its own migration history
+    static final String FLYWAY_HISTORY_TABLE = "flyway_schema_history";
+
+    private static final long WHOLE_TABLE = Long.MIN_VALUE;
+    private static final int COPY_BUFFER_CHARS = 1 << 20;
+
+    public record Settings(String sourceUrl, String sourceUser, String sourcePassword,
+                           String targetUrl, String targetUser, String targetPassword,
+                           int threads, int fetchSize, int batchSize, long chunkRows,
+                           Set<String> tables, boolean restart, boolean verify) {
+
+        public static Settings fromEnvironment() {
+            String targetUrl = env("MIGRATION_TARGET_URL", System.getenv("DB_URL"));
+            if (targetUrl == null || targetUrl.isBlank()) {
+                throw new IllegalArgumentException("Set MIGRATION_TARGET_URL (or DB_URL) to the target database");
+            }
+            Set<String> tables = new LinkedHashSet<>();
+            for (String table : env("MIGRATION_TABLES", "").split(",")) {
+                if (!table.isBlank()) {
+                    tables.add(table.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            return new Settings(
+                    env("MIGRATION_SOURCE_URL", "jdbc:h2:file:./data/ecommerce_db"),
+                    env("MIGRATION_SOURCE_USER", "SA"),
+                    env("MIGRATION_SOURCE_PASSWORD", ""),
+                    targetUrl,
+                    env("MIGRATION_TARGET_USER", env("DB_USERNAME", "")),
+                    env("MIGRATION_TARGET_PASSWORD", env("DB_PASSWORD", "")),
+                    Integer.parseInt(env("MIGRATION_THREADS", "4")),
+                    Integer.parseInt(env("MIGRATION_FETCH_SIZE", "10000")),
+                    Integer.parseInt(env("MIGRATION_BATCH_SIZE", "5000")),
+                    Long.parseLong(env("MIGRATION_CHUNK_ROWS", "250000")),
+                    tables,
+                    Boolean.parseBoolean(env("MIGRATION_RESTART", "false")),
+                    Boolean.parseBoolean(env("MIGRATION_VERIFY", "true")));
+        }
+
+        private static String env(String name, String fallback) {
+            String value = System.getenv(name);
+            return value != null ? value : fallback;
+        }
+    }
+
+    /** Ranges copied by this run, ranges skipped because an earlier run checkpointed them, and verification failures. */
+    public record Report(int rangesCopied, int rangesSkipped, List<String> mismatches) {
+        public boolean ok() {
+            return mismatches.isEmpty();
+        }
+    }
+
+    /** key is the integer primary key column used to split the table, or null to copy it whole. */
+    record Table(String name, List<String> columns, int[] types, String key, int depth) {
+    }
+
+    record Range(Table table, long start, long end) {
+        boolean whole() {
+            return start == WHOLE_TABLE;
+        }
+
+        String describe() {
+            return whole() ? table.name().toLowerCase(Locale.ROOT)
+                    : table.name().toLowerCase(Locale.ROOT) + " " + table.key().toLowerCase(Locale.ROOT)
+                    + " [" + start + ", " + end + ")";
+        }
+    }
+
+    record Checkpoint(long end, long rows, long checksum) {
+    }
+
+    private final Settings settings;
+    private boolean postgres;
+
+    public DataMigrationTool(Settings settings) {
+        this.settings = settings;
+    }
+
     public static void main(String[] args) {
+        Settings settings;
+        try {
+            settings = Settings.fromEnvironment();
+        } catch (IllegalArgumentException e) {
+            System.err.println("❌ " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
         System.out.println("========================================");
-        System.out.println("🔄 Starting Data Migration from H2 to PostgreSQL");
+        System.out.println("🔄 Migrating " + settings.sourceUrl() + " -> " + settings.targetUrl());
         System.out.println("========================================");
-        
-        Connection h2Conn = null;
-        Connection pgConn = null;
-        
         try {
-            Class.forName("org.h2.Driver");
-            Class.forName("org.postgresql.Driver");
-            
-            h2Conn = DriverManager.getConnection(H2_URL, H2_USER, H2_PASSWORD);
-            pgConn = DriverManager.getConnection(PG_URL, PG_USER, PG_PASSWORD);
-            
-            System.out.println("✅ Connected to both databases");
-            
-            pgConn.setAutoCommit(false);
-            
-            // Step 1: Clear existing data
-            clearPostgreSQLTables(pgConn);
-            
-            // Step 2: Migrate tables
-            migrateTableSafe(h2Conn, pgConn, "users");
-            migrateTableSafe(h2Conn, pgConn, "products");
-            migrateTableSafe(h2Conn, pgConn, "shipping_config");
-            migrateTableSafe(h2Conn, pgConn, "orders");
-            migrateTableSafe(h2Conn, pgConn, "order_items");
-            
-            // Step 3: Reset sequences (IMPORTANT!)
-            resetSequences(pgConn);
-            
-            pgConn.commit();
-            
+            Report report = new DataMigrationTool(settings).run();
             System.out.println("========================================");
-            System.out.println("✅ Migration Complete!");
+            if (report.ok()) {
+                System.out.println("✅ Migration Complete! (" + report.rangesCopied() + " ranges copied, "
+                        + report.rangesSkipped() + " already done)");
+            } else {
+                report.mismatches().forEach(mismatch -> System.err.println("❌ " + mismatch));
+                System.err.println("❌ Verification failed");
+            }
             System.out.println("========================================");
-            
+            System.exit(report.ok() ? 0 : 1);
         } catch (Exception e) {
             System.err.println("❌ Migration failed: " + e.getMessage());
             e.printStackTrace();
-            
-            if (pgConn != null) {
-                try {
-                    pgConn.rollback();
-                    System.out.println("⚠️ Transaction rolled back");
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
+            System.out.println("ℹ️ Finished ranges are checkpointed - run again to resume");
+            System.exit(1);
+        }
+    }
+
+    public Report run() throws Exception {
+        List<Table> tables;
+        Map<String, Checkpoint> checkpoints;
+        try (Connection source = source(); Connection target = target()) {
+            postgres = "PostgreSQL".equals(target.getMetaData().getDatabaseProductName());
+            tables = discoverTables(source, target);
+            prepareTarget(target, tables);
+            checkpoints = loadCheckpoints(target);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(settings.threads());
+        try {
+            int copied = 0;
+            int skipped = 0;
+            List<Range> allRanges = new ArrayList<>();
+            int maxDepth = tables.stream().mapToInt(Table::depth).max().orElse(0);
+
+            // A table is only started once every table it references is complete
+            for (int depth = 0; depth <= maxDepth; depth++) {
+                List<Range> pending = new ArrayList<>();
+                try (Connection source = source()) {
+                    for (Table table : tables) {
+                        if (table.depth() != depth) {
+                            continue;
+                        }
+                        for (Range range : plan(source, table, checkpoints)) {
+                            allRanges.add(range);
+                            if (checkpoints.containsKey(checkpointKey(range))) {
+                                skipped++;
+                            } else {
+                                pending.add(range);
+                            }
+                        }
+                    }
                 }
+                copied += copyAll(workers, pending, checkpoints);
+            }
+
+            List<String> mismatches = settings.verify() ? verify(workers, tables, allRanges, checkpoints) : List.of();
+            if (postgres && mismatches.isEmpty()) {
+                resetSequences(tables);
             }
+            return new Report(copied, skipped, mismatches);
         } finally {
-            try {
-                if (h2Conn != null) h2Conn.close();
-                if (pgConn != null) pgConn.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+            workers.shutdownNow();
+        }
+    }
+
+    // ==================== SCHEMA ====================
+
+    private List<Table> discoverTables(Connection source, Connection target) throws SQLException {
+        Map<String, String> targetTables = tableNames(target);
+        Map<String, String> sourceTables = tableNames(source);
+        sourceTables.remove(CHECKPOINT_TABLE);
+        sourceTables.remove(FLYWAY_HISTORY_TABLE);
+
+        for (String wanted : settings.tables()) {
+            if (!sourceTables.containsKey(wanted)) {
+                throw new IllegalArgumentException("Table " + wanted + " does not exist in the source");
+            }
+        }
+
+        Map<String, Set<String>> references = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, String> entry : sourceTables.entrySet()) {
+            String name = entry.getKey();
+            if (!settings.tables().isEmpty() && !settings.tables().contains(name)) {
+                continue;
+            }
+            if (!targetTables.containsKey(name)) {
+                System.out.println("⚠️ Skipping " + name + ": not in the target");
+                continue;
+            }
+            names.add(name);
+            Set<String> parents = new HashSet<>();
+            try (ResultSet keys = target.getMetaData().getImportedKeys(null, target.getSchema(), targetTables.get(name))) {
+                while (keys.next()) {
+                    parents.add(keys.getString("PKTABLE_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+            parents.remove(name);
+            references.put(name, parents);
+        }
+
+        Map<String, Integer> depths = new HashMap<>();
+        List<Table> tables = new ArrayList<>();
+        for (String name : names) {
+            tables.add(describe(source, target, sourceTables.get(name), targetTables.get(name),
+                    depth(name, references, depths, new HashSet<>())));
+        }
+        tables.sort(Comparator.comparingInt(Table::depth).thenComparing(Table::name));
+        return tables;
+    }
+
+    private static Map<String, String> tableNames(Connection connection) throws SQLException {
+        Map<String, String> names = new TreeMap<>();
+        try (ResultSet rs = connection.getMetaData().getTables(null, connection.getSchema(), "%", null)) {
+            while (rs.next()) {
+                String type = rs.getString("TABLE_TYPE");
+                if ("TABLE".equals(type) || "BASE TABLE".equals(type)) {
+                    names.put(rs.getString("TABLE_NAME").toLowerCase(Locale.ROOT), rs.getString("TABLE_NAME"));
+                }
             }
         }
+        return names;
     }
-    
-    private static void clearPostgreSQLTables(Connection pg) throws SQLException {
-        System.out.println("========================================");
-        System.out.println("🗑️ Clearing existing PostgreSQL data...");
-        System.out.println("========================================");
-        
-        Statement stmt = pg.createStatement();
-        
-        try {
-            stmt.execute("TRUNCATE TABLE order_items CASCADE;");
-            System.out.println("✅ Cleared order_items");
-        } catch (SQLException e) {
-            System.out.println("ℹ️ order_items table doesn't exist yet");
+
+    // Tables referenced from outside the migrated set do not constrain the order
+    private static int depth(String table, Map<String, Set<String>> references, Map<String, Integer> depths, Set<String> visiting) {
+        Integer known = depths.get(table);
+        if (known != null) {
+            return known;
         }
-        
-        try {
-            stmt.execute("TRUNCATE TABLE orders CASCADE;");
-            System.out.println("✅ Cleared orders");
-        } catch (SQLException e) {
-            System.out.println("ℹ️ orders table doesn't exist yet");
+        if (!visiting.add(table)) {
+            throw new IllegalStateException("Foreign key cycle through " + table);
         }
-        
-        try {
-            stmt.execute("TRUNCATE TABLE products CASCADE;");
-            System.out.println("✅ Cleared products");
-        } catch (SQLException e) {
-            System.out.println("ℹ️ products table doesn't exist yet");
+        int depth = 0;
+        for (String parent : references.get(table)) {
+            if (references.containsKey(parent)) {
+                depth = Math.max(depth, depth(parent, references, depths, visiting) + 1);
+            }
         }
-        
-        try {
-            stmt.execute("TRUNCATE TABLE shipping_config CASCADE;");
-            System.out.println("✅ Cleared shipping_config");
-        } catch (SQLException e) {
-            System.out.println("ℹ️ shipping_config table doesn't exist yet");
+        depths.put(table, depth);
+        return depth;
+    }
+
+    private Table describe(Connection source, Connection target, String name, String targetName, int depth) throws SQLException {
+        Set<String> targetColumns = new HashSet<>();
+        try (ResultSet rs = target.getMetaData().getColumns(null, target.getSchema(), targetName, "%")) {
+            while (rs.next()) {
+                targetColumns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
         }
-        
-        try {
-            stmt.execute("TRUNCATE TABLE users CASCADE;");
-            System.out.println("✅ Cleared users");
-        } catch (SQLException e) {
-            System.out.println("ℹ️ users table doesn't exist yet");
+
+        List<String> columns = new ArrayList<>();
+        List<Integer> types = new ArrayList<>();
+        try (ResultSet rs = source.getMetaData().getColumns(null, source.getSchema(), name, "%")) {
+            while (rs.next()) {
+                String column = rs.getString("COLUMN_NAME");
+                if (targetColumns.contains(column.toLowerCase(Locale.ROOT))) {
+                    columns.add(column);
+                    types.add(rs.getInt("DATA_TYPE"));
+                } else {
+                    System.out.println("⚠️ Skipping " + name.toLowerCase(Locale.ROOT) + "." + column.toLowerCase(Locale.ROOT) + ": not in the target");
+                }
+            }
         }
-        
-        try {
-            stmt.execute("TRUNCATE TABLE payment_methods CASCADE;");
-            System.out.println("✅ Cleared payment_methods");
-        } catch (SQLException e) {
-            System.out.println("ℹ️ payment_methods table doesn't exist yet");
+
+        List<String> primaryKey = new ArrayList<>();
+        try (ResultSet rs = source.getMetaData().getPrimaryKeys(null, source.getSchema(), name)) {
+            while (rs.next()) {
+                primaryKey.add(rs.getString("COLUMN_NAME"));
+            }
         }
-        
-        System.out.println("========================================");
-        
-        stmt.close();
+        String key = null;
+        if (primaryKey.size() == 1 && columns.contains(primaryKey.get(0))) {
+            int type = types.get(columns.indexOf(primaryKey.get(0)));
+            if (type == Types.BIGINT || type == Types.INTEGER || type == Types.SMALLINT || type == Types.TINYINT) {
+                key = primaryKey.get(0);
+            }
+        }
+        return new Table(name, columns, types.stream().mapToInt(Integer::intValue).toArray(), key, depth);
     }
-    
-    private static void migrateTableSafe(Connection h2, Connection pg, String tableName) {
-        System.out.println("📊 Migrating " + tableName + "...");
-        
-        try {
-            Statement h2Stmt = h2.createStatement();
-            ResultSet rs = h2Stmt.executeQuery("SELECT * FROM " + tableName);
-            ResultSetMetaData meta = rs.getMetaData();
-            int columnCount = meta.getColumnCount();
-            
-            // Build column names
-            StringBuilder columns = new StringBuilder();
-            StringBuilder placeholders = new StringBuilder();
-            for (int i = 1; i <= columnCount; i++) {
-                if (i > 1) {
-                    columns.append(", ");
-                    placeholders.append(", ");
-                }
-                columns.append(meta.getColumnName(i));
-                placeholders.append("?");
-            }
-            
-            String insertSQL = "INSERT INTO " + tableName + " (" + columns + ") VALUES (" + placeholders + ")";
-            PreparedStatement pgStmt = pg.prepareStatement(insertSQL);
-            
-            int count = 0;
-            int skipped = 0;
-            
+
+    // ==================== CHECKPOINTS ====================
+
+    private void prepareTarget(Connection target, List<Table> tables) throws SQLException {
+        boolean resuming = tableNames(target).containsKey(CHECKPOINT_TABLE);
+        try (Statement statement = target.createStatement()) {
+            if (resuming && settings.restart()) {
+                statement.execute("DROP TABLE " + CHECKPOINT_TABLE);
+                resuming = false;
+            }
+            if (resuming) {
+                System.out.println("⏩ Resuming from " + CHECKPOINT_TABLE);
+                return;
+            }
+
+            System.out.println("🗑️ Clearing target tables...");
+            if (postgres && !tables.isEmpty()) {
+                StringJoiner names = new StringJoiner(", ");
+                tables.forEach(table -> names.add(table.name()));
+                statement.execute("TRUNCATE TABLE " + names);
+            } else {
+                for (int i = tables.size() - 1; i >= 0; i--) {
+                    statement.execute("DELETE FROM " + tables.get(i).name());
+                }
+            }
+            statement.execute("CREATE TABLE " + CHECKPOINT_TABLE + " ("
+                    + "table_name VARCHAR(128) NOT NULL, "
+                    + "range_start BIGINT NOT NULL, "
+                    + "range_end BIGINT NOT NULL, "
+                    + "rows_copied BIGINT NOT NULL, "
+                    + "checksum BIGINT NOT NULL, "
+                    + "copied_at TIMESTAMP NOT NULL, "
+                    + "PRIMARY KEY (table_name, range_start))");
+        }
+    }
+
+    private static Map<String, Checkpoint> loadCheckpoints(Connection target) throws SQLException {
+        Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+        try (Statement statement = target.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT table_name, range_start, range_end, rows_copied, checksum FROM " + CHECKPOINT_TABLE)) {
             while (rs.next()) {
-                try {
-                    for (int i = 1; i <= columnCount; i++) {
-                        Object value = rs.getObject(i);
-                        
-                        if (value == null) {
-                            pgStmt.setNull(i, meta.getColumnType(i));
-                        } else {
-                            pgStmt.setObject(i, value);
+                checkpoints.put(rs.getString(1) + ":" + rs.getLong(2),
+                        new Checkpoint(rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+            }
+        }
+        return checkpoints;
+    }
+
+    private static String checkpointKey(Range range) {
+        return range.table().name().toLowerCase(Locale.ROOT) + ":" + range.start();
+    }
+
+    /** Id ranges aligned to multiples of the chunk size, so a rerun computes the same ranges. */
+    private List<Range> plan(Connection source, Table table, Map<String, Checkpoint> checkpoints) throws SQLException {
+        List<Range> ranges = new ArrayList<>();
+        if (table.key() == null) {
+            ranges.add(new Range(table, WHOLE_TABLE, Long.MAX_VALUE));
+        } else {
+            try (Statement statement = source.createStatement();
+                 ResultSet rs = statement.executeQuery(
+                         "SELECT MIN(" + table.key() + "), MAX(" + table.key() + ") FROM " + table.name())) {
+                rs.next();
+                if (rs.getObject(1) != null) {
+                    long chunk = settings.chunkRows();
+                    for (long start = Math.floorDiv(rs.getLong(1), chunk) * chunk; start <= rs.getLong(2); start += chunk) {
+                        ranges.add(new Range(table, start, start + chunk));
+                    }
+                }
+            }
+        }
+
+        String prefix = table.name().toLowerCase(Locale.ROOT) + ":";
+        Set<String> planned = new HashSet<>();
+        for (Range range : ranges) {
+            planned.add(checkpointKey(range));
+            Checkpoint checkpoint = checkpoints.get(checkpointKey(range));
+            if (checkpoint != null && checkpoint.end() != range.end()) {
+                throw new IllegalStateException("MIGRATION_CHUNK_ROWS changed since " + range.describe()
+                        + " was checkpointed; keep the old value or set MIGRATION_RESTART=true");
+            }
+        }
+        for (String key : checkpoints.keySet()) {
+            if (key.startsWith(prefix) && !planned.contains(key)) {
+                throw new IllegalStateException("Checkpoint " + key + " does not match the source any more;"
+                        + " set MIGRATION_RESTART=true to start over");
+            }
+        }
+        return ranges;
+    }
+
+    // ==================== COPY ====================
+
+    private int copyAll(ExecutorService workers, List<Range> ranges, Map<String, Checkpoint> checkpoints) throws InterruptedException {
+        List<Future<Checkpoint>> results = new ArrayList<>();
+        for (Range range : ranges) {
+            results.add(workers.submit(() -> copy(range)));
+        }
+
+        // Let the other ranges finish and checkpoint before failing, so a rerun has less to do
+        int copied = 0;
+        List<String> failures = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            try {
+                checkpoints.put(checkpointKey(ranges.get(i)), results.get(i).get());
+                copied++;
+            } catch (ExecutionException e) {
+                System.err.println("❌ " + ranges.get(i).describe() + ": " + e.getCause().getMessage());
+                failures.add(ranges.get(i).describe());
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException(failures.size() + " range(s) failed, first: " + failures.get(0));
+        }
+        return copied;
+    }
+
+    private Checkpoint copy(Range range) throws Exception {
+        long started = System.nanoTime();
+        Table table = range.table();
+        try (Connection source = source(); Connection target = target()) {
+            // PostgreSQL only streams through a cursor inside a transaction
+            source.setAutoCommit(false);
+            source.setReadOnly(true);
+            target.setAutoCommit(false);
+
+            RowWriter writer = null;
+            try (PreparedStatement select = select(source, range); ResultSet rs = select.executeQuery()) {
+                writer = postgres ? new CopyWriter(target, table) : new BatchWriter(target, table, settings.batchSize());
+                Object[] row = new Object[table.columns().size()];
+                long rows = 0;
+                long checksum = 0;
+                while (rs.next()) {
+                    read(rs, row);
+                    checksum += rowHash(row);
+                    writer.write(row);
+                    rows++;
+                }
+                writer.finish();
+
+                try (PreparedStatement insert = target.prepareStatement(
+                        "INSERT INTO " + CHECKPOINT_TABLE + " (table_name, range_start, range_end, rows_copied, checksum, copied_at)"
+                                + " VALUES (?, ?, ?, ?, ?, ?)")) {
+                    insert.setString(1, table.name().toLowerCase(Locale.ROOT));
+                    insert.setLong(2, range.start());
+                    insert.setLong(3, range.end());
+                    insert.setLong(4, rows);
+                    insert.setLong(5, checksum);
+                    insert.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+                    insert.executeUpdate();
+                }
+                target.commit();
+
+                double seconds = (System.nanoTime() - started) / 1e9;
+                System.out.printf("✅ %s: %,d rows in %.1f s (%,.0f rows/s)%n",
+                        range.describe(), rows, seconds, rows / Math.max(seconds, 0.001));
+                return new Checkpoint(range.end(), rows, checksum);
+            } catch (Exception e) {
+                if (writer != null) {
+                    writer.abort();
+                }
+                target.rollback();
+                throw e;
+            } finally {
+                source.rollback();
+            }
+        }
+    }
+
+    private PreparedStatement select(Connection connection, Range range) throws SQLException {
+        Table table = range.table();
+        String sql = "SELECT " + String.join(", ", table.columns()) + " FROM " + table.name();
+        if (!range.whole()) {
+            sql += " WHERE " + table.key() + " >= ? AND " + table.key() + " < ?";
+        }
+        PreparedStatement select = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        select.setFetchSize(settings.fetchSize());
+        if (!range.whole()) {
+            select.setLong(1, range.start());
+            select.setLong(2, range.end());
+        }
+        return select;
+    }
+
+    private static void read(ResultSet rs, Object[] row) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            Object value = rs.getObject(i + 1);
+            if (value instanceof Clob clob) {
+                value = clob.getSubString(1, (int) clob.length());
+            } else if (value instanceof Blob blob) {
+                value = blob.getBytes(1, (int) blob.length());
+            }
+            row[i] = value;
+        }
+    }
+
+    private interface RowWriter {
+        void write(Object[] row) throws SQLException;
+
+        void finish() throws SQLException;
+
+        void abort();
+    }
+
+    private static final class BatchWriter implements RowWriter {
+
+        private final PreparedStatement insert;
+        private final int[] types;
+        private final int batchSize;
+        private int pending;
+
+        BatchWriter(Connection target, Table table, int batchSize) throws SQLException {
+            this.insert = target.prepareStatement("INSERT INTO " + table.name() + " (" + String.join(", ", table.columns())
+                    + ") VALUES (" + String.join(", ", Collections.nCopies(table.columns().size(), "?")) + ")");
+            this.types = table.types();
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void write(Object[] row) throws SQLException {
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] == null) {
+                    insert.setNull(i + 1, types[i]);
+                } else {
+                    insert.setObject(i + 1, row[i]);
+                }
+            }
+            insert.addBatch();
+            if (++pending == batchSize) {
+                insert.executeBatch();
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void finish() throws SQLException {
+            if (pending > 0) {
+                insert.executeBatch();
+            }
+            insert.close();
+        }
+
+        @Override
+        public void abort() {
+            try {
+                insert.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /** Streams rows into COPY ... FROM STDIN in CSV format. */
+    private static final class CopyWriter implements RowWriter {
+
+        private final CopyIn copy;
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 4096);
+
+        CopyWriter(Connection target, Table table) throws SQLException {
+            this.copy = target.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    "COPY " + table.name() + " (" + String.join(", ", table.columns()) + ") FROM STDIN (FORMAT csv)");
+        }
+
+        @Override
+        public void write(Object[] row) throws SQLException {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                Object value = row[i];
+                // Unquoted empty is NULL; everything else is quoted so empty strings stay empty strings
+                if (value instanceof byte[] bytes) {
+                    buffer.append("\"\\x").append(HexFormat.of().formatHex(bytes)).append('"');
+                } else if (value != null) {
+                    buffer.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+                }
+            }
+            buffer.append('\n');
+            if (buffer.length() >= COPY_BUFFER_CHARS) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void finish() throws SQLException {
+            flush();
+            copy.endCopy();
+        }
+
+        @Override
+        public void abort() {
+            try {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    // ==================== VERIFY ====================
+
+    private List<String> verify(ExecutorService workers, List<Table> tables, List<Range> ranges,
+                                Map<String, Checkpoint> checkpoints) throws Exception {
+        System.out.println("🔍 Verifying " + tables.size() + " tables...");
+        List<String> mismatches = Collections.synchronizedList(new ArrayList<>());
+
+        try (Connection source = source(); Connection target = target()) {
+            for (Table table : tables) {
+                long expected = count(source, table);
+                long actual = count(target, table);
+                if (expected != actual) {
+                    mismatches.add(table.name().toLowerCase(Locale.ROOT) + ": " + expected + " rows in the source, " + actual + " in the target");
+                }
+            }
+        }
+
+        // The source side of each checksum was taken while copying, so only the target is read again
+        AtomicInteger checked = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+        for (Range range : ranges) {
+            results.add(workers.submit(() -> {
+                Checkpoint copied = checkpoints.get(checkpointKey(range));
+                try (Connection target = target()) {
+                    target.setAutoCommit(false);
+                    target.setReadOnly(true);
+                    try (PreparedStatement select = select(target, range); ResultSet rs = select.executeQuery()) {
+                        Object[] row = new Object[range.table().columns().size()];
+                        long rows = 0;
+                        long checksum = 0;
+                        while (rs.next()) {
+                            read(rs, row);
+                            checksum += rowHash(row);
+                            rows++;
+                        }
+                        if (rows != copied.rows() || checksum != copied.checksum()) {
+                            mismatches.add(range.describe() + ": copied " + copied.rows() + " rows (checksum " + copied.checksum()
+                                    + "), target has " + rows + " (checksum " + checksum + ")");
                         }
+                    } finally {
+                        target.rollback();
                     }
-                    
-                    pgStmt.executeUpdate();
-                    count++;
-                    
-                } catch (SQLException e) {
-                    System.err.println("⚠️ Skipped row in " + tableName + ": " + e.getMessage());
-                    skipped++;
-                }
-            }
-            
-            System.out.println("✅ Migrated " + count + " rows from " + tableName + (skipped > 0 ? " (skipped " + skipped + ")" : ""));
-            
-            rs.close();
-            h2Stmt.close();
-            pgStmt.close();
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error migrating " + tableName + ": " + e.getMessage());
-            e.printStackTrace();
+                }
+                checked.incrementAndGet();
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
         }
+        System.out.println((mismatches.isEmpty() ? "✅" : "❌") + " Verified " + checked.get() + " ranges, "
+                + mismatches.size() + " mismatch(es)");
+        return new ArrayList<>(mismatches);
     }
-    
-    private static void resetSequences(Connection pg) throws SQLException {
-        System.out.println("========================================");
+
+    private static long count(Connection connection, Table table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table.name())) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /** Row hash over driver-independent renderings of the values; summed per range it ignores row order. */
+    static long rowHash(Object[] row) {
+        CRC32C crc = new CRC32C();
+        for (Object value : row) {
+            crc.update(canonical(value).getBytes(StandardCharsets.UTF_8));
+            crc.update(0x1F);
+        }
+        return crc.getValue();
+    }
+
+    static String canonical(Object value) {
+        if (value == null) {
+            return "\u0000";
+        }
+        if (value instanceof byte[] bytes) {
+            return HexFormat.of().formatHex(bytes);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return plain(BigDecimal.valueOf(((Number) value).doubleValue()));
+        }
+        if (value instanceof BigDecimal decimal) {
+            return plain(decimal);
+        }
+        if (value instanceof Number number) {
+            return plain(new BigDecimal(number.toString()));
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant().toString();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.atZone(ZoneId.systemDefault()).toInstant().toString();
+        }
+        if (value instanceof OffsetDateTime dateTime) {
+            return dateTime.toInstant().toString();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().toString();
+        }
+        if (value instanceof Time time) {
+            return time.toLocalTime().toString();
+        }
+        return value.toString();
+    }
+
+    private static String plain(BigDecimal decimal) {
+        return decimal.signum() == 0 ? "0" : decimal.stripTrailingZeros().toPlainString();
+    }
+
+    // ==================== SEQUENCES ====================
+
+    private void resetSequences(List<Table> tables) throws SQLException {
         System.out.println("🔄 Resetting PostgreSQL sequences...");
-        System.out.println("========================================");
-        
-        Statement stmt = pg.createStatement();
-        
-        String[] tables = {"users", "products", "orders", "order_items", "shipping_config", "payment_methods"};
-        
-        for (String table : tables) {
-            try {
-                // Get max ID from table
-                ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) as max_id FROM " + table);
-                rs.next();
-                long maxId = rs.getLong("max_id");
-                rs.close();
-                
-                // Reset sequence to max ID + 1
-                String sequenceName = table + "_id_seq";
-                stmt.execute("SELECT setval('" + sequenceName + "', " + (maxId + 1) + ", false)");
-                
-                System.out.println("✅ Reset " + sequenceName + " to " + (maxId + 1));
-                
-            } catch (SQLException e) {
-                System.err.println("⚠️ Could not reset sequence for " + table + ": " + e.getMessage());
-            }
-        }
-        
-        stmt.close();
-        
-        System.out.println("========================================");
-        System.out.println("✅ All sequences reset successfully!");
-        System.out.println("========================================");
+        try (Connection target = target()) {
+            for (Table table : tables) {
+                if (table.key() == null) {
+                    continue;
+                }
+                try (PreparedStatement reset = target.prepareStatement("SELECT setval(pg_get_serial_sequence(?, ?), "
+                        + "COALESCE((SELECT MAX(" + table.key() + ") FROM " + table.name() + "), 0) + 1, false)")) {
+                    reset.setString(1, table.name());
+                    reset.setString(2, table.key().toLowerCase(Locale.ROOT));
+                    try (ResultSet rs = reset.executeQuery()) {
+                        // NULL when the key is not backed by a sequence
+                        if (rs.next() && rs.getObject(1) != null) {
+                            System.out.println("✅ Reset " + table.name().toLowerCase(Locale.ROOT) + " sequence to " + rs.getLong(1));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Connection source() throws SQLException {
+        return DriverManager.getConnection(settings.sourceUrl(), settings.sourceUser(), settings.sourcePassword());
+    }
+
+    private Connection target() throws SQLException {
+        return DriverManager.getConnection(settings.targetUrl(), settings.targetUser(), settings.targetPassword());
     }
-}
\ No newline at end of file
+}
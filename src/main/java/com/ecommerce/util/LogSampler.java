@@ -0,0 +1,25 @@
+package com.ecommerce.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through one event in every oneIn, for log lines on hot paths that would
+ * otherwise flood the appender. The first event is always logged.
+ */
+public class LogSampler {
+
+    private final int oneIn;
+    private final AtomicLong events = new AtomicLong();
+
+    public LogSampler(int oneIn) {
+        this.oneIn = Math.max(1, oneIn);
+    }
+
+    public boolean sample() {
+        return events.getAndIncrement() % oneIn == 0;
+    }
+
+    public int getOneIn() {
+        return oneIn;
+    }
+}
@@ -0,0 +1,160 @@
+package com.ecommerce.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves /assets/** purely from the manifest written by the build-time AssetPipeline:
+ * a single map lookup per request, no filesystem probing, and unknown paths are a
+ * 404 without falling through to other resolvers. Picks the pre-compressed .br or
+ * .gz variant when the client accepts it.
+ */
+public class ManifestResourceResolver implements ResourceResolver {
+
+    public static final String MANIFEST = "asset-manifest.json";
+
+    // Preferred first
+    private static final List<String> CODINGS = List.of("br", "gzip");
+    private static final Map<String, String> EXTENSIONS = Map.of("br", ".br", "gzip", ".gz");
+
+    private final Map<String, Asset> assets;
+
+    private ManifestResourceResolver(Map<String, Asset> assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * @param manifest asset-manifest.json; may not exist if the pipeline has not run
+     * @param assetsDir the directory the fingerprinted files were written to
+     */
+    public static ManifestResourceResolver load(Resource manifest, Resource assetsDir) throws IOException {
+        Map<String, Asset> assets = new HashMap<>();
+        if (manifest.exists()) {
+            try (InputStream in = manifest.getInputStream()) {
+                JsonNode root = new ObjectMapper().readTree(in);
+                for (JsonNode entry : root) {
+                    String path = entry.get("path").asText();
+                    Resource identity = assetsDir.createRelative(path);
+                    Map<String, Resource> encoded = new LinkedHashMap<>();
+                    for (String coding : CODINGS) {
+                        if (entry.path("encodings").has(coding)) {
+                            encoded.put(coding, assetsDir.createRelative(path + EXTENSIONS.get(coding)));
+                        }
+                    }
+                    assets.put(path, new Asset(identity, encoded));
+                }
+            }
+        }
+        return new ManifestResourceResolver(Map.copyOf(assets));
+    }
+
+    public int size() {
+        return assets.size();
+    }
+
+    @Override
+    public Resource resolveResource(HttpServletRequest request, String requestPath,
+                                    List<? extends Resource> locations, ResourceResolverChain chain) {
+        Asset asset = assets.get(requestPath);
+        if (asset == null) {
+            return null;
+        }
+        if (asset.encoded().isEmpty()) {
+            return asset.identity();
+        }
+        String accepted = request == null ? null : request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (accepted != null) {
+            accepted = accepted.toLowerCase(Locale.ROOT);
+            for (Map.Entry<String, Resource> variant : asset.encoded().entrySet()) {
+                if (accepted.contains(variant.getKey())) {
+                    return new EncodedAsset(variant.getValue(), variant.getKey(), asset.identity());
+                }
+            }
+        }
+        // Still needs Vary so shared caches keep the variants apart
+        return new EncodedAsset(asset.identity(), null, asset.identity());
+    }
+
+    @Override
+    public String resolveUrlPath(String resourcePath, List<? extends Resource> locations, ResourceResolverChain chain) {
+        return assets.containsKey(resourcePath) ? resourcePath : null;
+    }
+
+    private record Asset(Resource identity, Map<String, Resource> encoded) {
+    }
+
+    /** The stored bytes, presented under the original file name so the media type is unchanged. */
+    private static final class EncodedAsset extends AbstractResource implements HttpResource {
+
+        private final Resource stored;
+        private final String coding;
+        private final Resource original;
+
+        EncodedAsset(Resource stored, String coding, Resource original) {
+            this.stored = stored;
+            this.coding = coding;
+            this.original = original;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return stored.getInputStream();
+        }
+
+        @Override
+        public boolean exists() {
+            return stored.exists();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return stored.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return stored.lastModified();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return stored.getURL();
+        }
+
+        @Override
+        public String getFilename() {
+            return original.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return stored.getDescription();
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            if (coding != null) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, coding);
+            }
+            headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            return headers;
+        }
+    }
+}
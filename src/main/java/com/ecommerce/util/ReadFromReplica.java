@@ -0,0 +1,19 @@
+package com.ecommerce.util;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks reads that may be answered by a read replica.
+ * Only @Transactional(readOnly = true) work inside the annotated method is routed;
+ * writes, and reads by a user who has just written, still go to the primary.
+ * Has no effect unless app.datasource.replica-urls is set.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadFromReplica {
+}
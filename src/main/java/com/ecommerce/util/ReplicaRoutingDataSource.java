@@ -0,0 +1,282 @@
+package com.ecommerce.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions inside a @ReadFromReplica scope to a replica, everything else to the primary.
+ * <p>
+ * The decision is made when the first statement needs a connection, so this must sit behind a
+ * LazyConnectionDataSourceProxy: transaction managers ask for a connection in doBegin, before the
+ * read-only flag is published. Replicas whose last lag check failed or exceeded maxLagMs are skipped,
+ * and a user whose read-write transaction committed within readYourWritesMs reads from the primary
+ * (per node; a checkout followed by "my orders" sees the new order).
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public enum Selection { ROUND_ROBIN, LEAST_LOADED }
+
+    private static final ThreadLocal<Boolean> REPLICA_SCOPE = new ThreadLocal<>();
+
+    // Above this many tracked writers, expired entries are swept on the next write
+    private static final int MAX_TRACKED_WRITERS = 10_000;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final long maxLagMs;
+    private final long readYourWritesMs;
+    private final String lagQuery;
+    private final Supplier<String> currentUser;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+
+    private final Counter replicaReads;
+    private final Counter stickyReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Selection selection,
+                                    long maxLagMs, long readYourWritesMs, String lagQuery,
+                                    Supplier<String> currentUser, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.maxLagMs = maxLagMs;
+        this.readYourWritesMs = readYourWritesMs;
+        this.lagQuery = lagQuery;
+        this.currentUser = currentUser;
+
+        replicaReads = routedCounter(meterRegistry, "replica");
+        stickyReads = routedCounter(meterRegistry, "primary-read-your-writes");
+        fallbackReads = routedCounter(meterRegistry, "primary-no-replica");
+        for (Replica replica : this.replicas) {
+            Gauge.builder("ecommerce.db.replica.lag", replica, r -> r.lagMs)
+                    .baseUnit("milliseconds")
+                    .description("Replication lag at the last check, -1 when the replica is unreachable")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Counter routedCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("ecommerce.db.replica-eligible-reads")
+                .description("Read-only transactions in a @ReadFromReplica scope, by where they were sent")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    // ==================== REPLICA SCOPE ====================
+
+    /** Opens a replica scope on this thread; pass the result to {@link #exitReplicaScope}. */
+    public static boolean enterReplicaScope() {
+        boolean previous = Boolean.TRUE.equals(REPLICA_SCOPE.get());
+        REPLICA_SCOPE.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void exitReplicaScope(boolean previous) {
+        if (!previous) {
+            REPLICA_SCOPE.remove();
+        }
+    }
+
+    // ==================== ROUTING ====================
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (readOnly && Boolean.TRUE.equals(REPLICA_SCOPE.get())) {
+            String user = currentUser.get();
+            if (user != null && wroteRecently(user)) {
+                stickyReads.increment();
+            } else {
+                Connection connection = replicaConnection();
+                if (connection != null) {
+                    replicaReads.increment();
+                    return connection;
+                }
+                fallbackReads.increment();
+            }
+        }
+
+        Connection connection = primary.getConnection();
+        if (!readOnly && TransactionSynchronizationManager.isSynchronizationActive()) {
+            rememberWriter(currentUser.get());
+        }
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    private Connection replicaConnection() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        Replica chosen = null;
+        for (int i = 0; i < size; i++) {
+            Replica candidate = replicas.get((start + i) % size);
+            if (!candidate.healthy) {
+                continue;
+            }
+            if (selection == Selection.ROUND_ROBIN) {
+                chosen = candidate;
+                break;
+            }
+            if (chosen == null || candidate.activeConnections() < chosen.activeConnections()) {
+                chosen = candidate;
+            }
+        }
+        if (chosen == null) {
+            return null;
+        }
+        try {
+            return chosen.dataSource.getConnection();
+        } catch (SQLException e) {
+            // Don't wait for the next lag check to stop sending reads there
+            chosen.markDown(e.getMessage());
+            return null;
+        }
+    }
+
+    // ==================== READ-YOUR-WRITES ====================
+
+    private void rememberWriter(String user) {
+        if (user == null || readYourWritesMs <= 0) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long now = System.currentTimeMillis();
+                if (recentWriters.size() > MAX_TRACKED_WRITERS) {
+                    recentWriters.values().removeIf(until -> until < now);
+                }
+                recentWriters.put(user, now + readYourWritesMs);
+            }
+        });
+    }
+
+    private boolean wroteRecently(String user) {
+        Long until = recentWriters.get(user);
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            recentWriters.remove(user, until);
+            return false;
+        }
+        return true;
+    }
+
+    // ==================== HEALTH ====================
+
+    /** Runs the lag query on every replica and updates which ones may serve reads. */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(5);
+                try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                    long lag = rs.next() ? rs.getLong(1) : 0;
+                    replica.lagMs = lag;
+                    if (lag > maxLagMs) {
+                        replica.markDown("lagging " + lag + " ms behind (max " + maxLagMs + ")");
+                    } else {
+                        replica.markUp();
+                    }
+                }
+            } catch (SQLException e) {
+                replica.lagMs = -1;
+                replica.markDown(e.getMessage());
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+        if (primary instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.error("Error closing primary pool", e);
+            }
+        }
+    }
+
+    public static final class Replica {
+
+        private final String name;
+        private final HikariDataSource dataSource;
+        // Not used until the first lag check says so
+        private volatile boolean healthy;
+        private volatile long lagMs = -1;
+
+        public Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public long getLagMs() {
+            return lagMs;
+        }
+
+        private int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+
+        private void markUp() {
+            if (!healthy) {
+                healthy = true;
+                log.info("Read replica '{}' in rotation (lag {} ms)", name, lagMs);
+            }
+        }
+
+        private void markDown(String reason) {
+            if (healthy) {
+                healthy = false;
+                log.warn("Read replica '{}' out of rotation: {}", name, reason);
+            }
+        }
+    }
+}
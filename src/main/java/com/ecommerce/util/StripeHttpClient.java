@@ -0,0 +1,107 @@
+package com.ecommerce.util;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.HttpHeaders;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import com.stripe.net.StripeResponseStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stripe transport on top of java.net.http instead of HttpURLConnection.
+ * HttpURLConnection shares one keep-alive cache across the whole JVM, sized only by the
+ * http.maxConnections system property; this client owns its connection pool, and a
+ * semaphore caps how many requests (and so how many connections) it has open at once.
+ */
+public class StripeHttpClient extends HttpClient {
+
+    private final java.net.http.HttpClient client;
+    private final Semaphore connections;
+    private final long acquireTimeoutMs;
+
+    public StripeHttpClient(int maxConnections, int connectTimeoutMs, long acquireTimeoutMs) {
+        // HTTP/1.1 keeps one request per connection, so the permits bound the pool size too
+        this.client = java.net.http.HttpClient.newBuilder()
+                .version(java.net.http.HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        this.connections = new Semaphore(maxConnections, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws ApiConnectionException {
+        HttpResponse<byte[]> response = send(request);
+        return new StripeResponse(response.statusCode(), HttpHeaders.of(response.headers().map()),
+                new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public StripeResponseStream requestStream(StripeRequest request) throws ApiConnectionException {
+        HttpResponse<byte[]> response = send(request);
+        return new StripeResponseStream(response.statusCode(), HttpHeaders.of(response.headers().map()),
+                new ByteArrayInputStream(response.body()));
+    }
+
+    public int getAvailableConnections() {
+        return connections.availablePermits();
+    }
+
+    private HttpResponse<byte[]> send(StripeRequest request) throws ApiConnectionException {
+        try {
+            if (!connections.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ApiConnectionException(
+                        "No Stripe connection available within " + acquireTimeoutMs + " ms", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Interrupted while waiting for a Stripe connection", e);
+        }
+
+        try {
+            return client.send(toHttpRequest(request), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException | URISyntaxException e) {
+            throw new ApiConnectionException(
+                    "IOException during API request to Stripe (" + request.url().getHost() + "): " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Interrupted during API request to Stripe", e);
+        } finally {
+            connections.release();
+        }
+    }
+
+    private static HttpRequest toHttpRequest(StripeRequest request) throws URISyntaxException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.url().toURI());
+        Integer readTimeoutMs = request.options().getReadTimeout();
+        if (readTimeoutMs != null && readTimeoutMs > 0) {
+            builder.timeout(Duration.ofMillis(readTimeoutMs));
+        }
+
+        HttpHeaders headers = request.headers().withAdditionalHeaders(Map.of(
+                "User-Agent", List.of(buildUserAgentString()),
+                "X-Stripe-Client-User-Agent", List.of(buildXStripeClientUserAgentString())));
+        headers.map().forEach((name, values) -> builder.header(name, String.join(",", values)));
+
+        if (request.content() != null) {
+            builder.header("Content-Type", request.content().contentType());
+            builder.method(request.method().name(),
+                    HttpRequest.BodyPublishers.ofByteArray(request.content().byteArrayContent()));
+        } else {
+            builder.method(request.method().name(), HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+}
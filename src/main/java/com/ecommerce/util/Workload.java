@@ -0,0 +1,20 @@
+package com.ecommerce.util;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated method's database work on the named workload's connection pool,
+ * so a slow admin report cannot take the connections checkout needs.
+ * The innermost annotation wins; has no effect unless app.datasource.workload-pools.enabled=true.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Workload {
+
+    WorkloadClass value();
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.util;
+
+/**
+ * Classes of database work that get their own connection pool (see {@link Workload}).
+ */
+public enum WorkloadClass {
+
+    /** Storefront traffic; also anything not annotated, so it uses the spring.datasource.hikari pool settings. */
+    BROWSE,
+
+    /** Placing orders: the idempotency claim, stock decrement and order insert. */
+    CHECKOUT,
+
+    /** Back-office reporting, returns and label generation. */
+    ADMIN,
+
+    /** Scheduled jobs: invalidation polling, purges, reconciliation. */
+    BACKGROUND;
+
+    public String poolName() {
+        return name().toLowerCase();
+    }
+}
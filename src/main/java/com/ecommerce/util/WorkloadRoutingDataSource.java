@@ -0,0 +1,81 @@
+package com.ecommerce.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Hands out connections from the pool of the workload active on this thread (BROWSE if none).
+ * Like {@link ReplicaRoutingDataSource} it must sit behind a LazyConnectionDataSourceProxy,
+ * so the pool is picked when the first statement runs rather than when a transaction starts.
+ */
+public class WorkloadRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadRoutingDataSource.class);
+
+    private static final ThreadLocal<WorkloadClass> CURRENT = new ThreadLocal<>();
+
+    private final Map<WorkloadClass, DataSource> pools;
+
+    public WorkloadRoutingDataSource(Map<WorkloadClass, DataSource> pools) {
+        if (!pools.containsKey(WorkloadClass.BROWSE)) {
+            throw new IllegalArgumentException("A BROWSE pool is required");
+        }
+        this.pools = new EnumMap<>(pools);
+    }
+
+    /** Switches this thread to a workload; pass the result to {@link #exit}. */
+    public static WorkloadClass enter(WorkloadClass workload) {
+        WorkloadClass previous = CURRENT.get();
+        CURRENT.set(workload);
+        return previous;
+    }
+
+    public static void exit(WorkloadClass previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static WorkloadClass current() {
+        WorkloadClass workload = CURRENT.get();
+        return workload != null ? workload : WorkloadClass.BROWSE;
+    }
+
+    private DataSource pool() {
+        DataSource pool = pools.get(current());
+        return pool != null ? pool : pools.get(WorkloadClass.BROWSE);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return pool().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return pool().getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        for (Map.Entry<WorkloadClass, DataSource> entry : pools.entrySet()) {
+            try {
+                if (entry.getValue().isWrapperFor(Closeable.class)) {
+                    entry.getValue().unwrap(Closeable.class).close();
+                }
+            } catch (Exception e) {
+                log.error("Error closing {} pool", entry.getKey().poolName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.ecommerce.webcontroller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.linkbuilder.StandardLinkBuilder;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The {@link WebHomeController} pages have no model: every request would render the
+ * same HTML. At startup each one is rendered once into memory, together with a
+ * gzip copy and an ETag, and served from there by this interceptor before the
+ * controller (and Thymeleaf) is ever reached.
+ *
+ * With app.web.prerender.enabled=false the controller renders as usual, which is
+ * what you want when editing templates live.
+ */
+@Component
+public class PrerenderedPages implements HandlerInterceptor, SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PrerenderedPages.class);
+
+    // gzip copies are only kept when they save at least this much
+    private static final int MIN_COMPRESSION_SAVING = 256;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private List<ITemplateResolver> templateResolvers;
+
+    @Autowired
+    private WebHomeController webHomeController;
+
+    @Value("${app.web.prerender.enabled:true}")
+    private boolean enabled;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    private volatile Map<Method, Page> pages = Map.of();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // No handler mapping without a web server (e.g. the catalog command-line runner)
+        if (!enabled || !applicationContext.containsBean("requestMappingHandlerMapping")) {
+            return;
+        }
+        // Looked up here rather than injected: the handler mapping itself depends on this interceptor
+        RequestMappingHandlerMapping mapping =
+                applicationContext.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        SpringTemplateEngine engine = templateEngine();
+
+        Map<Method, Page> rendered = new HashMap<>();
+        Set<String> templates = new HashSet<>();
+        long bytes = 0;
+        for (HandlerMethod handler : mapping.getHandlerMethods().values()) {
+            Method method = handler.getMethod();
+            if (handler.getBeanType() != WebHomeController.class
+                    || method.getParameterCount() != 0 || method.getReturnType() != String.class) {
+                continue;
+            }
+            try {
+                String template = (String) method.invoke(webHomeController);
+                byte[] html = engine.process(template, new Context(Locale.getDefault()))
+                        .getBytes(StandardCharsets.UTF_8);
+                rendered.put(method, Page.of(html));
+                templates.add(template);
+                bytes += html.length;
+            } catch (Exception e) {
+                // Leave it to the controller; rendering will fail there too if the template is broken
+                log.warn("Could not prerender {}(): {}", method.getName(), e.getMessage());
+            }
+        }
+        pages = Map.copyOf(rendered);
+        log.info("Prerendered {} pages ({} KB)", templates.size(), bytes / 1024);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Page page = pages.get(handlerMethod.getMethod());
+        if (page == null) {
+            return true;
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = page.gzip() != null && acceptEncoding != null
+                && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        // Pages change only on deploy, so browsers keep them but always revalidate
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (new ServletWebRequest(request, response).checkNotModified(gzip ? page.gzipETag() : page.etag())) {
+            return false;
+        }
+
+        byte[] body = gzip ? page.gzip() : page.html();
+        response.setContentType(MediaType.TEXT_HTML_VALUE + ";charset=UTF-8");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(body);
+        }
+        return false;
+    }
+
+    // A private engine over the application's template resolvers, so @{...} links can be
+    // resolved without a request: they only need the context path
+    private SpringTemplateEngine templateEngine() {
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolvers(new HashSet<>(templateResolvers));
+        engine.setLinkBuilder(new StandardLinkBuilder() {
+            @Override
+            protected String computeContextPath(IExpressionContext context, String base, Map<String, Object> parameters) {
+                return contextPath;
+            }
+        });
+        return engine;
+    }
+
+    private record Page(byte[] html, String etag, byte[] gzip, String gzipETag) {
+
+        static Page of(byte[] html) {
+            String hash = hash(html);
+            byte[] gzip = gzip(html);
+            if (html.length - gzip.length < MIN_COMPRESSION_SAVING) {
+                return new Page(html, "\"" + hash + "\"", null, null);
+            }
+            // Each encoding is a different representation, so it gets its own ETag
+            return new Page(html, "\"" + hash + "\"", gzip, "\"" + hash + "-gzip\"");
+        }
+
+        private static String hash(byte[] bytes) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+                return HexFormat.of().formatHex(digest, 0, 8);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static byte[] gzip(byte[] bytes) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                gzip.write(bytes);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+-- Schema as Hibernate's ddl-auto=update created it for the application before migrations
+-- were introduced. Databases created that way are baselined at this version
+-- (spring.flyway.baseline-on-migrate) and start from V2.
+
+CREATE TABLE users (
+    id                        BIGSERIAL    NOT NULL,
+    name                      VARCHAR(255) NOT NULL,
+    email                     VARCHAR(255) NOT NULL,
+    password                  VARCHAR(255) NOT NULL,
+    role                      VARCHAR(255) NOT NULL CHECK (role IN ('USER', 'ADMIN')),
+    created_at                TIMESTAMP(6),
+    phone_number              VARCHAR(255),
+    saved_payment_method      VARCHAR(255),
+    card_last_four            VARCHAR(255),
+    billing_zip               VARCHAR(255),
+    stripe_payment_method_id  VARCHAR(255),
+    stripe_customer_id        VARCHAR(255),
+    default_payment_method_id VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE products (
+    id                 BIGSERIAL     NOT NULL,
+    name               VARCHAR(255)  NOT NULL,
+    description        VARCHAR(1000),
+    price              FLOAT(53)     NOT NULL,
+    category           VARCHAR(255),
+    stock              INTEGER       NOT NULL,
+    image_url          VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE orders (
+    id                     BIGSERIAL    NOT NULL,
+    user_id                BIGINT       NOT NULL,
+    total_amount           FLOAT(53)    NOT NULL,
+    subtotal               FLOAT(53),
+    tax                    FLOAT(53),
+    shipping               FLOAT(53),
+    order_status           VARCHAR(255) CHECK (order_status IN ('PENDING', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED', 'RETURNED')),
+    payment_status         VARCHAR(255) CHECK (payment_status IN ('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED')),
+    payment_method         VARCHAR(255),
+    payment_id             VARCHAR(255),
+    tracking_number        VARCHAR(255),
+    carrier                VARCHAR(255),
+    shipping_street        VARCHAR(255),
+    shipping_city          VARCHAR(255),
+    shipping_state         VARCHAR(255),
+    shipping_zip_code      VARCHAR(255),
+    shipping_country       VARCHAR(255),
+    created_at             TIMESTAMP(6),
+    return_request_date    TIMESTAMP(6),
+    return_tracking_number VARCHAR(255),
+    return_carrier         VARCHAR(255),
+    return_status          VARCHAR(255) CHECK (return_status IN ('RETURN_REQUESTED', 'LABEL_SENT', 'IN_TRANSIT', 'RECEIVED', 'REFUND_ISSUED')),
+    refund_issued_date     TIMESTAMP(6),
+    refund_amount          FLOAT(53),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users
+);
+
+CREATE TABLE order_items (
+    id           BIGSERIAL    NOT NULL,
+    order_id     BIGINT       NOT NULL,
+    product_id   BIGINT       NOT NULL,
+    product_name VARCHAR(255) NOT NULL,
+    quantity     INTEGER      NOT NULL,
+    price        FLOAT(53)    NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders,
+    CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES products
+);
+
+CREATE TABLE payment_methods (
+    id                       BIGSERIAL    NOT NULL,
+    user_id                  BIGINT       NOT NULL,
+    stripe_payment_method_id VARCHAR(255) NOT NULL,
+    card_brand               VARCHAR(255),
+    card_last_four           VARCHAR(255),
+    is_default               BOOLEAN,
+    created_at               TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_payment_methods_user FOREIGN KEY (user_id) REFERENCES users
+);
+
+CREATE TABLE shipping_config (
+    id                      BIGSERIAL NOT NULL,
+    shipping_cost           FLOAT(53) NOT NULL,
+    free_shipping_threshold FLOAT(53) NOT NULL,
+    updated_at              TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,59 @@
+-- Columns and tables added after the V1 baseline. Databases that ran those builds with
+-- ddl-auto=update already have some or all of them, hence IF NOT EXISTS throughout.
+
+-- Card metadata kept locally and reconciled in the background
+ALTER TABLE payment_methods ADD COLUMN IF NOT EXISTS card_exp_month     INTEGER;
+ALTER TABLE payment_methods ADD COLUMN IF NOT EXISTS card_exp_year      INTEGER;
+ALTER TABLE payment_methods ADD COLUMN IF NOT EXISTS billing_zip        VARCHAR(255);
+ALTER TABLE payment_methods ADD COLUMN IF NOT EXISTS metadata_synced_at TIMESTAMP(6);
+
+-- Content-addressed product images
+ALTER TABLE products ADD COLUMN IF NOT EXISTS image_hash         VARCHAR(64);
+ALTER TABLE products ADD COLUMN IF NOT EXISTS image_content_type VARCHAR(32);
+ALTER TABLE products ADD COLUMN IF NOT EXISTS image_size         BIGINT;
+ALTER TABLE products ADD COLUMN IF NOT EXISTS image_width        INTEGER;
+ALTER TABLE products ADD COLUMN IF NOT EXISTS image_height       INTEGER;
+
+-- Catalog import/export key
+ALTER TABLE products ADD COLUMN IF NOT EXISTS sku VARCHAR(64);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_products_sku ON products (sku);
+
+-- Idempotent order creation
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id              BIGSERIAL    NOT NULL,
+    idempotency_key VARCHAR(300) NOT NULL,
+    status          VARCHAR(255) NOT NULL CHECK (status IN ('IN_PROGRESS', 'COMPLETED')),
+    response_status INTEGER,
+    response_body   OID,
+    created_at      TIMESTAMP(6) NOT NULL,
+    expires_at      TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_idempotency_key UNIQUE (idempotency_key)
+);
+
+-- Cross-node cache invalidation bus
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+    id           BIGSERIAL    NOT NULL,
+    topic        VARCHAR(32)  NOT NULL,
+    cache_key    VARCHAR(255),
+    origin_node  VARCHAR(64)  NOT NULL,
+    published_at BIGINT       NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_cache_invalidations_published_at ON cache_invalidations (published_at);
+
+-- Finished orders moved out of orders/order_items by OrderArchiveService
+CREATE TABLE IF NOT EXISTS order_archive (
+    id             BIGINT       NOT NULL,
+    user_id        BIGINT       NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL,
+    order_status   VARCHAR(20),
+    payment_status VARCHAR(20),
+    total_amount   FLOAT(53),
+    archived_at    TIMESTAMP(6) NOT NULL,
+    payload        BYTEA        NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_archive_user_created ON order_archive (user_id, created_at);
@@ -0,0 +1,3 @@
+-- Trigram operator classes for the product name search index (V4). pg_trgm is a trusted
+-- extension (PostgreSQL 13+), so the database owner can create it.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,21 @@
+-- idempotency_keys.response_body was mapped with @Lob, which on PostgreSQL stores each body as a
+-- large object referenced by OID. Deleting a row (release, purge) never unlinked the object, so
+-- pg_largeobject grew without bound. Keep the body inline as text instead; copy existing bodies
+-- over and unlink their objects. Objects already orphaned by earlier deletes are not referenced
+-- anywhere any more - remove them once with vacuumlo.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema()
+                 AND table_name = 'idempotency_keys'
+                 AND column_name = 'response_body'
+                 AND data_type = 'oid') THEN
+        ALTER TABLE idempotency_keys ADD COLUMN response_body_text TEXT;
+        UPDATE idempotency_keys
+           SET response_body_text = convert_from(lo_get(response_body), 'UTF8')
+         WHERE response_body IS NOT NULL;
+        PERFORM lo_unlink(response_body) FROM idempotency_keys WHERE response_body IS NOT NULL;
+        ALTER TABLE idempotency_keys DROP COLUMN response_body;
+        ALTER TABLE idempotency_keys RENAME COLUMN response_body_text TO response_body;
+    END IF;
+END $$;
@@ -0,0 +1,3 @@
+-- SHA-256 of the request a key was first used with; a different request under the same key is refused (422).
+-- Rows written before this column existed have no hash and are not checked.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
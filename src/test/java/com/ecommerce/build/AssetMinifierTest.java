@@ -0,0 +1,52 @@
+package com.ecommerce.build;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AssetMinifierTest {
+
+    @Test
+    void jsDropsCommentsAndIndentationButKeepsLiterals() {
+        String source = """
+                // load the cart
+                function load(items) {
+                    /* block
+                       comment */
+                    const url = 'http://example.com/api';   // not a comment inside the string
+                    const re = /\\/\\/[a-z]+/g;
+                    return `Total: ${items.map(i => `${i.name} // x`).join(', ')}  ok`;
+                }
+                """;
+
+        assertEquals("function load(items){const url='http://example.com/api';"
+                        + "const re=/\\/\\/[a-z]+/g;"
+                        + "return `Total: ${items.map(i=>`${i.name} // x`).join(', ')}  ok`;}",
+                AssetMinifier.js(source));
+    }
+
+    @Test
+    void jsKeepsNewlinesThatAutomaticSemicolonInsertionDependsOn() {
+        assertEquals("let a=b\n++c\nreturn\nx", AssetMinifier.js("let a = b\n++c\nreturn\n  x"));
+        // '/' is never joined: division, regex and comment starts look alike
+        assertEquals("a=b / c / d", AssetMinifier.js("a = b / c / d"));
+    }
+
+    @Test
+    void cssStripsSpacesAroundDeclarationsButNotSelectors() {
+        String source = """
+                /* nav */
+                .nav a :hover , .x > .y {
+                    color: red;
+                    margin: 0 auto;
+                }
+                @media (max-width: 768px) {
+                    .a { content: "a  b"; }
+                }
+                """;
+
+        assertEquals(".nav a :hover,.x>.y{color:red;margin:0 auto}"
+                        + "@media (max-width: 768px){.a{content:\"a  b\"}}",
+                AssetMinifier.css(source));
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CatalogVersionService;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductControllerTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CatalogVersionService catalogVersionService = new CatalogVersionService();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ProductController controller = new ProductController();
+        ReflectionTestUtils.setField(controller, "productRepository", productRepository);
+        ReflectionTestUtils.setField(controller, "productService", new ProductService(productRepository, catalogVersionService));
+        ReflectionTestUtils.setField(controller, "catalogVersionService", catalogVersionService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        Product product = new Product("Widget", "A widget", 9.99, "Tools", 5, null);
+        product.setId(1L);
+        when(productRepository.findAll()).thenReturn(List.of(product));
+    }
+
+    @Test
+    void repeatRequestWithETagIsNotModifiedWithoutLoadingProducts() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "no-cache, public"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void stockOrCatalogChangeInvalidatesETag() throws Exception {
+        String etag = mockMvc.perform(get("/api/products")).andReturn().getResponse().getHeader("ETag");
+
+        catalogVersionService.bumpStockVersion();
+        String afterStock = mockMvc.perform(get("/api/products").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        catalogVersionService.bumpCatalogVersion();
+        mockMvc.perform(get("/api/products").header("If-None-Match", afterStock))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CatalogVersionService;
+import com.ecommerce.support.LoadTestApp;
+import com.ecommerce.support.SmtpSink;
+import com.ecommerce.support.StubStripeServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Catalog GETs against the whole application with two in-memory H2 databases:
+ * the primary, and a replica loaded from a snapshot of it.
+ */
+class ProductReplicaReadTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:replica-read-primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica-read-replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    private static final long MAX_LAG_MS = 500;
+
+    @TempDir
+    Path dir;
+
+    private StubStripeServer stripe;
+    private SmtpSink smtp;
+    private LoadTestApp app;
+    private final HttpClient http = HttpClient.newHttpClient();
+    private Long productId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stripe = new StubStripeServer();
+        smtp = new SmtpSink();
+        app = LoadTestApp.start("replica-read-primary", stripe, smtp, Map.of(
+                "app.datasource.replica-urls", REPLICA_URL,
+                "app.datasource.replica-max-lag-ms", MAX_LAG_MS,
+                "app.datasource.replica-lag-query", "SELECT 0"));
+
+        productId = app.getBean(ProductRepository.class)
+                .save(new Product("Widget", "A widget", 9.99, "Tools", 5, null)).getId();
+
+        // The replica has replayed everything: a copy of the primary as it is now
+        Path snapshot = dir.resolve("snapshot.sql");
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement()) {
+            statement.execute("SCRIPT TO '" + snapshot + "'");
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM '" + snapshot + "'");
+        }
+
+        // The first request initialises the DispatcherServlet; keep that out of the timed checks
+        assertEquals(200, get("/api/products"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (app != null) {
+            app.close();
+        }
+        stripe.close();
+        smtp.close();
+    }
+
+    @Test
+    void catalogGetsReadFromTheReplica() throws Exception {
+        waitOutCatalogChangeWindow();
+        double before = replicaReads();
+
+        assertEquals(200, get("/api/products"));
+        assertEquals(200, get("/api/products/" + productId));
+
+        assertEquals(before + 2, replicaReads());
+    }
+
+    @Test
+    void catalogGetsRightAfterAChangeReadFromThePrimary() throws Exception {
+        app.getBean(CatalogVersionService.class).bumpCatalogVersion();
+        double before = replicaReads();
+
+        assertEquals(200, get("/api/products"));
+
+        assertEquals(before, replicaReads());
+    }
+
+    private void waitOutCatalogChangeWindow() throws InterruptedException {
+        long changedAt = app.getBean(CatalogVersionService.class).getCatalogLastModified();
+        long wait = changedAt + MAX_LAG_MS + 1 - System.currentTimeMillis();
+        if (wait > 0) {
+            Thread.sleep(wait);
+        }
+    }
+
+    private int get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(app.getBaseUrl() + path)).GET().build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 200) {
+            assertTrue(response.body().contains("Widget"));
+        }
+        return response.statusCode();
+    }
+
+    private double replicaReads() {
+        Counter counter = app.getBean(MeterRegistry.class).find("ecommerce.db.replica-eligible-reads")
+                .tag("target", "replica")
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -0,0 +1,336 @@
+package com.ecommerce.load;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.support.LoadReport;
+import com.ecommerce.support.LoadStats;
+import com.ecommerce.support.LoadTestApp;
+import com.ecommerce.support.SmtpSink;
+import com.ecommerce.support.StubStripeServer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test of the storefront with nothing outside the JVM: H2 in PostgreSQL
+ * mode, an SMTP sink and a stub Stripe with injected latency (see {@link LoadTestApp}).
+ *
+ * Shoppers browse, occasionally log in again, check out (calculate, payment intent, place
+ * order) and sometimes return an earlier order; admins list orders, stats and returns.
+ * Each client draws from its own seeded Random, so the request mix is the same on every run.
+ *
+ * Run with: mvn test -Pload-test -Dtest=CheckoutLoadTest
+ * Tunables (system properties): load.clients, load.admin-clients, load.duration-seconds,
+ * load.warmup-seconds, load.stripe-latency-ms, load.think-time-ms, load.products, load.seed,
+ * load.virtual-threads, load.concurrency-limit, load.max-error-rate, load.report-dir
+ * With load.concurrency-limit shed requests (503) count as errors, so raise load.max-error-rate too.
+ * The report is written to target/load-report/report.{json,html}.
+ */
+@Tag("load")
+class CheckoutLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 50);
+    private static final int ADMIN_CLIENTS = Integer.getInteger("load.admin-clients", 2);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+    private static final int STRIPE_LATENCY_MS = Integer.getInteger("load.stripe-latency-ms", 50);
+    private static final int THINK_TIME_MS = Integer.getInteger("load.think-time-ms", 0);
+    private static final int PRODUCTS = Integer.getInteger("load.products", 50);
+    private static final long SEED = Long.getLong("load.seed", 42L);
+    private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("load.virtual-threads");
+    private static final boolean CONCURRENCY_LIMIT = Boolean.getBoolean("load.concurrency-limit");
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.max-error-rate", "0"));
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "target/load-report"));
+
+    private static final String PASSWORD = "password123";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private HttpClient http;
+    private String baseUrl;
+    private List<Long> productIds;
+
+    @Test
+    void storefrontUnderLoad() throws Exception {
+        LoadStats stats;
+        PrintStream console = System.out;
+        try (StubStripeServer stripe = new StubStripeServer(); SmtpSink smtp = new SmtpSink()) {
+            stripe.setLatencyMs(STRIPE_LATENCY_MS);
+
+            Map<String, Object> overrides = new HashMap<>();
+            overrides.put("spring.threads.virtual.enabled", VIRTUAL_THREADS);
+            overrides.put("app.concurrency-limit.enabled", CONCURRENCY_LIMIT);
+            // The app logs with System.out on every request; piping that through surefire
+            // would dominate the measurement, so it is muted for the whole run
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try (LoadTestApp app = LoadTestApp.start("checkout-load", stripe, smtp, overrides)) {
+                baseUrl = app.getBaseUrl();
+                http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                productIds = seedProducts(app);
+                List<String> shopperTokens = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; i++) {
+                    shopperTokens.add(register(shopperEmail(i)));
+                }
+                List<String> adminTokens = new ArrayList<>();
+                for (int i = 0; i < ADMIN_CLIENTS; i++) {
+                    adminTokens.add(registerAdmin(app, "load-admin" + i + "@example.com"));
+                }
+
+                // Warm-up results are thrown away so JIT and pool start-up do not skew the report
+                run(new LoadStats(), WARMUP_SECONDS, shopperTokens, adminTokens);
+                stats = new LoadStats();
+                run(stats, DURATION_SECONDS, shopperTokens, adminTokens);
+            } finally {
+                System.setOut(console);
+            }
+        }
+
+        List<LoadStats.Summary> endpoints = stats.summarize(DURATION_SECONDS);
+        LoadStats.Summary total = stats.total(DURATION_SECONDS);
+        LoadReport report = new LoadReport("Checkout load test", configuration(), endpoints, total);
+        report.write(REPORT_DIR);
+
+        System.out.println();
+        System.out.println("=== Checkout load test: " + CLIENTS + " shoppers, " + ADMIN_CLIENTS + " admins, "
+                + DURATION_SECONDS + " s, Stripe latency " + STRIPE_LATENCY_MS + " ms ===");
+        System.out.print(report.table());
+        System.out.println("Report written to " + REPORT_DIR.toAbsolutePath());
+
+        assertTrue(total.requests() > 0, "load test completed no requests");
+        for (LoadStats.Summary summary : endpoints) {
+            assertTrue(summary.errorRate() <= MAX_ERROR_RATE, summary.endpoint() + " error rate "
+                    + summary.errorRate() + " above " + MAX_ERROR_RATE + ": " + summary.statusCounts());
+        }
+    }
+
+    private static Map<String, Object> configuration() {
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("clients", CLIENTS);
+        configuration.put("adminClients", ADMIN_CLIENTS);
+        configuration.put("durationSeconds", DURATION_SECONDS);
+        configuration.put("warmupSeconds", WARMUP_SECONDS);
+        configuration.put("stripeLatencyMs", STRIPE_LATENCY_MS);
+        configuration.put("thinkTimeMs", THINK_TIME_MS);
+        configuration.put("products", PRODUCTS);
+        configuration.put("seed", SEED);
+        configuration.put("virtualThreads", VIRTUAL_THREADS);
+        configuration.put("concurrencyLimit", CONCURRENCY_LIMIT);
+        return configuration;
+    }
+
+    // ========================================
+    // SETUP
+    // ========================================
+
+    private List<Long> seedProducts(LoadTestApp app) {
+        Random random = new Random(SEED);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("Load Product " + i);
+            product.setDescription("Seeded by CheckoutLoadTest");
+            product.setPrice(5 + random.nextInt(9_500) / 100.0);
+            product.setCategory("Load " + (i % 5));
+            product.setStock(10_000_000);
+            products.add(product);
+        }
+        return app.getBean(ProductRepository.class).saveAll(products).stream().map(Product::getId).toList();
+    }
+
+    private String register(String email) throws Exception {
+        JsonNode body = MAPPER.readTree(http.send(json(baseUrl + "/api/auth/register", null, Map.of(
+                "name", "Load User", "email", email, "password", PASSWORD)), HttpResponse.BodyHandlers.ofString()).body());
+        return body.get("token").asText();
+    }
+
+    // Tokens only carry the username, so promoting after registration is enough
+    private String registerAdmin(LoadTestApp app, String email) throws Exception {
+        String token = register(email);
+        UserRepository users = app.getBean(UserRepository.class);
+        User admin = users.findByEmail(email).orElseThrow();
+        admin.setRole(Role.ADMIN);
+        users.save(admin);
+        return token;
+    }
+
+    private static String shopperEmail(int client) {
+        return "load-shopper" + client + "@example.com";
+    }
+
+    // ========================================
+    // SCENARIOS
+    // ========================================
+
+    private void run(LoadStats stats, int seconds, List<String> shopperTokens, List<String> adminTokens)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < shopperTokens.size(); i++) {
+                int client = i;
+                clients.execute(() -> shopper(stats, client, shopperTokens.get(client), deadline));
+            }
+            for (String token : adminTokens) {
+                clients.execute(() -> admin(stats, token, deadline));
+            }
+        }
+    }
+
+    private void shopper(LoadStats stats, int client, String token, long deadline) {
+        Random random = new Random(SEED + client);
+        Deque<Long> returnable = new ArrayDeque<>();
+        while (System.nanoTime() < deadline) {
+            send(stats, "GET /api/products", get("/api/products", null));
+
+            if (random.nextInt(10) == 0) {
+                JsonNode login = send(stats, "POST /api/auth/login", json(baseUrl + "/api/auth/login", null,
+                        Map.of("email", shopperEmail(client), "password", PASSWORD)));
+                if (login != null) {
+                    token = login.get("token").asText();
+                }
+            }
+
+            Long orderId = checkout(stats, token, random);
+            if (orderId != null) {
+                returnable.add(orderId);
+            }
+
+            if (!returnable.isEmpty() && random.nextInt(5) == 0) {
+                long returned = returnable.poll();
+                send(stats, "POST /api/orders/{id}/return-request", json(
+                        baseUrl + "/api/orders/" + returned + "/return-request", token,
+                        Map.of("reason", "Changed my mind", "items", List.of())));
+            }
+            think();
+        }
+    }
+
+    // Cart of 1-3 random products: calculate (signed quote), payment intent, place order
+    private Long checkout(LoadStats stats, String token, Random random) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        int lines = 1 + random.nextInt(3);
+        for (int i = 0; i < lines; i++) {
+            items.add(Map.of("productId", productIds.get(random.nextInt(productIds.size())),
+                    "quantity", 1 + random.nextInt(2)));
+        }
+        Map<String, Object> order = new HashMap<>();
+        order.put("items", items);
+        order.put("shippingStreet", "1 Main St");
+        order.put("shippingCity", "Austin");
+        order.put("shippingState", "TX");
+        order.put("shippingZipCode", "78701");
+        order.put("shippingCountry", "USA");
+        order.put("paymentMethod", "card");
+
+        JsonNode quote = send(stats, "POST /api/orders/calculate", json(baseUrl + "/api/orders/calculate", token, order));
+        if (quote == null) {
+            return null;
+        }
+        double amount = Math.round(quote.get("total").asDouble() * 100) / 100.0;
+        JsonNode intent = send(stats, "POST /api/payment/create-payment-intent",
+                json(baseUrl + "/api/payment/create-payment-intent", token, Map.of("amount", amount)));
+        if (intent == null) {
+            return null;
+        }
+
+        order.put("quoteToken", quote.get("quoteToken").asText());
+        order.put("paymentId", intent.get("paymentIntentId").asText());
+        JsonNode created = send(stats, "POST /api/orders", json(baseUrl + "/api/orders", token, order));
+        return created == null ? null : created.get("id").asLong();
+    }
+
+    private void admin(LoadStats stats, String token, long deadline) {
+        while (System.nanoTime() < deadline) {
+            send(stats, "GET /api/admin/orders", get("/api/admin/orders", token));
+            send(stats, "GET /api/admin/stats", get("/api/admin/stats", token));
+            send(stats, "GET /api/admin/returned-orders", get("/api/admin/returned-orders", token));
+            think();
+        }
+    }
+
+    private static void think() {
+        if (THINK_TIME_MS > 0) {
+            try {
+                Thread.sleep(THINK_TIME_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ========================================
+    // HTTP
+    // ========================================
+
+    // Records the call under the endpoint label; returns the parsed body on 2xx, otherwise null
+    private JsonNode send(LoadStats stats, String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        int status = 0;
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            return status / 100 == 2 ? MAPPER.readTree(response.body()) : null;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        } finally {
+            stats.record(endpoint, start, status);
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request.build();
+    }
+
+    private static HttpRequest json(String url, String token, Object body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        try {
+            request.POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request.build();
+    }
+}
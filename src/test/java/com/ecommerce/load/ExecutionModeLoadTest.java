@@ -0,0 +1,247 @@
+package com.ecommerce.load;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.support.LoadTestApp;
+import com.ecommerce.support.SmtpSink;
+import com.ecommerce.support.StubStripeServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares product-listing and checkout throughput with platform threads and with
+ * virtual threads. Each mode boots the full app against H2, a stub Stripe with
+ * injected latency and an SMTP sink, then drives it with many concurrent clients.
+ *
+ * Run with: mvn test -Pload-test
+ * Tunables (system properties): load.clients, load.duration-seconds, load.stripe-latency-ms
+ */
+@Tag("load")
+class ExecutionModeLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 400);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 10);
+    private static final int STRIPE_LATENCY_MS = Integer.getInteger("load.stripe-latency-ms", 150);
+    private static final int USERS = 20;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static StubStripeServer stripe;
+    private static SmtpSink smtp;
+
+    @BeforeAll
+    static void startDependencies() throws Exception {
+        stripe = new StubStripeServer();
+        stripe.setLatencyMs(STRIPE_LATENCY_MS);
+        smtp = new SmtpSink();
+    }
+
+    @AfterAll
+    static void stopDependencies() throws Exception {
+        stripe.close();
+        smtp.close();
+    }
+
+    @Test
+    void compareThroughputOfPlatformAndVirtualThreads() throws Exception {
+        // The app logs with System.out on every request; piping that through surefire
+        // would dominate the measurement, so it is muted while the modes run
+        PrintStream console = System.out;
+        Map<String, Result> platform;
+        Map<String, Result> virtual;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            platform = runMode(false);
+            virtual = runMode(true);
+        } finally {
+            System.setOut(console);
+        }
+
+        System.out.println();
+        System.out.println("=== Execution mode comparison: " + CLIENTS + " clients, " + DURATION_SECONDS
+                + " s per scenario, Stripe latency " + STRIPE_LATENCY_MS + " ms ===");
+        System.out.printf("%-16s %-9s %10s %10s %12s %12s%n", "scenario", "mode", "ok", "errors", "ops/s", "p99 ms");
+        for (String scenario : platform.keySet()) {
+            print(scenario, "platform", platform.get(scenario));
+            print(scenario, "virtual", virtual.get(scenario));
+        }
+
+        for (Map<String, Result> results : List.of(platform, virtual)) {
+            for (Result result : results.values()) {
+                assertTrue(result.ok > 0, "scenario completed no operations");
+                assertEquals(0, result.errors, "scenario reported errors");
+            }
+        }
+    }
+
+    // ========================================
+    // ONE MODE
+    // ========================================
+
+    private Map<String, Result> runMode(boolean virtualThreads) throws Exception {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("spring.threads.virtual.enabled", virtualThreads);
+        // Size the Stripe bulkhead out of the way so the thread model is what gets measured
+        overrides.put("stripe.gateway.max-concurrent", CLIENTS);
+        overrides.put("stripe.gateway.queue-capacity", CLIENTS);
+
+        try (LoadTestApp app = LoadTestApp.start("load-" + virtualThreads, stripe, smtp, overrides)) {
+            String baseUrl = app.getBaseUrl();
+            long productId = seedProduct(app);
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            List<String> tokens = registerUsers(http, baseUrl, virtualThreads);
+
+            Map<String, Result> results = new LinkedHashMap<>();
+            results.put("product-listing", drive(client -> {
+                HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/products"))
+                        .GET().build(), HttpResponse.BodyHandlers.ofString());
+                return response.statusCode() == 200;
+            }));
+            results.put("checkout", drive(client -> checkout(http, baseUrl, tokens.get(client % tokens.size()), productId)));
+            return results;
+        }
+    }
+
+    private long seedProduct(LoadTestApp app) {
+        Product product = new Product();
+        product.setName("Load Test Widget");
+        product.setDescription("Seeded by ExecutionModeLoadTest");
+        product.setPrice(19.99);
+        product.setCategory("Load");
+        product.setStock(10_000_000);
+        return app.getBean(ProductRepository.class).save(product).getId();
+    }
+
+    private List<String> registerUsers(HttpClient http, String baseUrl, boolean virtualThreads) throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            JsonNode body = post(http, baseUrl + "/api/auth/register", null, Map.of(
+                    "name", "Load User " + i,
+                    "email", "load" + i + "-" + virtualThreads + "@example.com",
+                    "password", "password123"));
+            tokens.add(body.get("token").asText());
+        }
+        return tokens;
+    }
+
+    // create-payment-intent (Stripe), calculate (signed quote), then place the order
+    private boolean checkout(HttpClient http, String baseUrl, String token, long productId) throws Exception {
+        JsonNode intent = post(http, baseUrl + "/api/payment/create-payment-intent", token, Map.of("amount", 19.99));
+        if (intent == null || !intent.has("paymentIntentId")) {
+            return false;
+        }
+
+        Map<String, Object> order = new HashMap<>();
+        order.put("items", List.of(Map.of("productId", productId, "quantity", 1)));
+        order.put("shippingStreet", "1 Main St");
+        order.put("shippingCity", "Austin");
+        order.put("shippingState", "TX");
+        order.put("shippingZipCode", "78701");
+        order.put("shippingCountry", "USA");
+        order.put("paymentMethod", "card");
+
+        JsonNode quote = post(http, baseUrl + "/api/orders/calculate", token, order);
+        if (quote == null || !quote.has("quoteToken")) {
+            return false;
+        }
+        order.put("quoteToken", quote.get("quoteToken").asText());
+        order.put("paymentId", intent.get("paymentIntentId").asText());
+
+        JsonNode created = post(http, baseUrl + "/api/orders", token, order);
+        return created != null && created.has("id");
+    }
+
+    private static JsonNode post(HttpClient http, String url, String token, Object body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            return null;
+        }
+        return MAPPER.readTree(response.body());
+    }
+
+    // ========================================
+    // DRIVER
+    // ========================================
+
+    private Result drive(Operation operation) throws InterruptedException {
+        AtomicLong ok = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                int client = i;
+                clients.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            if (operation.run(client)) {
+                                ok.incrementAndGet();
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    }
+                });
+            }
+        }
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        sorted.sort(null);
+        long p99 = sorted.isEmpty() ? 0 : sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(sorted.size() * 0.99) - 1));
+        return new Result(ok.get(), errors.get(), ok.get() / (double) DURATION_SECONDS, p99);
+    }
+
+    private static void print(String scenario, String mode, Result result) {
+        System.out.printf("%-16s %-9s %10d %10d %12.1f %12d%n",
+                scenario, mode, result.ok, result.errors, result.opsPerSecond, result.p99Ms);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        boolean run(int client) throws Exception;
+    }
+
+    private record Result(long ok, long errors, double opsPerSecond, long p99Ms) {
+    }
+}
@@ -0,0 +1,317 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.User;
+import com.ecommerce.support.LoadTestApp;
+import com.ecommerce.support.SmtpSink;
+import com.ecommerce.support.StubStripeServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that every query the repositories send to a large table can use an index. The application
+ * is booted against PostgreSQL (so the Flyway migrations and ddl-auto=validate run too), each
+ * repository query method is called once with the SQL Hibernate generates for it recorded, including
+ * the follow-up selects for eager associations, and each statement is planned with sequential scans
+ * disabled. A scan of one of {@link #LARGE_TABLES} still left in the plan means there is no index the
+ * query can use: either a Seq Scan, or a walk over a whole unrelated index (no Index Cond, only a
+ * Filter), which is what the planner falls back to when sequential scans are off. Ordered index walks
+ * under a Limit (top-N reads) are fine.
+ *
+ * Plans are generic (plan_cache_mode=force_generic_plan), so they do not depend on parameter
+ * values or on how much data is in the tables.
+ *
+ * Run with: mvn test -Pquery-plan -Dquery-plan.url=jdbc:postgresql://localhost:5432/scratch
+ * (query-plan.username / query-plan.password default to postgres / empty). The database is
+ * wiped first, so point it at a scratch database.
+ */
+@Tag("query-plan")
+class QueryPlanTest {
+
+    private static final String URL = System.getProperty("query-plan.url",
+            "jdbc:postgresql://localhost:5432/ecommerce_query_plan");
+    private static final String USERNAME = System.getProperty("query-plan.username", "postgres");
+    private static final String PASSWORD = System.getProperty("query-plan.password", "");
+
+    // Tables that grow with customers and orders; shipping_config is one row
+    private static final Set<String> LARGE_TABLES = Set.of("users", "products", "orders", "order_items",
+            "order_archive", "payment_methods", "idempotency_keys", "cache_invalidations");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void repositoryQueriesUseIndexes() throws Exception {
+        resetDatabase();
+
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("spring.datasource.url", URL);
+        overrides.put("spring.datasource.driver-class-name", "org.postgresql.Driver");
+        overrides.put("spring.datasource.username", USERNAME);
+        overrides.put("spring.datasource.password", PASSWORD);
+        overrides.put("spring.jpa.database-platform", "org.hibernate.dialect.PostgreSQLDialect");
+        overrides.put("spring.jpa.hibernate.ddl-auto", "validate");
+        overrides.put("spring.flyway.enabled", "true");
+        overrides.put("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                SqlRecorder.class.getName());
+
+        Map<String, List<String>> statements = new LinkedHashMap<>();
+        try (StubStripeServer stripe = new StubStripeServer();
+             SmtpSink smtp = new SmtpSink();
+             LoadTestApp app = LoadTestApp.start("query-plan", stripe, smtp, overrides)) {
+            seed();
+            Map<String, Consumer<LoadTestApp>> queries = queries(app);
+            assertEquals(declaredQueryMethods(), new TreeSet<>(queries.keySet()),
+                    "Every repository query method needs an entry in queries()");
+
+            // Rolled back, so the deletes leave the seed rows alone
+            TransactionTemplate transaction = new TransactionTemplate(app.getBean(PlatformTransactionManager.class));
+            transaction.executeWithoutResult(status -> {
+                for (Map.Entry<String, Consumer<LoadTestApp>> query : queries.entrySet()) {
+                    statements.put(query.getKey(), SqlRecorder.record(() -> query.getValue().accept(app)));
+                }
+                status.setRollbackOnly();
+            });
+        }
+
+        List<String> failures = new ArrayList<>();
+        try (Connection connection = connect(); Statement session = connection.createStatement()) {
+            session.execute("SET enable_seqscan = off");
+            session.execute("SET plan_cache_mode = force_generic_plan");
+            for (Map.Entry<String, List<String>> query : statements.entrySet()) {
+                for (String sql : new LinkedHashSet<>(query.getValue())) {
+                    List<String> scans = new ArrayList<>();
+                    JsonNode plan = MAPPER.readTree(explain(connection, sql, "FORMAT JSON")).get(0).get("Plan");
+                    findFullScans(plan, false, scans);
+                    if (!scans.isEmpty()) {
+                        failures.add(query.getKey() + ": " + String.join(", ", scans) + "\n  " + sql + "\n"
+                                + explain(connection, sql, "FORMAT TEXT"));
+                    }
+                }
+            }
+        }
+        assertTrue(failures.isEmpty(), "Full scans of large tables:\n" + String.join("\n", failures));
+    }
+
+    /** One call per query method of every repository; the names are checked against the interfaces. */
+    private static Map<String, Consumer<LoadTestApp>> queries(LoadTestApp app) {
+        User user = app.getBean(UserRepository.class).findByEmail("plan@example.com").orElseThrow();
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, Consumer<LoadTestApp>> queries = new LinkedHashMap<>();
+        queries.put("ArchivedOrderRepository.findByUserIdOrderByCreatedAtDesc",
+                a -> a.getBean(ArchivedOrderRepository.class).findByUserIdOrderByCreatedAtDesc(user.getId()));
+        queries.put("ArchivedOrderRepository.sumTotalAmountByPaymentStatus",
+                a -> a.getBean(ArchivedOrderRepository.class).sumTotalAmountByPaymentStatus("COMPLETED"));
+        queries.put("CacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc",
+                a -> a.getBean(CacheInvalidationRepository.class).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 100)));
+        queries.put("CacheInvalidationRepository.findByIdIn",
+                a -> a.getBean(CacheInvalidationRepository.class).findByIdIn(List.of(1L, 2L)));
+        queries.put("CacheInvalidationRepository.findMaxId",
+                a -> a.getBean(CacheInvalidationRepository.class).findMaxId());
+        queries.put("CacheInvalidationRepository.deletePublishedBefore",
+                a -> a.getBean(CacheInvalidationRepository.class).deletePublishedBefore(0L));
+        queries.put("IdempotencyRecordRepository.findByIdempotencyKey",
+                a -> a.getBean(IdempotencyRecordRepository.class).findByIdempotencyKey("plan-key"));
+        queries.put("IdempotencyRecordRepository.deleteExpired",
+                a -> a.getBean(IdempotencyRecordRepository.class).deleteExpired(now));
+        queries.put("OrderRepository.findByUserOrderByCreatedAtDesc",
+                a -> a.getBean(OrderRepository.class).findByUserOrderByCreatedAtDesc(user));
+        queries.put("OrderRepository.findAllByOrderByCreatedAtDesc",
+                a -> a.getBean(OrderRepository.class).findAllByOrderByCreatedAtDesc());
+        queries.put("OrderRepository.findByOrderStatusOrderByReturnRequestDateDesc",
+                a -> a.getBean(OrderRepository.class).findByOrderStatusOrderByReturnRequestDateDesc(Order.OrderStatus.RETURNED));
+        queries.put("OrderRepository.sumTotalAmountByPaymentStatus",
+                a -> a.getBean(OrderRepository.class).sumTotalAmountByPaymentStatus(Order.PaymentStatus.COMPLETED));
+        queries.put("PaymentMethodRepository.findByUser",
+                a -> a.getBean(PaymentMethodRepository.class).findByUser(user));
+        queries.put("PaymentMethodRepository.findByUserOrderByIsDefaultDescCreatedAtDesc",
+                a -> a.getBean(PaymentMethodRepository.class).findByUserOrderByIsDefaultDescCreatedAtDesc(user));
+        queries.put("PaymentMethodRepository.findByUserAndIsDefault",
+                a -> a.getBean(PaymentMethodRepository.class).findByUserAndIsDefault(user, true));
+        queries.put("PaymentMethodRepository.findByUserAndStripePaymentMethodId",
+                a -> a.getBean(PaymentMethodRepository.class).findByUserAndStripePaymentMethodId(user, "pm_plan"));
+        queries.put("PaymentMethodRepository.findStaleMetadata",
+                a -> a.getBean(PaymentMethodRepository.class).findStaleMetadata(now, PageRequest.of(0, 100)));
+        queries.put("ProductRepository.findByCategory",
+                a -> a.getBean(ProductRepository.class).findByCategory("Electronics"));
+        queries.put("ProductRepository.findByNameContainingIgnoreCase",
+                a -> a.getBean(ProductRepository.class).findByNameContainingIgnoreCase("lap"));
+        queries.put("ShippingConfigRepository.findFirstByOrderByIdDesc",
+                a -> a.getBean(ShippingConfigRepository.class).findFirstByOrderByIdDesc());
+        queries.put("UserRepository.findByEmail",
+                a -> a.getBean(UserRepository.class).findByEmail("plan@example.com"));
+        queries.put("UserRepository.existsByEmail",
+                a -> a.getBean(UserRepository.class).existsByEmail("plan@example.com"));
+        return queries;
+    }
+
+    private static Set<String> declaredQueryMethods() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definition) {
+                return definition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter(new AssignableTypeFilter(Repository.class));
+
+        Set<String> methods = new TreeSet<>();
+        for (BeanDefinition definition : scanner.findCandidateComponents(QueryPlanTest.class.getPackageName())) {
+            Class<?> repository = Class.forName(definition.getBeanClassName());
+            for (Method method : repository.getDeclaredMethods()) {
+                if (!method.isDefault() && !method.isSynthetic()) {
+                    methods.add(repository.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+        return methods;
+    }
+
+    // Enough rows for every association to be loaded, so its follow-up selects are recorded too
+    private static void seed() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (id, name, email, password, role, created_at)"
+                    + " VALUES (1, 'Plan', 'plan@example.com', 'x', 'USER', now())");
+            statement.execute("INSERT INTO products (id, name, price, category, stock)"
+                    + " VALUES (1, 'Laptop', 999.0, 'Electronics', 5)");
+            statement.execute("INSERT INTO orders (id, user_id, total_amount, order_status, payment_status,"
+                    + " created_at, return_request_date) VALUES (1, 1, 999.0, 'RETURNED', 'COMPLETED', now(), now())");
+            statement.execute("INSERT INTO order_items (id, order_id, product_id, product_name, quantity, price)"
+                    + " VALUES (1, 1, 1, 'Laptop', 1, 999.0)");
+            statement.execute("INSERT INTO payment_methods (id, user_id, stripe_payment_method_id, is_default, created_at)"
+                    + " VALUES (1, 1, 'pm_plan', true, now())");
+        }
+    }
+
+    private static void findFullScans(JsonNode node, boolean underLimit, List<String> scans) {
+        String type = node.path("Node Type").asText();
+        String table = node.path("Relation Name").asText();
+        if (LARGE_TABLES.contains(table)) {
+            boolean indexWalk = type.startsWith("Index") && !node.has("Index Cond") && node.has("Filter");
+            if (type.equals("Seq Scan") || (indexWalk && !underLimit)) {
+                scans.add(type + " on " + table);
+            }
+        }
+        for (JsonNode child : node.path("Plans")) {
+            findFullScans(child, underLimit || type.equals("Limit"), scans);
+        }
+    }
+
+    private static String explain(Connection connection, String sql, String options) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PREPARE plan_check AS " + numberParameters(sql));
+            try {
+                // A generic plan ignores the values, so NULL will do for every parameter
+                int parameters = countParameters(sql);
+                String arguments = parameters == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery("EXPLAIN (" + options + ") EXECUTE plan_check" + arguments)) {
+                    while (rs.next()) {
+                        plan.append("    ").append(rs.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            } finally {
+                statement.execute("DEALLOCATE plan_check");
+            }
+        }
+    }
+
+    // JDBC ? placeholders to PostgreSQL's $1, $2, ...; string literals are left alone
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        boolean inLiteral = false;
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (c == '?' && !inLiteral) {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private static int countParameters(String sql) {
+        int parameters = 0;
+        boolean inLiteral = false;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            } else if (c == '?' && !inLiteral) {
+                parameters++;
+            }
+        }
+        return parameters;
+    }
+
+    private static void resetDatabase() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS public CASCADE");
+            statement.execute("CREATE SCHEMA public");
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(URL, USERNAME, PASSWORD);
+    }
+
+    /** Hibernate hook; collects the SQL issued on the calling thread while {@link #record} runs. */
+    public static class SqlRecorder implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+        static List<String> record(Runnable work) {
+            List<String> statements = new ArrayList<>();
+            RECORDED.set(statements);
+            try {
+                work.run();
+            } finally {
+                RECORDED.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = RECORDED.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CatalogVersionServiceTest {
+
+    private final CatalogVersionService versions = new CatalogVersionService();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void bumpInsideATransactionTakesEffectOnlyAfterCommit() {
+        String before = versions.getCatalogETag();
+        TransactionSynchronizationManager.initSynchronization();
+
+        versions.bumpStockVersion();
+        assertEquals(before, versions.getCatalogETag());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNotEquals(before, versions.getCatalogETag());
+    }
+
+    @Test
+    void rolledBackBumpIsNeverApplied() {
+        long before = versions.getShippingConfigVersion();
+        TransactionSynchronizationManager.initSynchronization();
+
+        versions.bumpShippingConfigVersion();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(before, versions.getShippingConfigVersion());
+    }
+
+    @Test
+    void bumpOutsideATransactionAppliesAtOnce() {
+        long before = versions.getCatalogVersion();
+        versions.bumpCatalogVersion();
+        assertEquals(before + 1, versions.getCatalogVersion());
+    }
+}
@@ -0,0 +1,102 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderCalculation;
+import com.ecommerce.dto.OrderRequest;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CheckoutQuoteServiceTest {
+
+    private static final String EMAIL = "buyer@example.com";
+
+    private final CatalogVersionService catalogVersionService = new CatalogVersionService();
+    private CheckoutQuoteService quotes;
+    private OrderRequest request;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        Product product = new Product("Widget", "A widget", 10.0, "Tools", 5, null);
+        product.setId(1L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        TaxService taxService = mock(TaxService.class);
+        when(taxService.calculateShipping(anyDouble())).thenReturn(5.0);
+        when(taxService.getTaxRate(any(), any())).thenReturn(8.0);
+
+        quotes = new CheckoutQuoteService();
+        ReflectionTestUtils.setField(quotes, "productRepository", productRepository);
+        ReflectionTestUtils.setField(quotes, "taxService", taxService);
+        ReflectionTestUtils.setField(quotes, "catalogVersionService", catalogVersionService);
+        ReflectionTestUtils.setField(quotes, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(quotes, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(quotes, "quoteSecret", "test-secret");
+        ReflectionTestUtils.setField(quotes, "ttlSeconds", 900L);
+        ReflectionTestUtils.setField(quotes, "cacheSize", 10);
+        quotes.init();
+
+        request = new OrderRequest();
+        request.setItems(List.of(new OrderRequest.OrderItemDTO(1L, 2)));
+        request.setShippingState("CA");
+        request.setShippingZipCode("94105");
+    }
+
+    private void useQuote() {
+        OrderCalculation calculation = quotes.quote(request, EMAIL);
+        request.setQuoteToken(calculation.getQuoteToken());
+    }
+
+    @Test
+    void unchangedQuoteVerifies() {
+        useQuote();
+        assertTrue(quotes.verify(request, EMAIL).isPresent());
+    }
+
+    @Test
+    void shippingConfigChangeMeansReprice() {
+        useQuote();
+        catalogVersionService.bumpShippingConfigVersion();
+        assertFalse(quotes.verify(request, EMAIL).isPresent());
+    }
+
+    @Test
+    void catalogChangeMeansReprice() {
+        useQuote();
+        catalogVersionService.bumpCatalogVersion();
+        assertFalse(quotes.verify(request, EMAIL).isPresent());
+    }
+
+    @Test
+    void stockChangeKeepsTheQuote() {
+        useQuote();
+        catalogVersionService.bumpStockVersion();
+        assertTrue(quotes.verify(request, EMAIL).isPresent());
+    }
+
+    @Test
+    void tokenFromAnotherBootOrNodeMeansReprice() {
+        useQuote();
+        ReflectionTestUtils.setField(quotes, "catalogVersionService", new CatalogVersionService() {
+            @Override
+            public String getEpoch() {
+                return "other";
+            }
+        });
+        assertFalse(quotes.verify(request, EMAIL).isPresent());
+    }
+}
@@ -0,0 +1,273 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.IdempotencyKeyReuseException;
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final Map<String, Object> ORDER = Map.of("paymentId", "pm_1", "items", 2);
+
+    // The idempotency_keys table, shared by every "node"; callers only ever see copies
+    private final Map<String, IdempotencyRecord> table = new HashMap<>();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger handlerRuns = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private IdempotencyRecordRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            synchronized (table) {
+                if (table.containsKey(record.getIdempotencyKey())) {
+                    throw new DataIntegrityViolationException("uk_idempotency_key");
+                }
+                table.put(record.getIdempotencyKey(), copy(record));
+            }
+            return record;
+        });
+        when(repository.findByIdempotencyKey(anyString())).thenAnswer(invocation -> {
+            synchronized (table) {
+                return Optional.ofNullable(table.get(invocation.<String>getArgument(0))).map(this::copy);
+            }
+        });
+        when(repository.deleteIfExpired(anyString(), any())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            LocalDateTime cutoff = invocation.getArgument(1);
+            synchronized (table) {
+                IdempotencyRecord record = table.get(key);
+                return record != null && record.getExpiresAt().isBefore(cutoff) && table.remove(key) != null ? 1 : 0;
+            }
+        });
+        when(repository.takeOver(anyString(), any(), any())).thenAnswer(invocation -> {
+            synchronized (table) {
+                IdempotencyRecord record = leased(invocation.getArgument(0), invocation.getArgument(1));
+                if (record == null) {
+                    return 0;
+                }
+                record.setCreatedAt(invocation.getArgument(2));
+                return 1;
+            }
+        });
+        when(repository.complete(anyString(), any(), anyInt(), any())).thenAnswer(invocation -> {
+            synchronized (table) {
+                IdempotencyRecord record = leased(invocation.getArgument(0), invocation.getArgument(1));
+                if (record == null) {
+                    return 0;
+                }
+                record.setStatus(IdempotencyRecord.Status.COMPLETED);
+                record.setResponseStatus(invocation.getArgument(2));
+                record.setResponseBody(invocation.getArgument(3));
+                return 1;
+            }
+        });
+        when(repository.release(anyString(), any())).thenAnswer(invocation -> {
+            synchronized (table) {
+                String key = invocation.getArgument(0);
+                return leased(key, invocation.getArgument(1)) != null && table.remove(key) != null ? 1 : 0;
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private IdempotencyService node(long waitTimeoutMs) {
+        IdempotencyService service = new IdempotencyService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "idempotencyRecordRepository", repository);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "waitTimeoutMs", waitTimeoutMs);
+        return service;
+    }
+
+    private ResponseEntity<?> created() {
+        int order = handlerRuns.incrementAndGet();
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("orderId", order));
+    }
+
+    @Test
+    void replaysTheStoredResponseWithoutRunningTheHandlerAgain() {
+        IdempotencyService service = node(5_000);
+
+        ResponseEntity<?> first = service.execute(1L, "key-1", ORDER, this::created);
+        ResponseEntity<?> retry = service.execute(1L, "key-1", ORDER, this::created);
+
+        assertEquals(1, handlerRuns.get());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAY_HEADER));
+        assertEquals("{\"orderId\":1}", retry.getBody());
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAY_HEADER));
+        assertEquals(IdempotencyRecord.Status.COMPLETED, table.get("1:key-1").getStatus());
+    }
+
+    @Test
+    void keysAreScopedPerUser() {
+        IdempotencyService service = node(5_000);
+
+        service.execute(1L, "key-1", ORDER, this::created);
+        service.execute(2L, "key-1", ORDER, this::created);
+
+        assertEquals(2, handlerRuns.get());
+    }
+
+    @Test
+    void concurrentDuplicateOnTheSameNodeWaitsForTheFirstResponse() throws Exception {
+        assertConcurrentDuplicateGetsFirstResponse(node(5_000), null);
+    }
+
+    @Test
+    void concurrentDuplicateOnAnotherNodeWaitsForTheStoredResponse() throws Exception {
+        IdempotencyService nodeA = node(5_000);
+        assertConcurrentDuplicateGetsFirstResponse(nodeA, node(5_000));
+    }
+
+    private void assertConcurrentDuplicateGetsFirstResponse(IdempotencyService first, IdempotencyService other)
+            throws Exception {
+        IdempotencyService second = other != null ? other : first;
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        Future<ResponseEntity<?>> original = executor.submit(() -> first.execute(1L, "key-1", ORDER, () -> {
+            started.countDown();
+            await(finish);
+            return created();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<ResponseEntity<?>> duplicate = executor.submit(() -> second.execute(1L, "key-1", ORDER, this::created));
+
+        Thread.sleep(200);
+        assertFalse(duplicate.isDone(), "duplicate must wait while the first request runs");
+        finish.countDown();
+
+        assertEquals(HttpStatus.CREATED, original.get(5, TimeUnit.SECONDS).getStatusCode());
+        ResponseEntity<?> replayed = duplicate.get(5, TimeUnit.SECONDS);
+        assertEquals(1, handlerRuns.get());
+        assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAY_HEADER));
+        assertEquals("{\"orderId\":1}", replayed.getBody());
+    }
+
+    @Test
+    void failedRequestReleasesTheKeySoARetryRunsAgain() {
+        IdempotencyService service = node(5_000);
+
+        assertThrows(IllegalStateException.class, () -> service.execute(1L, "key-1", ORDER, () -> {
+            handlerRuns.incrementAndGet();
+            throw new IllegalStateException("card declined");
+        }));
+        assertFalse(table.containsKey("1:key-1"));
+
+        ResponseEntity<?> badRequest = service.execute(1L, "key-1", ORDER, () -> {
+            handlerRuns.incrementAndGet();
+            return ResponseEntity.badRequest().body(Map.of("message", "out of stock"));
+        });
+        assertEquals(HttpStatus.BAD_REQUEST, badRequest.getStatusCode());
+        assertFalse(table.containsKey("1:key-1"));
+
+        ResponseEntity<?> retry = service.execute(1L, "key-1", ORDER, this::created);
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals(3, handlerRuns.get());
+    }
+
+    @Test
+    void reusingAKeyWithADifferentRequestIsRefused() {
+        IdempotencyService service = node(5_000);
+        service.execute(1L, "key-1", ORDER, this::created);
+
+        Map<String, Object> otherOrder = Map.of("paymentId", "pm_1", "items", 3);
+        assertThrows(IdempotencyKeyReuseException.class,
+                () -> service.execute(1L, "key-1", otherOrder, this::created));
+        assertEquals(1, handlerRuns.get());
+    }
+
+    @Test
+    void inProgressKeyIsTakenOverOnceItsLeaseRunsOut() {
+        IdempotencyService service = node(200);
+        LocalDateTime deadOwner = LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MICROS);
+        String hash = (String) ReflectionTestUtils.invokeMethod(service, "hash", ORDER);
+        table.put("1:key-1", new IdempotencyRecord("1:key-1", hash, deadOwner, deadOwner.plusHours(24)));
+
+        ResponseEntity<?> response = service.execute(1L, "key-1", ORDER, this::created);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(1, handlerRuns.get());
+        IdempotencyRecord record = table.get("1:key-1");
+        assertEquals(IdempotencyRecord.Status.COMPLETED, record.getStatus());
+        assertTrue(record.getCreatedAt().isAfter(deadOwner));
+    }
+
+    @Test
+    void ownerWhoseLeaseWasTakenOverDoesNotOverwriteTheNewOwner() {
+        IdempotencyService service = node(5_000);
+
+        service.execute(1L, "key-1", ORDER, () -> {
+            // Another node takes the key over while this request is still running
+            synchronized (table) {
+                table.get("1:key-1").setCreatedAt(LocalDateTime.now().plusSeconds(1));
+            }
+            return created();
+        });
+
+        assertEquals(IdempotencyRecord.Status.IN_PROGRESS, table.get("1:key-1").getStatus());
+    }
+
+    private IdempotencyRecord leased(String key, LocalDateTime leasedAt) {
+        IdempotencyRecord record = table.get(key);
+        return record != null && record.getStatus() == IdempotencyRecord.Status.IN_PROGRESS
+                && record.getCreatedAt().equals(leasedAt) ? record : null;
+    }
+
+    private IdempotencyRecord copy(IdempotencyRecord record) {
+        IdempotencyRecord copy = new IdempotencyRecord(record.getIdempotencyKey(), record.getRequestHash(),
+                record.getCreatedAt(), record.getExpiresAt());
+        copy.setStatus(record.getStatus());
+        copy.setResponseStatus(record.getResponseStatus());
+        copy.setResponseBody(record.getResponseBody());
+        return copy;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.service;
+
+import com.ecommerce.service.ImageStorageService.StoredImage;
+import com.ecommerce.service.ImageVariantService.Variant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageStorageService storage;
+    private ImageVariantService variants;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new ImageStorageService();
+        ReflectionTestUtils.setField(storage, "uploadDir", dir.toString());
+        storage.init();
+        variants = newVariantService(512);
+    }
+
+    @AfterEach
+    void tearDown() {
+        variants.shutdown();
+    }
+
+    private ImageVariantService newVariantService(long cacheMaxMb) throws Exception {
+        ImageVariantService service = new ImageVariantService();
+        ReflectionTestUtils.setField(service, "imageStorageService", storage);
+        ReflectionTestUtils.setField(service, "widths", new int[] {640, 160, 320});
+        ReflectionTestUtils.setField(service, "quality", 0.8f);
+        ReflectionTestUtils.setField(service, "cacheDirSetting", dir.resolve("variants").toString());
+        ReflectionTestUtils.setField(service, "cacheMaxMb", cacheMaxMb);
+        ReflectionTestUtils.setField(service, "resizeThreads", 2);
+        ReflectionTestUtils.setField(service, "resizeQueueCapacity", 8);
+        ReflectionTestUtils.setField(service, "resizeTimeoutMs", 10_000L);
+        service.init();
+        return service;
+    }
+
+    private StoredImage store(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, x * height / width, 0xFF8800 + x);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return storage.store(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    void snapsRequestedWidthsUpToBuckets() {
+        assertEquals(160, variants.bucketFor(1));
+        assertEquals(320, variants.bucketFor(161));
+        assertEquals(640, variants.bucketFor(640));
+        assertEquals(640, variants.bucketFor(5000));
+    }
+
+    @Test
+    void resizesKeepingAspectRatioAndServesRepeatsFromTheCache() throws Exception {
+        StoredImage stored = store(1200, 900);
+
+        Variant variant = variants.variant(stored.fileName(), 320).orElseThrow();
+        BufferedImage resized = ImageIO.read(variant.path().toFile());
+        assertEquals(320, resized.getWidth());
+        assertEquals(240, resized.getHeight());
+        assertEquals("image/jpeg", variant.contentType());
+
+        long written = Files.getLastModifiedTime(variant.path()).toMillis();
+        Thread.sleep(20);
+        assertEquals(variant.path(), variants.variant(stored.fileName(), 320).orElseThrow().path());
+        assertEquals(written, Files.getLastModifiedTime(variant.path()).toMillis());
+    }
+
+    @Test
+    void servesTheOriginalWhenItIsAlreadySmallEnough() throws Exception {
+        StoredImage stored = store(300, 200);
+
+        assertTrue(variants.variant(stored.fileName(), 160).isPresent());
+        assertEquals(Optional.empty(), variants.variant(stored.fileName(), 320));
+        assertEquals(Optional.empty(), variants.variant("0".repeat(64) + ".jpg", 320));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedVariantsBeyondTheSizeLimit() throws Exception {
+        variants.shutdown();
+        // 0 MB: only the newest variant survives each write
+        variants = newVariantService(0);
+        StoredImage first = store(800, 600);
+        StoredImage second = store(900, 600);
+
+        Path firstVariant = variants.variant(first.fileName(), 160).orElseThrow().path();
+        Path secondVariant = variants.variant(second.fileName(), 160).orElseThrow().path();
+
+        assertFalse(Files.exists(firstVariant));
+        assertTrue(Files.exists(secondVariant));
+    }
+
+    @Test
+    void failedResizeIsRetriedOnTheNextRequest() throws Exception {
+        StoredImage stored = store(800, 600);
+        Path cacheDir = dir.resolve("variants");
+        Files.delete(cacheDir);
+
+        assertEquals(Optional.empty(), variants.variant(stored.fileName(), 160));
+
+        Files.createDirectories(cacheDir);
+        assertTrue(variants.variant(stored.fileName(), 160).isPresent());
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.CacheInvalidation;
+import com.ecommerce.repository.CacheInvalidationRepository;
+import com.ecommerce.service.InvalidationBus.Event;
+import com.ecommerce.service.InvalidationBus.Topic;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JdbcInvalidationBusTest {
+
+    // The shared change-log table; "committed" rows are the ones pollers can see
+    private final List<CacheInvalidation> committed = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JdbcInvalidationBus nodeA;
+    private JdbcInvalidationBus nodeB;
+    private final List<Event> receivedByB = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        CacheInvalidationRepository repository = mock(CacheInvalidationRepository.class);
+        when(repository.save(any(CacheInvalidation.class))).thenAnswer(invocation -> {
+            CacheInvalidation row = invocation.getArgument(0);
+            row.setId(ids.incrementAndGet());
+            committed.add(row);
+            return row;
+        });
+        when(repository.findMaxId()).thenAnswer(invocation ->
+                committed.stream().mapToLong(CacheInvalidation::getId).max().orElse(0));
+        when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return committed.stream().filter(row -> row.getId() > after)
+                    .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                    .limit(page.getPageSize()).toList();
+        });
+        when(repository.findByIdIn(any(Collection.class))).thenAnswer(invocation -> {
+            Collection<Long> wanted = invocation.getArgument(0);
+            return committed.stream().filter(row -> wanted.contains(row.getId())).toList();
+        });
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        nodeA = new JdbcInvalidationBus(repository, transactionManager, "node-a", meterRegistry);
+        nodeB = new JdbcInvalidationBus(repository, transactionManager, "node-b", meterRegistry);
+        nodeA.start();
+        nodeB.start();
+        nodeB.subscribe(receivedByB::add);
+    }
+
+    @Test
+    void deliversOtherNodesEventsOnceAndSkipsItsOwn() {
+        nodeA.publish(Topic.STOCK, null);
+        nodeA.publish(Topic.STOCK, null);
+        nodeA.publish(Topic.USER, "a@example.com");
+        nodeB.publish(Topic.CATALOG, null);
+
+        nodeB.poll();
+
+        // Two stock bumps collapse into one invalidation; B's own catalog bump is not echoed
+        assertEquals(List.of(Topic.STOCK, Topic.USER), receivedByB.stream().map(Event::topic).toList());
+        assertEquals("a@example.com", receivedByB.get(1).key());
+        assertEquals(3, meterRegistry.get("ecommerce.invalidation.latency").tag("bus", "jdbc").timers()
+                .stream().mapToLong(timer -> timer.count()).sum());
+
+        nodeB.poll();
+        assertEquals(2, receivedByB.size());
+    }
+
+    @Test
+    void picksUpRowsThatCommitAfterHigherIds() {
+        // Id 1 is taken by a transaction that commits only after id 2 is already visible
+        CacheInvalidation late = new CacheInvalidation(Topic.SHIPPING_CONFIG.name(), null, "node-a", System.currentTimeMillis());
+        late.setId(ids.incrementAndGet());
+        nodeA.publish(Topic.CATALOG, null);
+
+        nodeB.poll();
+        assertEquals(List.of(Topic.CATALOG), receivedByB.stream().map(Event::topic).toList());
+
+        committed.add(late);
+        nodeB.poll();
+        assertEquals(List.of(Topic.CATALOG, Topic.SHIPPING_CONFIG), receivedByB.stream().map(Event::topic).toList());
+    }
+
+    @Test
+    void resetsEverythingWhenItFallsBehind() {
+        ReflectionTestUtils.setField(nodeB, "batchSize", 3);
+        for (int i = 0; i < 5; i++) {
+            nodeA.publish(Topic.STOCK, null);
+        }
+
+        nodeB.poll();
+        assertEquals(List.of(Topic.ALL), receivedByB.stream().map(Event::topic).toList());
+
+        // Caught up: later events flow normally again
+        nodeA.publish(Topic.CATALOG, null);
+        nodeB.poll();
+        assertEquals(List.of(Topic.ALL, Topic.CATALOG), receivedByB.stream().map(Event::topic).toList());
+
+        // No successful poll for longer than max-lag: events may have been purged meanwhile
+        ReflectionTestUtils.setField(nodeB, "lastPollAt", System.currentTimeMillis() - 60_000);
+        nodeB.poll();
+        assertEquals(Topic.ALL, receivedByB.get(2).topic());
+        assertEquals(2.0, meterRegistry.get("ecommerce.invalidation.resets").tag("bus", "jdbc").counter().count());
+    }
+}
@@ -0,0 +1,126 @@
+package com.ecommerce.service;
+
+import com.ecommerce.service.RateLimiter.Limit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalRateLimiterTest {
+
+    private static final Limit FIVE_PER_HOUR = new Limit(5, Duration.ofHours(1));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void allowsTheBurstThenReportsTheWait() {
+        LocalRateLimiter limiter = new LocalRateLimiter(1000, 16, meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("login:ip:a", FIVE_PER_HOUR));
+        }
+        long waitMs = limiter.tryAcquire("login:ip:a", FIVE_PER_HOUR);
+        // One token every 12 minutes
+        assertTrue(waitMs > Duration.ofMinutes(11).toMillis() && waitMs <= Duration.ofMinutes(12).toMillis(),
+                "wait was " + waitMs + " ms");
+
+        // Other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("login:ip:b", FIVE_PER_HOUR));
+    }
+
+    @Test
+    void refillsOverThePeriod() throws Exception {
+        LocalRateLimiter limiter = new LocalRateLimiter(1000, 16, meterRegistry);
+        Limit twoPer100ms = Limit.parse("2/100ms");
+
+        assertEquals(0, limiter.tryAcquire("k", twoPer100ms));
+        assertEquals(0, limiter.tryAcquire("k", twoPer100ms));
+        assertTrue(limiter.tryAcquire("k", twoPer100ms) > 0);
+
+        Thread.sleep(60);
+        assertEquals(0, limiter.tryAcquire("k", twoPer100ms));
+
+        // Once full again the bucket is idle and the sweep drops it
+        Thread.sleep(120);
+        limiter.evictIdle();
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void staysWithinMaxBucketsUnderDistinctKeys() {
+        LocalRateLimiter limiter = new LocalRateLimiter(64, 4, meterRegistry);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0, limiter.tryAcquire("contact:ip:10.0." + (i / 256) + "." + (i % 256), FIVE_PER_HOUR));
+        }
+
+        assertTrue(limiter.size() <= 64, "size was " + limiter.size());
+        assertTrue(meterRegistry.get("ecommerce.ratelimit.evictions").counter().count() >= 10_000 - 64);
+    }
+
+    @Test
+    void fullStripeEvictsATenthAtOnce() {
+        LocalRateLimiter limiter = new LocalRateLimiter(1000, 1, meterRegistry);
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("login:ip:" + i, FIVE_PER_HOUR);
+        }
+        assertEquals(1000, limiter.size());
+
+        limiter.tryAcquire("login:ip:new", FIVE_PER_HOUR);
+        assertEquals(901, limiter.size());
+        assertEquals(100, meterRegistry.get("ecommerce.ratelimit.evictions").counter().count());
+
+        // The next 99 new keys fit without another pass
+        for (int i = 0; i < 99; i++) {
+            limiter.tryAcquire("login:ip:more-" + i, FIVE_PER_HOUR);
+        }
+        assertEquals(1000, limiter.size());
+        assertEquals(100, meterRegistry.get("ecommerce.ratelimit.evictions").counter().count());
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheCapacity() throws Exception {
+        LocalRateLimiter limiter = new LocalRateLimiter(1000, 16, meterRegistry);
+        Limit limit = new Limit(1000, Duration.ofHours(1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    int allowed = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (limiter.tryAcquire("calculate:user:a@example.com", limit) == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get();
+            }
+            assertEquals(1000, allowed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void parsesLimits() {
+        assertEquals(new Limit(20, Duration.ofMinutes(1)), Limit.parse("20/1m"));
+        assertEquals(new Limit(5, Duration.ofMinutes(10)), Limit.parse(" 5 / 10m "));
+        assertThrows(IllegalArgumentException.class, () -> Limit.parse("20"));
+        assertThrows(IllegalArgumentException.class, () -> Limit.parse("0/1m"));
+    }
+}
@@ -0,0 +1,196 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.StripeConfig;
+import com.ecommerce.exception.StripeUnavailableException;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.support.StubStripeServer;
+import com.ecommerce.util.CircuitBreaker;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.PaymentMethod;
+import com.stripe.param.PaymentIntentCreateParams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StripeGatewayTest {
+
+    private StubStripeServer stub;
+    private StripeGateway gateway;
+    private UserRepository userRepository;
+    private final AtomicReference<String> storedCustomerId = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubStripeServer();
+        StripeConfig config = new StripeConfig();
+        ReflectionTestUtils.setField(config, "stripeSecretKey", "sk_test_stub");
+        ReflectionTestUtils.setField(config, "apiBase", stub.getBaseUrl());
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 2_000);
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 10_000);
+        ReflectionTestUtils.setField(config, "maxNetworkRetries", 0);
+        ReflectionTestUtils.setField(config, "maxConcurrent", 4);
+        StripeClient client = config.stripeClient();
+
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findById(any())).thenAnswer(invocation -> {
+            User user = newUser();
+            user.setStripeCustomerId(storedCustomerId.get());
+            return Optional.of(user);
+        });
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            storedCustomerId.set(user.getStripeCustomerId());
+            return user;
+        });
+
+        gateway = new StripeGateway(client, userRepository, 4, 4, 3, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gateway.shutdown();
+        stub.close();
+    }
+
+    @Test
+    void createsPaymentIntentAgainstStub() throws Exception {
+        PaymentIntent intent = gateway.createPaymentIntent(paymentIntentParams());
+
+        assertTrue(intent.getId().startsWith("pi_stub_"));
+        assertNotNull(intent.getClientSecret());
+        assertEquals(1, stub.getRequestCount("payment_intents"));
+    }
+
+    @Test
+    void readsPaymentMethodCardDetails() throws Exception {
+        PaymentMethod paymentMethod = gateway.retrievePaymentMethod("pm_123");
+
+        assertEquals("visa", paymentMethod.getCard().getBrand());
+        assertEquals("4242", paymentMethod.getCard().getLast4());
+    }
+
+    @Test
+    void slowStripeTimesOutInsteadOfHoldingTheCaller() throws Exception {
+        gateway.createPaymentIntent(paymentIntentParams());
+        ReflectionTestUtils.setField(gateway, "paymentIntentTimeoutMs", 300);
+        stub.setLatencyMs(2_000);
+
+        long start = System.currentTimeMillis();
+        assertThrows(StripeUnavailableException.class, () -> gateway.createPaymentIntent(paymentIntentParams()));
+
+        assertTrue(System.currentTimeMillis() - start < 1_500, "call should give up near its 300 ms timeout");
+    }
+
+    @Test
+    void circuitOpensAfterRepeatedFailuresAndFailsFast() {
+        stub.setFailureStatus(500);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(StripeException.class, () -> gateway.createPaymentIntent(paymentIntentParams()));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, gateway.getCircuitState());
+
+        int callsBefore = stub.getRequestCount("payment_intents");
+        assertThrows(StripeUnavailableException.class, () -> gateway.createPaymentIntent(paymentIntentParams()));
+        assertEquals(callsBefore, stub.getRequestCount("payment_intents"), "open circuit must not reach Stripe");
+    }
+
+    @Test
+    void fullBulkheadRejectsWithoutOpeningTheCircuit() throws Exception {
+        stub.setLatencyMs(500);
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return gateway.createPaymentIntent(paymentIntentParams());
+                }));
+            }
+            start.countDown();
+
+            int rejected = 0;
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    assertInstanceOf(StripeUnavailableException.class, e.getCause());
+                    rejected++;
+                }
+            }
+            assertTrue(rejected >= 3, "more callers rejected than the failure threshold");
+            assertEquals(CircuitBreaker.State.CLOSED, gateway.getCircuitState());
+            assertEquals(callers - rejected, stub.getRequestCount("payment_intents"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentCustomerProvisioningCreatesOneCustomer() throws Exception {
+        stub.setLatencyMs(200);
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return gateway.ensureCustomer(newUser());
+                }));
+            }
+            start.countDown();
+
+            String first = results.get(0).get();
+            for (Future<String> result : results) {
+                assertEquals(first, result.get());
+            }
+            assertEquals(1, stub.getRequestCount("customers"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static PaymentIntentCreateParams paymentIntentParams() {
+        return PaymentIntentCreateParams.builder()
+                .setAmount(1999L)
+                .setCurrency("usd")
+                .build();
+    }
+
+    private static User newUser() {
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("buyer@example.com");
+        user.setName("Buyer");
+        return user;
+    }
+}
@@ -0,0 +1,117 @@
+package com.ecommerce.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a load-test run as report.json (for diffing and tooling) and report.html
+ * (for people). Both carry the run configuration and environment so a result can
+ * be reproduced with the same settings.
+ */
+public class LoadReport {
+
+    private final String title;
+    private final Map<String, Object> configuration;
+    private final List<LoadStats.Summary> endpoints;
+    private final LoadStats.Summary total;
+
+    public LoadReport(String title, Map<String, Object> configuration,
+                      List<LoadStats.Summary> endpoints, LoadStats.Summary total) {
+        this.title = title;
+        this.configuration = configuration;
+        this.endpoints = endpoints;
+        this.total = total;
+    }
+
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("title", title);
+        json.put("configuration", configuration);
+        json.put("environment", environment());
+        json.put("endpoints", endpoints);
+        json.put("total", total);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("report.json").toFile(), json);
+
+        Files.writeString(directory.resolve("report.html"), html(), StandardCharsets.UTF_8);
+    }
+
+    /** Fixed-width table for the console. */
+    public String table() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-40s %9s %8s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "err %", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (LoadStats.Summary summary : endpoints) {
+            out.append(row(summary));
+        }
+        out.append(row(total));
+        return out.toString();
+    }
+
+    private static String row(LoadStats.Summary s) {
+        return String.format(Locale.ROOT, "%-40s %9d %8d %8.2f %10.1f %9.1f %9.1f %9.1f %9.1f%n",
+                s.endpoint(), s.requests(), s.errors(), s.errorRate() * 100, s.throughput(),
+                s.p50Ms(), s.p90Ms(), s.p99Ms(), s.maxMs());
+    }
+
+    private static Map<String, Object> environment() {
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put("cpus", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        return environment;
+    }
+
+    private String html() {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>").append(escape(title)).append("</title>\n")
+                .append("<style>body{font-family:sans-serif;margin:2em}table{border-collapse:collapse;margin-bottom:2em}")
+                .append("th,td{border:1px solid #ccc;padding:4px 10px;text-align:right}th:first-child,td:first-child{text-align:left}")
+                .append("tr.total{font-weight:bold}td.bad{color:#b00020}</style></head><body>\n")
+                .append("<h1>").append(escape(title)).append("</h1>\n");
+
+        html.append("<h2>Endpoints</h2>\n<table><tr><th>Endpoint</th><th>Requests</th><th>Errors</th><th>Error %</th>")
+                .append("<th>Req/s</th><th>Mean ms</th><th>p50 ms</th><th>p90 ms</th><th>p99 ms</th><th>Max ms</th><th>Statuses</th></tr>\n");
+        for (LoadStats.Summary summary : endpoints) {
+            htmlRow(html, summary, "");
+        }
+        htmlRow(html, total, "total");
+        html.append("</table>\n");
+
+        keyValueTable(html, "Configuration", configuration);
+        keyValueTable(html, "Environment", environment());
+        return html.append("</body></html>\n").toString();
+    }
+
+    private static void htmlRow(StringBuilder html, LoadStats.Summary s, String cssClass) {
+        html.append("<tr class=\"").append(cssClass).append("\"><td>").append(escape(s.endpoint())).append("</td>")
+                .append(String.format(Locale.ROOT, "<td>%d</td><td%s>%d</td><td>%.2f</td><td>%.1f</td>"
+                                + "<td>%.1f</td><td>%.1f</td><td>%.1f</td><td>%.1f</td><td>%.1f</td>",
+                        s.requests(), s.errors() > 0 ? " class=\"bad\"" : "", s.errors(), s.errorRate() * 100,
+                        s.throughput(), s.meanMs(), s.p50Ms(), s.p90Ms(), s.p99Ms(), s.maxMs()))
+                .append("<td>").append(escape(s.statusCounts().toString())).append("</td></tr>\n");
+    }
+
+    private static void keyValueTable(StringBuilder html, String heading, Map<String, Object> values) {
+        html.append("<h2>").append(heading).append("</h2>\n<table>\n");
+        values.forEach((key, value) -> html.append("<tr><td>").append(escape(key)).append("</td><td>")
+                .append(escape(String.valueOf(value))).append("</td></tr>\n"));
+        html.append("</table>\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,96 @@
+package com.ecommerce.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe per-endpoint recorder for load tests: every call's latency and
+ * HTTP status (or 0 for a client-side failure) is kept so exact percentiles
+ * can be computed once the run is over.
+ */
+public class LoadStats {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long startNanos, int status) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        endpoints.computeIfAbsent(endpoint, name -> new Endpoint()).add(micros, status);
+    }
+
+    /** Summaries sorted by endpoint name. */
+    public List<Summary> summarize(double durationSeconds) {
+        List<Summary> summaries = new ArrayList<>();
+        new TreeMap<>(endpoints).forEach((name, endpoint) -> summaries.add(endpoint.summarize(name, durationSeconds)));
+        return summaries;
+    }
+
+    public Summary total(double durationSeconds) {
+        Endpoint all = new Endpoint();
+        endpoints.values().forEach(all::addAll);
+        return all.summarize("TOTAL", durationSeconds);
+    }
+
+    private static final class Endpoint {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<Integer, Integer> statuses = new TreeMap<>();
+
+        synchronized void add(long micros, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = micros;
+            statuses.merge(status, 1, Integer::sum);
+        }
+
+        synchronized void addAll(Endpoint other) {
+            synchronized (other) {
+                for (int i = 0; i < other.count; i++) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = other.latencies[i];
+                }
+                other.statuses.forEach((status, n) -> statuses.merge(status, n, Integer::sum));
+            }
+        }
+
+        synchronized Summary summarize(String name, double durationSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            long errors = statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() / 100 != 2)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            double mean = count == 0 ? 0 : Arrays.stream(sorted).average().orElse(0) / 1000.0;
+            return new Summary(name, count, errors,
+                    count == 0 ? 0 : errors / (double) count,
+                    count / durationSeconds,
+                    mean,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90),
+                    percentile(sorted, 0.99), percentile(sorted, 1.0),
+                    new TreeMap<>(statuses));
+        }
+
+        // Nearest-rank percentile, in milliseconds
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank))] / 1000.0;
+        }
+    }
+
+    /** Latencies in milliseconds; status 0 means the request never got a response. */
+    public record Summary(String endpoint, long requests, long errors, double errorRate, double throughput,
+                          double meanMs, double p50Ms, double p90Ms, double p99Ms, double maxMs,
+                          Map<Integer, Integer> statusCounts) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.ecommerce.support;
+
+import com.ecommerce.EcommerceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Boots the whole application on a random port with local stand-ins for everything
+ * it talks to: H2 in PostgreSQL mode instead of PostgreSQL, {@link SmtpSink} instead
+ * of the mail host and {@link StubStripeServer} instead of Stripe.
+ */
+public class LoadTestApp implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+
+    private LoadTestApp(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    /**
+     * @param database  name of the in-memory database; use a fresh one per boot
+     * @param overrides extra application properties, applied last
+     */
+    public static LoadTestApp start(String database, StubStripeServer stripe, SmtpSink smtp,
+                                    Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>(smtp.mailProperties());
+        properties.put("server.port", 0);
+        properties.put("management.server.port", 0);
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + database + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.flyway.enabled", "false");
+        properties.put("spring.sql.init.mode", "never");
+        properties.put("jwt.secret", "bG9hZC10ZXN0LXNlY3JldC1sb2FkLXRlc3Qtc2VjcmV0LWxvYWQtdGVzdC1zZWNyZXQ=");
+        properties.put("jwt.expiration", 3_600_000);
+        properties.put("stripe.secret.key", "sk_test_load");
+        properties.put("stripe.publishable.key", "pk_test_load");
+        properties.put("stripe.api-base", stripe.getBaseUrl());
+        // Every simulated shopper comes from localhost
+        properties.put("app.rate-limit.enabled", "false");
+        // Shed requests would count as errors; load tests opt in through overrides
+        properties.put("app.concurrency-limit.enabled", "false");
+        properties.put("logging.level.com.ecommerce", "WARN");
+        properties.put("logging.level.org.springframework.security", "WARN");
+        properties.putAll(overrides);
+
+        // Passed as command-line args so they win over application.properties
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new LoadTestApp(new SpringApplicationBuilder(EcommerceApplication.class).run(args));
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,110 @@
+package com.ecommerce.support;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plain-text SMTP server that accepts and discards every message, so EmailService
+ * can run for real in tests without TLS, auth or an outside mail host.
+ * Use {@link #mailProperties()} to point spring.mail.* at it.
+ */
+public class SmtpSink implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger messageCount = new AtomicInteger();
+
+    public SmtpSink() throws IOException {
+        serverSocket = new ServerSocket(0, 100, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getMessageCount() {
+        return messageCount.get();
+    }
+
+    // Overrides the production SSL/auth settings from application.properties
+    public Map<String, Object> mailProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.mail.host", "127.0.0.1");
+        properties.put("spring.mail.port", getPort());
+        properties.put("spring.mail.username", "sink");
+        properties.put("spring.mail.password", "sink");
+        properties.put("spring.mail.properties.mail.smtp.auth", "false");
+        properties.put("spring.mail.properties.mail.smtp.ssl.enable", "false");
+        properties.put("spring.mail.properties.mail.smtp.starttls.required", "false");
+        properties.put("spring.mail.properties.mail.smtp.socketFactory.class", "");
+        properties.put("spring.mail.properties.mail.smtp.socketFactory.port", getPort());
+        properties.put("app.email.from", "shop@example.com");
+        properties.put("app.email.name", "Test Shop");
+        return properties;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> session(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+
+            reply(out, "220 sink ESMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 sink");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // discard message body
+                        }
+                        messageCount.incrementAndGet();
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process stand-in for the Stripe REST API, enough for the endpoints
+ * StripeGateway uses. Latency and failure status can be injected at runtime, and
+ * every request is counted per resource so tests can assert on call volume.
+ */
+public class StubStripeServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final AtomicLong latencyMs = new AtomicLong();
+    private final AtomicInteger failureStatus = new AtomicInteger();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, String> customersByIdempotencyKey = new ConcurrentHashMap<>();
+
+    public StubStripeServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setLatencyMs(long latency) {
+        latencyMs.set(latency);
+    }
+
+    // 0 disables failure injection
+    public void setFailureStatus(int status) {
+        failureStatus.set(status);
+    }
+
+    public int getRequestCount(String resource) {
+        AtomicInteger count = requestCounts.get(resource);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            exchange.getRequestBody().readAllBytes();
+
+            String path = exchange.getRequestURI().getPath();
+            String[] segments = path.substring("/v1/".length()).split("/");
+            String resource = segments[0];
+            requestCounts.computeIfAbsent(resource, r -> new AtomicInteger()).incrementAndGet();
+
+            long latency = latencyMs.get();
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+
+            int failure = failureStatus.get();
+            if (failure > 0) {
+                respond(exchange, failure, "{\"error\":{\"type\":\"api_error\",\"message\":\"Injected failure\"}}");
+                return;
+            }
+
+            int n = sequence.incrementAndGet();
+            switch (resource) {
+                case "customers" -> {
+                    String id = segments.length > 1 ? segments[1] : customerId(exchange, n);
+                    respond(exchange, 200, "{\"id\":\"" + id + "\",\"object\":\"customer\",\"email\":\"stub@example.com\","
+                            + "\"name\":\"Stub Customer\",\"invoice_settings\":{}}");
+                }
+                case "payment_intents" -> respond(exchange, 200, "{\"id\":\"pi_stub_" + n + "\",\"object\":\"payment_intent\","
+                        + "\"client_secret\":\"pi_stub_" + n + "_secret_0123456789abcdef\",\"status\":\"requires_payment_method\"}");
+                case "setup_intents" -> respond(exchange, 200, "{\"id\":\"seti_stub_" + n + "\",\"object\":\"setup_intent\","
+                        + "\"client_secret\":\"seti_stub_" + n + "_secret_0123456789abcdef\",\"status\":\"requires_payment_method\"}");
+                case "payment_methods" -> {
+                    String id = segments.length > 1 ? segments[1] : "pm_stub_" + n;
+                    String customer = path.endsWith("/attach") ? "\"cus_stub_attached\"" : "null";
+                    respond(exchange, 200, "{\"id\":\"" + id + "\",\"object\":\"payment_method\",\"type\":\"card\","
+                            + "\"customer\":" + customer + ","
+                            + "\"card\":{\"brand\":\"visa\",\"last4\":\"4242\",\"exp_month\":12,\"exp_year\":2030},"
+                            + "\"billing_details\":{\"address\":{\"postal_code\":\"94107\"}}}");
+                }
+                default -> respond(exchange, 404, "{\"error\":{\"type\":\"invalid_request_error\",\"message\":\"Unknown resource\"}}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Honors Idempotency-Key like Stripe does, so retried creations return the same customer
+    private String customerId(HttpExchange exchange, int n) {
+        String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        if (key == null) {
+            return "cus_stub_" + n;
+        }
+        return customersByIdempotencyKey.computeIfAbsent(key, k -> "cus_stub_" + n);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Request-Id", "req_stub");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
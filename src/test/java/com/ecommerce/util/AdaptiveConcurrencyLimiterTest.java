@@ -0,0 +1,95 @@
+package com.ecommerce.util;
+
+import com.ecommerce.util.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MS = 1_000_000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter("test", initialLimit, 4, 200, 0.8, 0.5, 100, 10, clock::get);
+    }
+
+    // One 100 ms window: fill `concurrency` slots, then release them all with the given latency
+    private static void window(AdaptiveConcurrencyLimiter limiter, AtomicLong clock, int concurrency, long rttMs) {
+        int acquired = 0;
+        while (acquired < concurrency && limiter.tryAcquire(Priority.CRITICAL)) {
+            acquired++;
+        }
+        clock.addAndGet(100 * MS);
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(rttMs * MS);
+        }
+    }
+
+    @Test
+    void growsWhileBusyAndFast() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        for (int i = 0; i < 20; i++) {
+            window(limiter, clock, limiter.getLimit(), 10);
+        }
+        assertTrue(limiter.getLimit() > 40, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhenMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        for (int i = 0; i < 50; i++) {
+            window(limiter, clock, 5, 10);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAndRecoversAfterwards() {
+        AdaptiveConcurrencyLimiter limiter = limiter(50);
+        for (int i = 0; i < 10; i++) {
+            window(limiter, clock, limiter.getLimit(), 10);
+        }
+        int before = limiter.getLimit();
+
+        // Database slows down: requests take 5x as long
+        for (int i = 0; i < 30; i++) {
+            window(limiter, clock, limiter.getLimit(), 50);
+        }
+        int overloaded = limiter.getLimit();
+        assertTrue(overloaded < before / 2, "limit went from " + before + " to " + overloaded);
+        assertTrue(overloaded >= 4);
+
+        for (int i = 0; i < 30; i++) {
+            window(limiter, clock, limiter.getLimit(), 10);
+        }
+        assertTrue(limiter.getLimit() > overloaded, "limit stayed at " + limiter.getLimit());
+    }
+
+    @Test
+    void lowerPrioritiesAreShedFirst() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(Priority.LOW));
+        }
+        assertFalse(limiter.tryAcquire(Priority.LOW));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(Priority.NORMAL));
+        }
+        assertFalse(limiter.tryAcquire(Priority.NORMAL));
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL));
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL));
+        assertFalse(limiter.tryAcquire(Priority.CRITICAL));
+        assertEquals(10, limiter.getInFlight());
+
+        limiter.release(-1);
+        assertFalse(limiter.tryAcquire(Priority.NORMAL));
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL));
+    }
+}
@@ -0,0 +1,52 @@
+package com.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvTest {
+
+    private static List<List<String>> readAll(String text) throws IOException {
+        Csv.RecordReader reader = new Csv.RecordReader(new StringReader(text));
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Test
+    void readsQuotedFieldsAcrossLinesAndSkipsBlankLines() throws IOException {
+        String text = "sku,name,price\r\n"
+                + "A-1,\"Chair, oak\",10\r\n"
+                + "\n"
+                + "A-2,\"Says \"\"hi\"\"\nand more\",\n"
+                + "A-3,,\"\"";
+
+        assertEquals(List.of(
+                List.of("sku", "name", "price"),
+                List.of("A-1", "Chair, oak", "10"),
+                List.of("A-2", "Says \"hi\"\nand more", ""),
+                List.of("A-3", "", "")), readAll(text));
+    }
+
+    @Test
+    void quotesOnlyWhenNeededAndRoundTrips() throws IOException {
+        assertEquals("plain", Csv.field("plain"));
+        assertEquals("", Csv.field(null));
+        String tricky = "a \"b\", c\nd";
+        assertEquals(List.of(List.of(tricky, "x")), readAll(Csv.field(tricky) + ",x\n"));
+    }
+
+    @Test
+    void rejectsUnterminatedQuotes() {
+        assertThrows(IOException.class, () -> readAll("A-1,\"never closed\n"));
+    }
+}
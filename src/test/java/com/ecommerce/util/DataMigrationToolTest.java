@@ -0,0 +1,109 @@
+package com.ecommerce.util;
+
+import com.ecommerce.util.DataMigrationTool.Report;
+import com.ecommerce.util.DataMigrationTool.Settings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataMigrationToolTest {
+
+    private static final String SCHEMA = """
+            CREATE TABLE users (id BIGINT PRIMARY KEY, email VARCHAR(100) NOT NULL, bio VARCHAR(200));
+            CREATE TABLE user_roles (user_id BIGINT NOT NULL REFERENCES users (id), role VARCHAR(20));
+            CREATE TABLE orders (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL REFERENCES users (id),
+                                 total DECIMAL(10, 2), created_at TIMESTAMP, note VARCHAR(50));
+            """;
+
+    private String sourceUrl;
+    private String targetUrl;
+    private JdbcTemplate source;
+    private JdbcTemplate target;
+
+    @BeforeEach
+    void setUp() {
+        sourceUrl = "jdbc:h2:mem:source-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        targetUrl = "jdbc:h2:mem:target-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        source = new JdbcTemplate(new DriverManagerDataSource(sourceUrl, "sa", ""));
+        target = new JdbcTemplate(new DriverManagerDataSource(targetUrl, "sa", ""));
+        source.execute(SCHEMA);
+        target.execute(SCHEMA);
+
+        for (long id = 1; id <= 50; id++) {
+            // Empty and missing bios must survive as they are
+            source.update("INSERT INTO users VALUES (?, ?, ?)", id, "user" + id + "@example.com",
+                    id % 3 == 0 ? null : id % 3 == 1 ? "" : "likes \"quotes\", commas");
+            source.update("INSERT INTO user_roles VALUES (?, 'USER')", id);
+        }
+        for (long id = 1; id <= 1000; id++) {
+            source.update("INSERT INTO orders VALUES (?, ?, ?, ?, ?)", id, id % 50 + 1, id * 1.5,
+                    Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 10, 0).plusMinutes(id)), id == 777 ? "boom" : null);
+        }
+    }
+
+    private Report migrate(boolean restart) throws Exception {
+        return new DataMigrationTool(new Settings(sourceUrl, "sa", "", targetUrl, "sa", "",
+                3, 100, 40, 100, Set.of(), restart, true)).run();
+    }
+
+    private long count(JdbcTemplate jdbc, String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    @Test
+    void copiesTablesInRangesAndVerifiesThem() throws Exception {
+        Report report = migrate(false);
+
+        assertTrue(report.ok(), report.mismatches().toString());
+        // users ids 0-99, user_roles (no key) whole, orders ids 0-999 plus 1000 in ranges of 100
+        assertEquals(1 + 1 + 11, report.rangesCopied());
+        assertEquals(50, count(target, "users"));
+        assertEquals(50, count(target, "user_roles"));
+        assertEquals(1000, count(target, "orders"));
+        assertEquals(17, count(target, "users WHERE bio = ''"));
+        assertEquals(source.queryForList("SELECT * FROM orders ORDER BY id"), target.queryForList("SELECT * FROM orders ORDER BY id"));
+    }
+
+    @Test
+    void resumesAfterAFailedRange() throws Exception {
+        target.execute("ALTER TABLE orders ADD CONSTRAINT no_boom CHECK (note IS NULL OR note <> 'boom')");
+
+        assertThrows(IllegalStateException.class, () -> migrate(false));
+        assertEquals(900, count(target, "orders"));
+
+        target.execute("ALTER TABLE orders DROP CONSTRAINT no_boom");
+        Report resumed = migrate(false);
+
+        assertTrue(resumed.ok(), resumed.mismatches().toString());
+        assertEquals(1, resumed.rangesCopied());
+        assertEquals(12, resumed.rangesSkipped());
+        assertEquals(1000, count(target, "orders"));
+    }
+
+    @Test
+    void reportsTargetRowsThatDifferFromWhatWasCopied() throws Exception {
+        migrate(false);
+        target.update("UPDATE orders SET total = 0 WHERE id = 42");
+
+        Report report = migrate(false);
+
+        assertEquals(0, report.rangesCopied());
+        assertFalse(report.ok());
+        assertEquals(1, report.mismatches().size());
+        assertTrue(report.mismatches().get(0).startsWith("orders id [0, 100)"), report.mismatches().get(0));
+
+        assertTrue(migrate(true).ok());
+        assertEquals(1000, count(target, "orders"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileResponseWriterTest {
+
+    private static final String ETAG = "\"abc\"";
+
+    @TempDir
+    Path dir;
+
+    private MockHttpServletResponse get(Path file, String... headers) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+        for (int i = 0; i < headers.length; i += 2) {
+            request.addHeader(headers[i], headers[i + 1]);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileResponseWriter.write(file, "text/plain", ETAG, "no-cache", request, response);
+        return response;
+    }
+
+    @Test
+    void servesWholeFileAndSingleRanges() throws Exception {
+        Path file = Files.writeString(dir.resolve("f.txt"), "0123456789");
+
+        MockHttpServletResponse full = get(file);
+        assertEquals(200, full.getStatus());
+        assertEquals("0123456789", full.getContentAsString());
+        assertEquals("bytes", full.getHeader("Accept-Ranges"));
+
+        MockHttpServletResponse middle = get(file, "Range", "bytes=2-4");
+        assertEquals(206, middle.getStatus());
+        assertEquals("234", middle.getContentAsString());
+        assertEquals("bytes 2-4/10", middle.getHeader("Content-Range"));
+
+        assertEquals("789", get(file, "Range", "bytes=7-").getContentAsString());
+        assertEquals("89", get(file, "Range", "bytes=-2").getContentAsString());
+        assertEquals("89", get(file, "Range", "bytes=8-100").getContentAsString());
+    }
+
+    @Test
+    void handlesUnsatisfiableRangesAndValidators() throws Exception {
+        Path file = Files.write(dir.resolve("f.bin"), "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        MockHttpServletResponse beyond = get(file, "Range", "bytes=10-");
+        assertEquals(416, beyond.getStatus());
+        assertEquals("bytes */10", beyond.getHeader("Content-Range"));
+
+        // A stale If-Range means the client's partial copy is outdated: send everything
+        MockHttpServletResponse stale = get(file, "Range", "bytes=0-1", "If-Range", "\"old\"");
+        assertEquals(200, stale.getStatus());
+        assertEquals(10, stale.getContentAsByteArray().length);
+
+        MockHttpServletResponse notModified = get(file, "If-None-Match", ETAG);
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+        assertNull(notModified.getContentType());
+    }
+}
@@ -0,0 +1,136 @@
+package com.ecommerce.util;
+
+import com.ecommerce.util.ReplicaRoutingDataSource.Replica;
+import com.ecommerce.util.ReplicaRoutingDataSource.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final List<HikariDataSource> databases = new ArrayList<>();
+    private final AtomicReference<String> user = new AtomicReference<>();
+
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+    }
+
+    // Each database answers "SELECT name FROM whoami" with its own name and reports lag from replica_status
+    private HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(4);
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE whoami (name VARCHAR(20))");
+        setup.update("INSERT INTO whoami VALUES (?)", name);
+        setup.execute("CREATE TABLE replica_status (lag_ms BIGINT)");
+        setup.update("INSERT INTO replica_status VALUES (0)");
+        databases.add(dataSource);
+        return dataSource;
+    }
+
+    private void start(Selection selection, String... replicaNames) {
+        List<Replica> replicas = new ArrayList<>();
+        HikariDataSource primary = database("primary");
+        for (String name : replicaNames) {
+            replicas.add(new Replica(name, database(name)));
+        }
+        routing = new ReplicaRoutingDataSource(primary, replicas, selection, 500, 60_000,
+                "SELECT lag_ms FROM replica_status", user::get, new SimpleMeterRegistry());
+        routing.checkReplicas();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private String whoAnswersReadOnly() {
+        boolean previous = ReplicaRoutingDataSource.enterReplicaScope();
+        try {
+            return readOnly.execute(status ->
+                    jdbc.queryForObject("SELECT name FROM whoami WHERE name <> 'order'", String.class));
+        } finally {
+            ReplicaRoutingDataSource.exitReplicaScope(previous);
+        }
+    }
+
+    @Test
+    void sendsOnlyScopedReadOnlyTransactionsToReplicas() {
+        start(Selection.ROUND_ROBIN, "replica-1", "replica-2");
+
+        assertEquals(List.of("replica-1", "replica-2", "replica-1"),
+                List.of(whoAnswersReadOnly(), whoAnswersReadOnly(), whoAnswersReadOnly()));
+        assertEquals("primary", readWrite.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class)));
+        // Read-only but outside a @ReadFromReplica scope
+        assertEquals("primary", readOnly.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class)));
+    }
+
+    @Test
+    void prefersIdleReplicasAndSkipsLaggingOrUnreachableOnes() throws Exception {
+        start(Selection.LEAST_LOADED, "replica-1", "replica-2");
+
+        try (Connection busy = databases.get(1).getConnection()) {
+            assertEquals("replica-2", whoAnswersReadOnly());
+            assertEquals("replica-2", whoAnswersReadOnly());
+        }
+
+        new JdbcTemplate(databases.get(1)).update("UPDATE replica_status SET lag_ms = 5000");
+        routing.checkReplicas();
+        assertEquals("replica-2", whoAnswersReadOnly());
+        assertEquals("replica-2", whoAnswersReadOnly());
+
+        databases.get(2).close();
+        routing.checkReplicas();
+        assertEquals("primary", whoAnswersReadOnly());
+
+        // Caught up again
+        new JdbcTemplate(databases.get(1)).update("UPDATE replica_status SET lag_ms = 100");
+        routing.checkReplicas();
+        assertEquals("replica-1", whoAnswersReadOnly());
+    }
+
+    @Test
+    void readsOwnWritesFromThePrimary() {
+        start(Selection.ROUND_ROBIN, "replica-1");
+
+        user.set("alice@example.com");
+        assertEquals("replica-1", whoAnswersReadOnly());
+
+        // A rolled-back write does not count
+        readWrite.execute(status -> {
+            jdbc.update("INSERT INTO whoami VALUES ('order')");
+            status.setRollbackOnly();
+            return null;
+        });
+        assertEquals("replica-1", whoAnswersReadOnly());
+
+        readWrite.execute(status -> jdbc.update("INSERT INTO whoami VALUES ('order')"));
+        assertEquals("primary", whoAnswersReadOnly());
+
+        user.set("bob@example.com");
+        assertEquals("replica-1", whoAnswersReadOnly());
+    }
+}